@@ -0,0 +1,191 @@
+package com.mongodb.app.benchmark;
+
+import com.mongodb.app.collection.Address;
+import com.mongodb.app.collection.Grade;
+import com.mongodb.app.collection.Restaurant;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Hand-written restaurant codec.
+ * <p>
+ * Baseline of the codec benchmark, it reads and writes every property without any reflection or registry lookup.
+ *
+ * @author nico.arianto
+ */
+public class HandWrittenRestaurantCodec implements Codec<Restaurant> {
+
+    /**
+     * Decode a restaurant.
+     *
+     * @param reader         reader
+     * @param decoderContext context
+     * @return restaurant
+     */
+    @Override
+    public Restaurant decode(BsonReader reader, DecoderContext decoderContext) {
+        final Restaurant restaurant = new Restaurant();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id":
+                    restaurant.setId(reader.readObjectId());
+                    break;
+                case "address":
+                    restaurant.setAddress(readAddress(reader));
+                    break;
+                case "borough":
+                    restaurant.setBorough(reader.readString());
+                    break;
+                case "cuisine":
+                    restaurant.setCuisine(reader.readString());
+                    break;
+                case "grades":
+                    restaurant.setGrades(readGrades(reader));
+                    break;
+                case "name":
+                    restaurant.setName(reader.readString());
+                    break;
+                case "restaurant_id":
+                    restaurant.setRestaurantId(reader.readString());
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return restaurant;
+    }
+
+    /**
+     * Reads an address.
+     *
+     * @param reader reader
+     * @return address
+     */
+    private Address readAddress(final BsonReader reader) {
+        final Address address = new Address();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "street":
+                    address.setStreet(reader.readString());
+                    break;
+                case "zipcode":
+                    address.setZipcode(reader.readString());
+                    break;
+                case "building":
+                    address.setBuilding(reader.readString());
+                    break;
+                case "coord":
+                    double[] coord = new double[2];
+                    int size = 0;
+                    reader.readStartArray();
+                    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                        if (size == coord.length) {
+                            coord = Arrays.copyOf(coord, size << 1);
+                        }
+                        coord[size++] = reader.readDouble();
+                    }
+                    reader.readEndArray();
+                    address.setCoord(size == coord.length ? coord : Arrays.copyOf(coord, size));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return address;
+    }
+
+    /**
+     * Reads a list of grades.
+     *
+     * @param reader reader
+     * @return grades
+     */
+    private List<Grade> readGrades(final BsonReader reader) {
+        final List<Grade> grades = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            final Grade grade = new Grade();
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (reader.readName()) {
+                    case "date":
+                        grade.setDate(new Date(reader.readDateTime()));
+                        break;
+                    case "grade":
+                        grade.setGrade(reader.readString());
+                        break;
+                    case "score":
+                        grade.setScore(reader.readInt32());
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+            grades.add(grade);
+        }
+        reader.readEndArray();
+        return grades;
+    }
+
+    /**
+     * Encode a restaurant.
+     *
+     * @param writer         writer
+     * @param value          restaurant
+     * @param encoderContext context
+     */
+    @Override
+    public void encode(BsonWriter writer, Restaurant value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeObjectId("_id", value.getId());
+        final Address address = value.getAddress();
+        writer.writeStartDocument("address");
+        writer.writeString("street", address.getStreet());
+        writer.writeString("zipcode", address.getZipcode());
+        writer.writeString("building", address.getBuilding());
+        writer.writeStartArray("coord");
+        for (double coord : address.getCoord()) {
+            writer.writeDouble(coord);
+        }
+        writer.writeEndArray();
+        writer.writeEndDocument();
+        writer.writeString("borough", value.getBorough());
+        writer.writeString("cuisine", value.getCuisine());
+        writer.writeStartArray("grades");
+        for (Grade grade : value.getGrades()) {
+            writer.writeStartDocument();
+            writer.writeDateTime("date", grade.getDate().getTime());
+            writer.writeString("grade", grade.getGrade());
+            writer.writeInt32("score", grade.getScore());
+            writer.writeEndDocument();
+        }
+        writer.writeEndArray();
+        writer.writeString("name", value.getName());
+        writer.writeString("restaurant_id", value.getRestaurantId());
+        writer.writeEndDocument();
+    }
+
+    /**
+     * Returns restaurant class.
+     *
+     * @return restaurant class
+     */
+    @Override
+    public Class<Restaurant> getEncoderClass() {
+        return Restaurant.class;
+    }
+}
@@ -0,0 +1,146 @@
+package com.mongodb.app.benchmark;
+
+import com.mongodb.app.collection.Address;
+import com.mongodb.app.collection.Grade;
+import com.mongodb.app.collection.Restaurant;
+import com.mongodb.app.resource.MongoDatabaseUtil;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restaurant codec benchmark.
+ * <p>
+ * Compares the registry codec of the restaurant collection with a hand-written codec on the encode and decode paths.
+ * <p>
+ * Run with: java -jar data-access-benchmark/target/benchmarks.jar
+ *
+ * @author nico.arianto
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestaurantCodecBenchmark {
+    private final DecoderContext decoderContext = DecoderContext.builder().build();
+    private final EncoderContext encoderContext = EncoderContext.builder().isEncodingCollectibleDocument(true).build();
+    private Codec<Restaurant> registryCodec;
+    private Codec<Restaurant> handWrittenCodec;
+    private Restaurant restaurant;
+    private byte[] document;
+
+    /**
+     * Initialize codecs and the encoded restaurant document.
+     */
+    @Setup
+    public void init() {
+        registryCodec = MongoDatabaseUtil.getCodecRegistry().get(Restaurant.class);
+        handWrittenCodec = new HandWrittenRestaurantCodec();
+        restaurant = new Restaurant();
+        restaurant.setId(new ObjectId());
+        final Address address = new Address();
+        address.setStreet("2 Avenue");
+        address.setZipcode("10075");
+        address.setBuilding("1480");
+        address.setCoord(new double[]{-73.9557413, 40.7720266});
+        restaurant.setAddress(address);
+        restaurant.setBorough("Manhattan");
+        restaurant.setCuisine("Italian");
+        final List<Grade> grades = new ArrayList<>(4);
+        for (int index = 0; index < 4; index++) {
+            final Grade grade = new Grade();
+            grade.setDate(new Date());
+            grade.setGrade("A");
+            grade.setScore(index);
+            grades.add(grade);
+        }
+        restaurant.setGrades(grades);
+        restaurant.setName("Vella");
+        restaurant.setRestaurantId("41704620");
+        document = encode(handWrittenCodec);
+    }
+
+    /**
+     * Encode the restaurant with the codec.
+     *
+     * @param codec codec
+     * @return encoded bytes
+     */
+    private byte[] encode(final Codec<Restaurant> codec) {
+        final BasicOutputBuffer buffer = new BasicOutputBuffer();
+        codec.encode(new BsonBinaryWriter(buffer), restaurant, encoderContext);
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Decode the restaurant with the codec.
+     *
+     * @param codec codec
+     * @return restaurant
+     */
+    private Restaurant decode(final Codec<Restaurant> codec) {
+        return codec.decode(new BsonBinaryReader(ByteBuffer.wrap(document)), decoderContext);
+    }
+
+    /**
+     * Encode with the registry codec.
+     *
+     * @return encoded bytes
+     */
+    @Benchmark
+    public byte[] encodeRegistryCodec() {
+        return encode(registryCodec);
+    }
+
+    /**
+     * Encode with the hand-written codec.
+     *
+     * @return encoded bytes
+     */
+    @Benchmark
+    public byte[] encodeHandWrittenCodec() {
+        return encode(handWrittenCodec);
+    }
+
+    /**
+     * Decode with the registry codec.
+     *
+     * @return restaurant
+     */
+    @Benchmark
+    public Restaurant decodeRegistryCodec() {
+        return decode(registryCodec);
+    }
+
+    /**
+     * Decode with the hand-written codec.
+     *
+     * @return restaurant
+     */
+    @Benchmark
+    public Restaurant decodeHandWrittenCodec() {
+        return decode(handWrittenCodec);
+    }
+}
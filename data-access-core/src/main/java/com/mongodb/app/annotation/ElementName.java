@@ -0,0 +1,28 @@
+package com.mongodb.app.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Element name.
+ * <p>
+ * Sets the BSON element name of a property if it is different with the property name, e.g. 'restaurant_id' for
+ * 'restaurantId'. It can be placed on the field or on the getter of the property.
+ *
+ * @author nico.arianto
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface ElementName {
+
+    /**
+     * Returns BSON element name.
+     *
+     * @return BSON element name
+     */
+    String value();
+}
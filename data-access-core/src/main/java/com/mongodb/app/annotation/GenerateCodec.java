@@ -0,0 +1,31 @@
+package com.mongodb.app.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generate codec.
+ * <p>
+ * Marks a Java Bean for which the codec processor generates a reflection-free codec at compile time, and registers
+ * it in the generated codec provider.
+ * <p>
+ * With {@code lazy = true}, the processor also generates a lazy subclass of the Java Bean, which decodes each property
+ * from the raw BSON document on the first getter access.
+ *
+ * @author nico.arianto
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateCodec {
+
+    /**
+     * Returns true if a lazy subclass is generated.
+     *
+     * @return true if a lazy subclass is generated
+     */
+    boolean lazy() default false;
+}
@@ -0,0 +1,91 @@
+package com.mongodb.app.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Index.
+ * <p>
+ * Declares an index of a collection class by Java property names, which the codec maps to BSON element paths. A DAO
+ * creates every declared index which the collection does not have yet, by
+ * {@link com.mongodb.app.dao.AbstractDAO#reconcileIndexes()}. A compound index lists several properties, with the same
+ * kind.
+ *
+ * @author nico.arianto
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Repeatable(Indexes.class)
+public @interface Index {
+
+    /**
+     * Returns the Java property names of the index keys, a nested property is addressed by a dotted path.
+     *
+     * @return Java property names
+     */
+    String[] value();
+
+    /**
+     * Returns the kind of the index keys.
+     *
+     * @return kind
+     */
+    Kind kind() default Kind.ASCENDING;
+
+    /**
+     * Returns the index name, the server derives it from the keys if it is empty.
+     *
+     * @return index name
+     */
+    String name() default "";
+
+    /**
+     * Returns true if the index rejects a duplicate key.
+     *
+     * @return true if the index is unique
+     */
+    boolean unique() default false;
+
+    /**
+     * Returns true if the index skips the documents which have none of the keys.
+     *
+     * @return true if the index is sparse
+     */
+    boolean sparse() default false;
+
+    /**
+     * Returns the time to live of the documents in seconds, after the date of the single key, e.g. of a TTL index.
+     *
+     * @return time to live in seconds, or -1 if the documents do not expire
+     */
+    long expireAfterSeconds() default -1;
+
+    /**
+     * Index key kind.
+     *
+     * @author nico.arianto
+     */
+    enum Kind {
+        /**
+         * Ascending key.
+         */
+        ASCENDING,
+        /**
+         * Descending key.
+         */
+        DESCENDING,
+        /**
+         * Spherical geometry key, of a GeoJSON object or a legacy coordinate pair.
+         */
+        GEO_2DSPHERE,
+        /**
+         * Hashed key.
+         */
+        HASHED
+    }
+}
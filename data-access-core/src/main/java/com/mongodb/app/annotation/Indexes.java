@@ -0,0 +1,27 @@
+package com.mongodb.app.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indexes.
+ * <p>
+ * Container of the repeated {@link Index} annotations of a collection class.
+ *
+ * @author nico.arianto
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Indexes {
+
+    /**
+     * Returns the indexes.
+     *
+     * @return indexes
+     */
+    Index[] value();
+}
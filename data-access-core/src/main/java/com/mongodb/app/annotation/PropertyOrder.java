@@ -0,0 +1,28 @@
+package com.mongodb.app.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Property order.
+ * <p>
+ * Declares the order in which the codec writes the properties of a Java Bean. The id is always written first, then the
+ * listed properties, then the remaining properties in declaration order.
+ *
+ * @author nico.arianto
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface PropertyOrder {
+
+    /**
+     * Returns the Java property names in write order.
+     *
+     * @return Java property names
+     */
+    String[] value();
+}
@@ -0,0 +1,29 @@
+package com.mongodb.app.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Shard key.
+ * <p>
+ * Declares the shard key properties of a collection class, other than the id. The DAO adds them to the filter of every
+ * single document update, delete and read, so the mongos routes each call to a single shard. As on the server, the
+ * shard key values of a document must not change, otherwise its replacement matches nothing.
+ *
+ * @author nico.arianto
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ShardKey {
+
+    /**
+     * Returns the Java property names of the shard key, a nested property is addressed by a dotted path.
+     *
+     * @return Java property names
+     */
+    String[] value();
+}
@@ -1,8 +1,15 @@
 package com.mongodb.app.codec;
 
+import com.mongodb.app.annotation.PropertyOrder;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonInvalidOperationException;
 import org.bson.BsonReader;
+import org.bson.BsonString;
 import org.bson.BsonType;
+import org.bson.BsonValue;
 import org.bson.BsonWriter;
+import org.bson.RawBsonDocument;
 import org.bson.codecs.Codec;
 import org.bson.codecs.DecoderContext;
 import org.bson.codecs.Encoder;
@@ -20,8 +27,11 @@ import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.io.StringWriter;
 import java.lang.reflect.Array;
-import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Abstract codec.
@@ -31,9 +41,17 @@ import java.util.*;
  */
 public abstract class AbstractCodec<T> implements Codec<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractCodec.class);
+    private static final int INITIAL_ARRAY_CAPACITY = 4;
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+    private static final String ID_ELEMENT_NAME = "_id";
     private final CodecRegistry registry;
     private final Class<T> collectionClass;
-    private Map<String, PropertyDescriptor> collectionDescriptors;
+    private Map<String, PropertyAccessor<T>> collectionProperties;
+    private Map<String, String> attributeNames;
+    private PropertyAccessor<T>[] collectionAccessors;
+    private volatile ElementNameTable elementNameTable;
+    private AtomicReferenceArray<Codec<?>> slotCodecs;
+    private final ConcurrentMap<Class<?>, Codec<?>> codecCache = new ConcurrentHashMap<>(4);
 
     /**
      * Constructor.
@@ -44,15 +62,32 @@ public abstract class AbstractCodec<T> implements Codec<T> {
     protected AbstractCodec(CodecRegistry registry, Class<T> collectionClass) {
         this.registry = registry;
         this.collectionClass = collectionClass;
-        initCollectionDesriptors();
+        initCollectionProperties(readCollectionProperties());
     }
 
     /**
-     * Initialize collection descriptors.
+     * Constructor.
+     * <p>
+     * Use this constructor if the property accessors are already known, e.g. by a generated codec, so the collection
+     * class is not introspected.
+     *
+     * @param registry        registry
+     * @param collectionClass collection class
+     * @param accessors       property accessors
+     */
+    protected AbstractCodec(CodecRegistry registry, Class<T> collectionClass, List<PropertyAccessor<T>> accessors) {
+        this.registry = registry;
+        this.collectionClass = collectionClass;
+        initCollectionProperties(accessors);
+    }
+
+    /**
+     * Reads collection properties.
      *
+     * @return property accessors
      * @throws CodecConfigurationException if {@link Introspector} cannot read {@link BeanInfo} from collection class
      */
-    private void initCollectionDesriptors() {
+    private List<PropertyAccessor<T>> readCollectionProperties() {
         final BeanInfo collectionInfo;
         try {
             collectionInfo = Introspector.getBeanInfo(collectionClass, Object.class);
@@ -62,79 +97,420 @@ public abstract class AbstractCodec<T> implements Codec<T> {
             throw new CodecConfigurationException(message);
         }
         final PropertyDescriptor[] descriptors = collectionInfo.getPropertyDescriptors();
-        this.collectionDescriptors = new HashMap<>(descriptors.length);
+        final List<PropertyAccessor<T>> accessors = new ArrayList<>(descriptors.length);
         for (PropertyDescriptor descriptor : descriptors) {
             if (Objects.isNull(descriptor.getWriteMethod()) || Objects.isNull(descriptor.getReadMethod())) {
                 continue;
             }
-            collectionDescriptors.put(descriptor.getName(), descriptor);
+            accessors.add(PropertyAccessor.of(descriptor));
+        }
+        final Map<String, Integer> declarationOrder = getDeclarationOrder();
+        accessors.sort(Comparator.comparing((PropertyAccessor<T> accessor) ->
+                declarationOrder.getOrDefault(accessor.getName(), Integer.MAX_VALUE))
+                .thenComparing(PropertyAccessor::getName));
+        return accessors;
+    }
+
+    /**
+     * Returns the declaration order of the fields of the collection class, starting from the top most super class.
+     * <p>
+     * A property without a field of the same name comes after the declared fields, in name order.
+     *
+     * @return field name to declaration order
+     */
+    private Map<String, Integer> getDeclarationOrder() {
+        final Deque<Class<?>> hierarchy = new ArrayDeque<>();
+        for (Class<?> current = collectionClass; current != null && current != Object.class;
+             current = current.getSuperclass()) {
+            hierarchy.push(current);
+        }
+        final Map<String, Integer> declarationOrder = new HashMap<>();
+        for (Class<?> current : hierarchy) {
+            for (Field field : current.getDeclaredFields()) {
+                declarationOrder.putIfAbsent(field.getName(), declarationOrder.size());
+            }
+        }
+        return declarationOrder;
+    }
+
+    /**
+     * Initialize collection properties.
+     * <p>
+     * The accessor plan is built once here, then it is used by both the encode and decode paths.
+     *
+     * @param accessors property accessors
+     */
+    @SuppressWarnings("unchecked")
+    private void initCollectionProperties(final List<PropertyAccessor<T>> accessors) {
+        this.collectionProperties = new HashMap<>(accessors.size());
+        this.attributeNames = new HashMap<>();
+        for (PropertyAccessor<T> accessor : accessors) {
+            collectionProperties.put(accessor.getName(), accessor);
+            if (!accessor.getName().equals(accessor.getElementName())) {
+                attributeNames.put(accessor.getElementName(), accessor.getName());
+            }
+        }
+        this.collectionAccessors = accessors.toArray(new PropertyAccessor[accessors.size()]);
+        this.slotCodecs = new AtomicReferenceArray<>(collectionAccessors.length);
+    }
+
+    /**
+     * Returns the element name table of the collection properties.
+     * <p>
+     * It is built once on the first encode or decode, so {@link #getBSONElementName(String)} and
+     * {@link #getAttributeName(String)} are not called per element. A property is addressed by its BSON element name,
+     * and by each known alias which {@link #getAttributeName(String)} maps to the property. The known aliases are the
+     * "_id" element name, the property names and the element names declared by
+     * {@link com.mongodb.app.annotation.ElementName}; any other element name is skipped on decode.
+     *
+     * @return element name table
+     */
+    private ElementNameTable getElementNameTable() {
+        ElementNameTable nameTable = elementNameTable;
+        if (nameTable == null) {
+            final Map<String, Integer> propertySlots = new HashMap<>(collectionAccessors.length * 2);
+            final String[] elementNames = new String[collectionAccessors.length];
+            final Map<String, Integer> slots = new HashMap<>(collectionAccessors.length * 4);
+            final Set<String> aliases = new LinkedHashSet<>(collectionAccessors.length * 4);
+            aliases.add(ID_ELEMENT_NAME);
+            for (int slot = 0; slot < collectionAccessors.length; slot++) {
+                propertySlots.put(collectionAccessors[slot].getName(), slot);
+                elementNames[slot] = getBSONElementName(collectionAccessors[slot].getName());
+                slots.put(elementNames[slot], slot);
+                aliases.add(collectionAccessors[slot].getName());
+                aliases.add(collectionAccessors[slot].getElementName());
+            }
+            for (String alias : aliases) {
+                final Integer slot = propertySlots.get(getAttributeName(alias));
+                if (slot != null) {
+                    slots.putIfAbsent(alias, slot);
+                }
+            }
+            nameTable = new ElementNameTable(slots, elementNames, getWriteOrder(elementNames));
+            elementNameTable = nameTable;
+        }
+        return nameTable;
+    }
+
+    /**
+     * Returns the property slots in write order.
+     * <p>
+     * The "_id" element is always first, then the properties listed by {@link PropertyOrder} of the collection class,
+     * then the remaining properties in slot order, which is the declaration order of the collection class.
+     *
+     * @param elementNames BSON element name of each property slot
+     * @return property slots in write order
+     */
+    private int[] getWriteOrder(final String[] elementNames) {
+        final Set<Integer> order = new LinkedHashSet<>(collectionAccessors.length * 2);
+        for (int slot = 0; slot < elementNames.length; slot++) {
+            if (ID_ELEMENT_NAME.equals(elementNames[slot])) {
+                order.add(slot);
+            }
         }
+        final PropertyOrder propertyOrder = collectionClass.getAnnotation(PropertyOrder.class);
+        if (propertyOrder != null) {
+            for (String attributeName : propertyOrder.value()) {
+                for (int slot = 0; slot < collectionAccessors.length; slot++) {
+                    if (collectionAccessors[slot].getName().equals(attributeName)) {
+                        order.add(slot);
+                    }
+                }
+            }
+        }
+        for (int slot = 0; slot < collectionAccessors.length; slot++) {
+            order.add(slot);
+        }
+        final int[] writeOrder = new int[order.size()];
+        int index = 0;
+        for (Integer slot : order) {
+            writeOrder[index++] = slot;
+        }
+        return writeOrder;
+    }
+
+    /**
+     * Builds the codec metadata ahead of the first encode or decode.
+     * <p>
+     * Calling this method is optional, the metadata is otherwise built on first use.
+     */
+    public void initialize() {
+        getElementNameTable();
     }
 
     /**
      * Returns a codec for specific target property type.
+     * <p>
+     * The codec is looked up from the registry once, then it is cached by this codec.
      *
      * @param sourceClass target property type
      * @param <S>         attribute class
      * @return codec
      */
+    @SuppressWarnings("unchecked")
     protected <S> Codec<S> getCodec(final Class<S> sourceClass) {
-        if (registry == null) {
-            throw new CodecConfigurationException("CodecRegistry is empty!");
+        Codec<?> codec = codecCache.get(sourceClass);
+        if (codec == null) {
+            if (registry == null) {
+                throw new CodecConfigurationException("CodecRegistry is empty!");
+            }
+            codec = registry.get(sourceClass);
+            final Codec<?> cachedCodec = codecCache.putIfAbsent(sourceClass, codec);
+            if (cachedCodec != null) {
+                codec = cachedCodec;
+            }
+        }
+        return (Codec<S>) codec;
+    }
+
+    /**
+     * Returns the codec of the value type of a property slot.
+     * <p>
+     * The codec is resolved on the first use of the slot, then the slot keeps it, so the declared type of a property
+     * never goes through a codec lookup again.
+     *
+     * @param slot property slot
+     * @return codec
+     */
+    @SuppressWarnings("unchecked")
+    private Codec<Object> getSlotCodec(final int slot) {
+        Codec<?> codec = slotCodecs.get(slot);
+        if (codec == null) {
+            codec = getCodec(collectionAccessors[slot].getValueType());
+            slotCodecs.set(slot, codec);
         }
-        return registry.get(sourceClass);
+        return (Codec<Object>) codec;
     }
 
     /**
      * Returns target attribute name.
      * <p>
-     * Override this method if the BSON element name is different with target attribute name.
+     * Override this method if the BSON element name is different with target attribute name and it is not declared
+     * by {@link com.mongodb.app.annotation.ElementName}.
+     * <p>
+     * Note: this method is called once per known alias to build the element name table, not per element. The known
+     * aliases are the "_id" element name, the property names and the {@link com.mongodb.app.annotation.ElementName}
+     * names, any other element name is not passed to this method.
      *
      * @param bsonElementName BSON element name
      * @return target attribute name
      */
     protected String getAttributeName(final String bsonElementName) {
-        return bsonElementName;
+        return attributeNames.getOrDefault(bsonElementName, bsonElementName);
     }
 
     /**
-     * Returns the element value.
+     * Reads the element value of a property slot by the property accessors, e.g. by a generated codec for a property
+     * which it does not decode itself.
      *
-     * @param elementType    element type
+     * @param slot           property slot
      * @param reader         reader
      * @param decoderContext context
      * @return element value
      */
-    private Object readElement(Class<?> elementType, final BsonReader reader, final DecoderContext decoderContext) {
-        return getCodec(elementType).decode(reader, decoderContext);
+    protected Object readElement(final int slot, final BsonReader reader, final DecoderContext decoderContext) {
+        final PropertyAccessor<T> accessor = collectionAccessors[slot];
+        switch (accessor.getKind()) {
+            case INT_ARRAY:
+                return readIntArray(reader);
+            case LONG_ARRAY:
+                return readLongArray(reader);
+            case DOUBLE_ARRAY:
+                return readDoubleArray(reader);
+            case ARRAY:
+                return readArray(slot, accessor.getElementType(), reader, decoderContext);
+            case COLLECTION:
+                return readCollection(slot, (Class<Collection>) accessor.getType(), reader, decoderContext);
+            default:
+                return getSlotCodec(slot).decode(reader, decoderContext);
+        }
+    }
+
+    /**
+     * Reads a numeric value as an int.
+     *
+     * @param reader reader
+     * @return int value
+     * @throws BsonInvalidOperationException if the current value is not numeric, or not exactly an int
+     */
+    protected static int readInt(final BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                final long longValue = reader.readInt64();
+                if ((int) longValue != longValue) {
+                    throw new BsonInvalidOperationException(longValue + " is not an int value!");
+                }
+                return (int) longValue;
+            case DOUBLE:
+                final double doubleValue = reader.readDouble();
+                if ((int) doubleValue != doubleValue) {
+                    throw new BsonInvalidOperationException(doubleValue + " is not an int value!");
+                }
+                return (int) doubleValue;
+            default:
+                throw new BsonInvalidOperationException(reader.getCurrentBsonType() + " is not a numeric value!");
+        }
+    }
+
+    /**
+     * Reads a numeric value as a long.
+     *
+     * @param reader reader
+     * @return long value
+     * @throws BsonInvalidOperationException if the current value is not numeric, or not exactly a long
+     */
+    protected static long readLong(final BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return reader.readInt64();
+            case DOUBLE:
+                final double value = reader.readDouble();
+                if (value < -0x1p63 || value >= 0x1p63 || (long) value != value) {
+                    throw new BsonInvalidOperationException(value + " is not a long value!");
+                }
+                return (long) value;
+            default:
+                throw new BsonInvalidOperationException(reader.getCurrentBsonType() + " is not a numeric value!");
+        }
+    }
+
+    /**
+     * Reads a numeric value as a double.
+     *
+     * @param reader reader
+     * @return double value
+     * @throws BsonInvalidOperationException if the current value is not numeric
+     */
+    protected static double readDouble(final BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case DOUBLE:
+                return reader.readDouble();
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return reader.readInt64();
+            default:
+                throw new BsonInvalidOperationException(reader.getCurrentBsonType() + " is not a numeric value!");
+        }
+    }
+
+    /**
+     * Reads an array of primitive int into a growable buffer, a singular value becomes an array of one element.
+     *
+     * @param reader reader
+     * @return array of primitive int
+     */
+    protected static int[] readIntArray(final BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            return new int[]{readInt(reader)};
+        }
+        int[] values = new int[INITIAL_ARRAY_CAPACITY];
+        int size = 0;
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = readInt(reader);
+        }
+        reader.readEndArray();
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Reads an array of primitive long into a growable buffer, a singular value becomes an array of one element.
+     *
+     * @param reader reader
+     * @return array of primitive long
+     */
+    protected static long[] readLongArray(final BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            return new long[]{readLong(reader)};
+        }
+        long[] values = new long[INITIAL_ARRAY_CAPACITY];
+        int size = 0;
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = readLong(reader);
+        }
+        reader.readEndArray();
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Reads an array of primitive double into a growable buffer, a singular value becomes an array of one element.
+     *
+     * @param reader reader
+     * @return array of primitive double
+     */
+    protected static double[] readDoubleArray(final BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            return new double[]{readDouble(reader)};
+        }
+        double[] values = new double[INITIAL_ARRAY_CAPACITY];
+        int size = 0;
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = readDouble(reader);
+        }
+        reader.readEndArray();
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Reads the current value if it is NULL.
+     *
+     * @param reader reader
+     * @return true if the current value is NULL and it has been read
+     */
+    protected static boolean readNull(final BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.NULL) {
+            return false;
+        }
+        reader.readNull();
+        return true;
     }
 
     /**
-     * Reads the element value.
+     * Reads an array element into a collection, e.g. by a generated codec, a singular value becomes a collection of one
+     * element.
      *
-     * @param descriptor     property descriptor
+     * @param elements       empty collection
+     * @param codec          codec of the elements
      * @param reader         reader
      * @param decoderContext context
-     * @return element value
+     * @param <E>            element class
+     * @param <S>            collection class
+     * @return collection of element
      */
-    private Object readElement(final PropertyDescriptor descriptor, final BsonReader reader, final DecoderContext decoderContext) {
-        final Class<?> propertyType = descriptor.getPropertyType();
-        if (propertyType.isArray()) {
-            return readArray(propertyType.getComponentType(), reader, decoderContext);
-        } else if (Collection.class.isAssignableFrom(propertyType)) {
-            final Class<?> propertyElementType = (Class<?>) ((ParameterizedType) descriptor.getWriteMethod().
-                    getGenericParameterTypes()[0]).getActualTypeArguments()[0];
-            return readCollection((Class<Collection>) propertyType, propertyElementType, reader,
-                    decoderContext);
+    protected static <E, S extends Collection<E>> S readCollection(final S elements, final Codec<E> codec, final BsonReader reader, final DecoderContext decoderContext) {
+        if (reader.getCurrentBsonType() == BsonType.ARRAY) {
+            reader.readStartArray();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                elements.add(codec.decode(reader, decoderContext));
+            }
+            reader.readEndArray();
+        } else {
+            elements.add(codec.decode(reader, decoderContext));
         }
-        return readElement(propertyType, reader, decoderContext);
+        return elements;
     }
 
     /**
      * Returns a collection of element.
      *
+     * @param slot           property slot
      * @param collectionType collection type
-     * @param elementType    element type
      * @param reader         reader
      * @param decoderContext context
      * @param <E>            element class
@@ -142,7 +518,7 @@ public abstract class AbstractCodec<T> implements Codec<T> {
      * @return collection of element
      * @throws CodecConfigurationException if the collectionType is not been supported
      */
-    private <E, S extends Collection<E>> S readCollection(final Class<S> collectionType, final Class<E> elementType, final BsonReader reader, final DecoderContext decoderContext) {
+    private <E, S extends Collection<E>> S readCollection(final int slot, final Class<S> collectionType, final BsonReader reader, final DecoderContext decoderContext) {
         final Collection<E> elements;
         if (List.class.isAssignableFrom(collectionType)) {
             elements = new ArrayList<E>();
@@ -154,11 +530,11 @@ public abstract class AbstractCodec<T> implements Codec<T> {
         if (reader.getCurrentBsonType() == BsonType.ARRAY) {
             reader.readStartArray();
             while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
-                elements.add((E) readElement(elementType, reader, decoderContext));
+                elements.add((E) getSlotCodec(slot).decode(reader, decoderContext));
             }
             reader.readEndArray();
         } else {
-            elements.add((E) readElement(elementType, reader, decoderContext));
+            elements.add((E) getSlotCodec(slot).decode(reader, decoderContext));
         }
         return (S) elements;
     }
@@ -166,17 +542,147 @@ public abstract class AbstractCodec<T> implements Codec<T> {
     /**
      * Reads an array of element.
      *
+     * @param slot           property slot
      * @param elementType    element type
      * @param reader         reader
      * @param decoderContext context
      * @param <E>            element class
      * @return array of elements
      */
-    private <E> E[] readArray(final Class<E> elementType, final BsonReader reader, final DecoderContext decoderContext) {
-        Collection<E> elements = readCollection(List.class, elementType, reader, decoderContext);
+    private <E> E[] readArray(final int slot, final Class<E> elementType, final BsonReader reader, final DecoderContext decoderContext) {
+        Collection<E> elements = readCollection(slot, List.class, reader, decoderContext);
         return elements.toArray((E[]) Array.newInstance(elementType, elements.size()));
     }
 
+    /**
+     * Reads an element value of a property slot into the current property value where possible.
+     * <p>
+     * A list or a set which is allocated by this codec is cleared and refilled, the elements of a list are decoded into
+     * the current elements by index, and a nested document is decoded into the current nested object, if its codec is an
+     * abstract codec too. Any other element is read as a new value.
+     *
+     * @param slot           property slot
+     * @param currentValue   current property value, may be NULL
+     * @param reader         reader
+     * @param decoderContext context
+     * @return element value
+     */
+    private Object readElementInto(final int slot, final Object currentValue, final BsonReader reader, final DecoderContext decoderContext) {
+        if (currentValue == null) {
+            return readElement(slot, reader, decoderContext);
+        }
+        final PropertyAccessor<T> accessor = collectionAccessors[slot];
+        switch (accessor.getKind()) {
+            case COLLECTION:
+                if (currentValue.getClass() == ArrayList.class) {
+                    return readListInto(slot, (List<Object>) currentValue, reader, decoderContext);
+                }
+                if (currentValue.getClass() == HashSet.class) {
+                    final Set<Object> elements = (Set<Object>) currentValue;
+                    elements.clear();
+                    if (reader.getCurrentBsonType() == BsonType.ARRAY) {
+                        reader.readStartArray();
+                        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                            elements.add(getSlotCodec(slot).decode(reader, decoderContext));
+                        }
+                        reader.readEndArray();
+                    } else {
+                        elements.add(getSlotCodec(slot).decode(reader, decoderContext));
+                    }
+                    return elements;
+                }
+                return readElement(slot, reader, decoderContext);
+            case OBJECT:
+                return readValueInto(slot, currentValue, reader, decoderContext);
+            default:
+                return readElement(slot, reader, decoderContext);
+        }
+    }
+
+    /**
+     * Reads an array element into the current list, the list is refilled by index and its surplus elements are removed.
+     *
+     * @param slot           property slot
+     * @param elements       current list
+     * @param reader         reader
+     * @param decoderContext context
+     * @return current list
+     */
+    private List<Object> readListInto(final int slot, final List<Object> elements, final BsonReader reader, final DecoderContext decoderContext) {
+        int index = 0;
+        if (reader.getCurrentBsonType() == BsonType.ARRAY) {
+            reader.readStartArray();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                if (index < elements.size()) {
+                    elements.set(index, readValueInto(slot, elements.get(index), reader, decoderContext));
+                } else {
+                    elements.add(getSlotCodec(slot).decode(reader, decoderContext));
+                }
+                index++;
+            }
+            reader.readEndArray();
+        } else {
+            if (elements.isEmpty()) {
+                elements.add(getSlotCodec(slot).decode(reader, decoderContext));
+            } else {
+                elements.set(0, readValueInto(slot, elements.get(0), reader, decoderContext));
+            }
+            index = 1;
+        }
+        if (index < elements.size()) {
+            elements.subList(index, elements.size()).clear();
+        }
+        return elements;
+    }
+
+    /**
+     * Reads a single value of a property slot into the current value, if the slot codec is an abstract codec of the
+     * current value class and the value is a document, otherwise the value is read as a new value.
+     *
+     * @param slot           property slot
+     * @param currentValue   current value, may be NULL
+     * @param reader         reader
+     * @param decoderContext context
+     * @return value
+     */
+    private Object readValueInto(final int slot, final Object currentValue, final BsonReader reader, final DecoderContext decoderContext) {
+        final Codec<Object> codec = getSlotCodec(slot);
+        if (currentValue != null && codec instanceof AbstractCodec && codec.getEncoderClass() == currentValue.getClass()
+                && reader.getCurrentBsonType() == BsonType.DOCUMENT) {
+            return ((AbstractCodec<Object>) codec).decodeInto(currentValue, reader, decoderContext);
+        }
+        return codec.decode(reader, decoderContext);
+    }
+
+    /**
+     * Resets a property which is not in the decoded document, to the value of a newly decoded collection object.
+     *
+     * @param target target
+     * @param slot   property slot
+     */
+    private void resetProperty(final T target, final int slot) {
+        final PropertyAccessor<T> accessor = collectionAccessors[slot];
+        try {
+            switch (accessor.getKind()) {
+                case INT:
+                    accessor.setInt(target, 0);
+                    break;
+                case LONG:
+                    accessor.setLong(target, 0);
+                    break;
+                case DOUBLE:
+                    accessor.setDouble(target, 0);
+                    break;
+                default:
+                    if (accessor.get(target) != null) {
+                        accessor.set(target, null);
+                    }
+            }
+        } catch (Exception exception) {
+            LOGGER.debug("Failed to reset the target property [" + accessor.getName() + "]!", exception);
+        }
+    }
+
     /**
      * Reads the document properties.
      *
@@ -185,26 +691,105 @@ public abstract class AbstractCodec<T> implements Codec<T> {
      * @param decoderContext context
      */
     protected void readDocument(final T target, final BsonReader reader, final DecoderContext decoderContext) {
+        readDocument(target, reader, decoderContext, false);
+    }
+
+    /**
+     * Reads the document properties.
+     * <p>
+     * With recycling, every element is read into the current property value where possible, and every property which
+     * is not in the document is reset.
+     *
+     * @param target         document POJO
+     * @param reader         reader
+     * @param decoderContext context
+     * @param recycle        true if the current property values are recycled
+     */
+    private void readDocument(final T target, final BsonReader reader, final DecoderContext decoderContext, final boolean recycle) {
         if (target == null) {
             return;
         }
+        final ElementNameTable nameTable = getElementNameTable();
+        final int slotCount = collectionAccessors.length;
+        long readMask = 0;
+        final boolean[] readSlots = recycle && slotCount > Long.SIZE ? new boolean[slotCount] : null;
         reader.readStartDocument();
         while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
-            final String elementName = reader.readName();
-            final String attributeName = getAttributeName(elementName);
-            final PropertyDescriptor descriptor = collectionDescriptors.get(attributeName);
-            if (descriptor == null) {
+            final int slot = nameTable.get(reader.readName());
+            if (slot < 0) {
                 reader.skipValue();
                 continue;
             }
-            final Object propertyValue = readElement(descriptor, reader, decoderContext);
+            final PropertyAccessor<T> accessor = collectionAccessors[slot];
+            if (accessor.getType().isPrimitive() && reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                continue;
+            }
+            if (readSlots != null) {
+                readSlots[slot] = true;
+            } else {
+                readMask |= 1L << slot;
+            }
+            final PropertyKind kind = accessor.getKind();
+            long longValue = 0;
+            double doubleValue = 0;
+            Object propertyValue = null;
+            switch (kind) {
+                case INT:
+                    longValue = readInt(reader);
+                    break;
+                case LONG:
+                    longValue = readLong(reader);
+                    break;
+                case DOUBLE:
+                    doubleValue = readDouble(reader);
+                    break;
+                default:
+                    propertyValue = recycle ? readElementInto(slot, getCurrentValue(target, accessor), reader, decoderContext)
+                            : readElement(slot, reader, decoderContext);
+            }
             try {
-                descriptor.getWriteMethod().invoke(target, propertyValue);
-            } catch (ReflectiveOperationException exception) {
-                LOGGER.warn("Failed to write to the target property [" + attributeName + "]!", exception);
+                switch (kind) {
+                    case INT:
+                        accessor.setInt(target, (int) longValue);
+                        break;
+                    case LONG:
+                        accessor.setLong(target, longValue);
+                        break;
+                    case DOUBLE:
+                        accessor.setDouble(target, doubleValue);
+                        break;
+                    default:
+                        accessor.set(target, propertyValue);
+                }
+            } catch (Exception exception) {
+                LOGGER.warn("Failed to write to the target property [" + accessor.getName() + "]!", exception);
             }
         }
         reader.readEndDocument();
+        if (recycle) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (readSlots != null ? !readSlots[slot] : (readMask & (1L << slot)) == 0) {
+                    resetProperty(target, slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the current property value of the target, or NULL if it is not readable.
+     *
+     * @param target   target
+     * @param accessor property accessor
+     * @param <T>      collection class
+     * @return current property value
+     */
+    private static <T> Object getCurrentValue(final T target, final PropertyAccessor<T> accessor) {
+        try {
+            return accessor.get(target);
+        } catch (Exception exception) {
+            return null;
+        }
     }
 
     /**
@@ -228,16 +813,295 @@ public abstract class AbstractCodec<T> implements Codec<T> {
         return target;
     }
 
+    /**
+     * Decode a document into an existing collection object, e.g. to recycle one object across a scan.
+     * <p>
+     * Each property is overwritten by its element, or reset if the document has no such element, so the result equals
+     * a newly decoded collection object. Lists and sets which are allocated by this codec are refilled rather than
+     * reallocated, and nested documents are decoded into the current nested objects.
+     *
+     * @param target         collection object, a new one is decoded if it is NULL
+     * @param reader         reader
+     * @param decoderContext context
+     * @return collection object
+     * @throws CodecConfigurationException if failed to decode
+     */
+    public T decodeInto(final T target, final BsonReader reader, final DecoderContext decoderContext) {
+        if (target == null) {
+            return decode(reader, decoderContext);
+        }
+        readDocument(target, reader, decoderContext, true);
+        return target;
+    }
+
+    /**
+     * Returns a codec which decodes every document into the same collection object.
+     * <p>
+     * The first document is decoded into a new collection object, which is returned again for every later document.
+     * The recycling codec is not thread-safe, and the caller must be done with a document before decoding the next
+     * one.
+     *
+     * @return recycling codec
+     */
+    public Codec<T> recycling() {
+        return new RecyclingCodec<>(this);
+    }
+
+    /**
+     * Decode a collection object lazily from a raw BSON document.
+     * <p>
+     * If the codec creates a lazy collection object by {@link #createLazy(LazyLoader)}, its properties are decoded on
+     * first access, otherwise the whole document is decoded now.
+     *
+     * @param document raw BSON document
+     * @return collection object
+     * @throws CodecConfigurationException if failed to decode
+     */
+    public T decodeLazy(final RawBsonDocument document) {
+        final T target = createLazy(new LazyLoader<>(this, document, collectionAccessors.length));
+        if (target != null) {
+            return target;
+        }
+        try (BsonBinaryReader reader = new BsonBinaryReader(document.getByteBuffer().asNIO())) {
+            return decode(reader, DECODER_CONTEXT);
+        }
+    }
+
+    /**
+     * Returns a lazy collection object backed by the lazy loader.
+     * <p>
+     * Override this method to support lazy decoding, e.g. by a generated codec, the property slots of the lazy loader
+     * are the indexes of the property accessors.
+     *
+     * @param loader lazy loader
+     * @return lazy collection object, or NULL if lazy decoding is not supported
+     */
+    protected T createLazy(final LazyLoader<T> loader) {
+        return null;
+    }
+
+    /**
+     * Reads the property value of a slot from the raw BSON document.
+     *
+     * @param document raw BSON document
+     * @param slot     property slot
+     * @return property value, a primitive value is boxed, or NULL if the raw BSON document has no such element
+     */
+    Object readProperty(final RawBsonDocument document, final int slot) {
+        final ElementNameTable nameTable = getElementNameTable();
+        try (BsonBinaryReader reader = new BsonBinaryReader(document.getByteBuffer().asNIO())) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                if (nameTable.get(reader.readName()) != slot) {
+                    reader.skipValue();
+                    continue;
+                }
+                if (reader.getCurrentBsonType() == BsonType.NULL) {
+                    reader.readNull();
+                    return null;
+                }
+                switch (collectionAccessors[slot].getKind()) {
+                    case INT:
+                        return readInt(reader);
+                    case LONG:
+                        return readLong(reader);
+                    case DOUBLE:
+                        return readDouble(reader);
+                    default:
+                        return readElement(slot, reader, DECODER_CONTEXT);
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns BSON element name.
      * <p>
-     * Override this method if the BSON element name is different with target attribute name.
+     * Override this method if the BSON element name is different with target attribute name and it is not declared
+     * by {@link com.mongodb.app.annotation.ElementName}.
+     * <p>
+     * Note: this method is called once per property to build the element name table, not per element.
      *
      * @param attributeName attribute name
      * @return BSON element name
      */
     protected String getBSONElementName(final String attributeName) {
-        return attributeName;
+        final PropertyAccessor<T> accessor = collectionProperties.get(attributeName);
+        return accessor == null ? attributeName : accessor.getElementName();
+    }
+
+    /**
+     * Returns the BSON element path of a property path, e.g. for a projection or a query filter.
+     * <p>
+     * A dotted property path is mapped segment by segment, each nested segment through the codec of its property type
+     * if that codec is an abstract codec too. An unknown segment is kept as is.
+     *
+     * @param propertyPath property path, e.g. "address.street"
+     * @return BSON element path
+     */
+    public String getElementPath(final String propertyPath) {
+        final int separator = propertyPath.indexOf('.');
+        final String attributeName = separator < 0 ? propertyPath : propertyPath.substring(0, separator);
+        final String elementName = getBSONElementName(attributeName);
+        if (separator < 0) {
+            return elementName;
+        }
+        final String nestedPath = propertyPath.substring(separator + 1);
+        final PropertyAccessor<T> accessor = collectionProperties.get(attributeName);
+        if (accessor != null) {
+            try {
+                final Codec<?> codec = getCodec(accessor.getValueType());
+                if (codec instanceof AbstractCodec) {
+                    return elementName + "." + ((AbstractCodec<?>) codec).getElementPath(nestedPath);
+                }
+            } catch (CodecConfigurationException exception) {
+                LOGGER.debug("No codec of the property [" + attributeName + "], the nested path is kept as is.",
+                        exception);
+            }
+        }
+        return elementName + "." + nestedPath;
+    }
+
+    /**
+     * Returns the value of a property path of a collection object by the property accessors, without encoding the
+     * collection object, e.g. for a query filter.
+     * <p>
+     * A dotted property path is read segment by segment, each nested segment through the codec of its property type,
+     * which must be an abstract codec too.
+     *
+     * @param target       collection object
+     * @param propertyPath property path, e.g. "address.zipcode"
+     * @return property value, or NULL if a segment is NULL
+     * @throws CodecConfigurationException if a segment is not a property
+     */
+    @SuppressWarnings("unchecked")
+    public Object getPropertyValue(final T target, final String propertyPath) {
+        final int separator = propertyPath.indexOf('.');
+        final String attributeName = separator < 0 ? propertyPath : propertyPath.substring(0, separator);
+        final PropertyAccessor<T> accessor = collectionProperties.get(attributeName);
+        if (accessor == null) {
+            throw new CodecConfigurationException("The property [" + attributeName + "] of the collection class ["
+                    + collectionClass + "] is not found!");
+        }
+        final Object value = accessor.get(target);
+        if (separator < 0 || value == null) {
+            return value;
+        }
+        final Codec<?> codec = getCodec(accessor.getValueType());
+        if (!(codec instanceof AbstractCodec)) {
+            throw new CodecConfigurationException("The property [" + attributeName + "] of the collection class ["
+                    + collectionClass + "] has no nested properties!");
+        }
+        return ((AbstractCodec<Object>) codec).getPropertyValue(value, propertyPath.substring(separator + 1));
+    }
+
+    /**
+     * Returns the partial update from a snapshot to the current encoding of a collection object.
+     * <p>
+     * The elements of the properties are compared one by one by their BSON element names: a changed or a new element is
+     * set, and a missing element is unset. The "_id" element, and any element which is not a property, are ignored.
+     *
+     * @param snapshot snapshot, the encoding of the collection object when it was loaded
+     * @param current  current encoding of the collection object
+     * @return update document with "$set" and "$unset" operators, or an empty document if nothing is changed
+     */
+    public BsonDocument getUpdate(final BsonDocument snapshot, final BsonDocument current) {
+        final ElementNameTable nameTable = getElementNameTable();
+        final BsonDocument setElements = new BsonDocument();
+        final BsonDocument unsetElements = new BsonDocument();
+        for (int slot : nameTable.getWriteOrder()) {
+            final String elementName = nameTable.getElementName(slot);
+            if (ID_ELEMENT_NAME.equals(elementName)) {
+                continue;
+            }
+            final BsonValue currentValue = current.get(elementName);
+            if (currentValue == null) {
+                if (snapshot.containsKey(elementName)) {
+                    unsetElements.put(elementName, new BsonString(""));
+                }
+            } else if (!currentValue.equals(snapshot.get(elementName))) {
+                setElements.put(elementName, currentValue);
+            }
+        }
+        final BsonDocument update = new BsonDocument();
+        if (!setElements.isEmpty()) {
+            update.put("$set", setElements);
+        }
+        if (!unsetElements.isEmpty()) {
+            update.put("$unset", unsetElements);
+        }
+        return update;
+    }
+
+    /**
+     * Writes the element value of a property slot.
+     * <p>
+     * A value of the declared type is written by the slot codec, any other value goes through the generic path. A
+     * generated codec writes a property which it does not encode itself by this method.
+     *
+     * @param writer         writer
+     * @param slot           property slot
+     * @param elementValue   element value
+     * @param encoderContext context
+     */
+    protected void writeElement(final BsonWriter writer, final int slot, final Object elementValue, final EncoderContext encoderContext) {
+        final PropertyAccessor<T> accessor = collectionAccessors[slot];
+        if (accessor.getElementType() == null) {
+            writeValue(writer, slot, elementValue, encoderContext);
+        } else if (elementValue instanceof Object[]) {
+            writer.writeStartArray();
+            for (Object element : (Object[]) elementValue) {
+                writeValue(writer, slot, element, encoderContext.getChildContext());
+            }
+            writer.writeEndArray();
+        } else if (elementValue instanceof Collection) {
+            writer.writeStartArray();
+            for (Object element : (Collection<?>) elementValue) {
+                writeValue(writer, slot, element, encoderContext.getChildContext());
+            }
+            writer.writeEndArray();
+        } else {
+            writeElement(writer, elementValue, encoderContext);
+        }
+    }
+
+    /**
+     * Writes a single value of a property slot.
+     *
+     * @param writer         writer
+     * @param slot           property slot
+     * @param value          value
+     * @param encoderContext context
+     */
+    private void writeValue(final BsonWriter writer, final int slot, final Object value, final EncoderContext encoderContext) {
+        if (value == null) {
+            writer.writeNull();
+        } else if (value.getClass() == collectionAccessors[slot].getValueType()) {
+            encoderContext.encodeWithChildContext(getSlotCodec(slot), writer, value);
+        } else {
+            writeElement(writer, value, encoderContext);
+        }
+    }
+
+    /**
+     * Writes a single value by the codec of its declared type, e.g. by a generated codec, a value of a subclass goes
+     * through the generic path.
+     *
+     * @param writer         writer
+     * @param codec          codec of the declared type
+     * @param value          value, may be NULL
+     * @param encoderContext context
+     * @param <S>            declared class
+     */
+    protected <S> void writeValue(final BsonWriter writer, final Codec<S> codec, final S value, final EncoderContext encoderContext) {
+        if (value == null) {
+            writer.writeNull();
+        } else if (value.getClass() == codec.getEncoderClass()) {
+            encoderContext.encodeWithChildContext(codec, writer, value);
+        } else {
+            writeElement(writer, value, encoderContext);
+        }
     }
 
     /**
@@ -250,7 +1114,25 @@ public abstract class AbstractCodec<T> implements Codec<T> {
      */
     private <S> void writeElement(final BsonWriter writer, final S elementValue, final EncoderContext encoderContext) {
         Class<?> elementType = elementValue.getClass();
-        if (elementType.isArray()) {
+        if (elementType == double[].class) {
+            writer.writeStartArray();
+            for (double value : (double[]) elementValue) {
+                writer.writeDouble(value);
+            }
+            writer.writeEndArray();
+        } else if (elementType == int[].class) {
+            writer.writeStartArray();
+            for (int value : (int[]) elementValue) {
+                writer.writeInt32(value);
+            }
+            writer.writeEndArray();
+        } else if (elementType == long[].class) {
+            writer.writeStartArray();
+            for (long value : (long[]) elementValue) {
+                writer.writeInt64(value);
+            }
+            writer.writeEndArray();
+        } else if (elementType.isArray()) {
             writer.writeStartArray();
             int length = Array.getLength(elementValue);
             for (int index = 0; index < length; index++) {
@@ -269,7 +1151,7 @@ public abstract class AbstractCodec<T> implements Codec<T> {
     }
 
     /**
-     * Writes the document properties.
+     * Writes the document properties, the "_id" element first, see {@link PropertyOrder}.
      *
      * @param writer         writer
      * @param source         source
@@ -280,21 +1162,47 @@ public abstract class AbstractCodec<T> implements Codec<T> {
             return;
         }
         writer.writeStartDocument();
-        for (PropertyDescriptor descriptor : collectionDescriptors.values()) {
-            final String attributeName = descriptor.getName();
-            final Object elementValue;
+        final ElementNameTable nameTable = getElementNameTable();
+        for (int slot : nameTable.getWriteOrder()) {
+            final PropertyAccessor<T> accessor = collectionAccessors[slot];
+            final PropertyKind kind = accessor.getKind();
+            long longValue = 0;
+            double doubleValue = 0;
+            Object elementValue = null;
             try {
-                elementValue = descriptor.getReadMethod().invoke(source);
-            } catch (ReflectiveOperationException exception) {
-                LOGGER.error("Failed to read the target property [" + attributeName + "]!", exception);
+                switch (kind) {
+                    case INT:
+                        longValue = accessor.getInt(source);
+                        break;
+                    case LONG:
+                        longValue = accessor.getLong(source);
+                        break;
+                    case DOUBLE:
+                        doubleValue = accessor.getDouble(source);
+                        break;
+                    default:
+                        elementValue = accessor.get(source);
+                }
+            } catch (Exception exception) {
+                LOGGER.error("Failed to read the target property [" + accessor.getName() + "]!", exception);
                 continue;
             }
-            if (elementValue == null) {
-                continue;
+            switch (kind) {
+                case INT:
+                    writer.writeInt32(nameTable.getElementName(slot), (int) longValue);
+                    break;
+                case LONG:
+                    writer.writeInt64(nameTable.getElementName(slot), longValue);
+                    break;
+                case DOUBLE:
+                    writer.writeDouble(nameTable.getElementName(slot), doubleValue);
+                    break;
+                default:
+                    if (elementValue != null) {
+                        writer.writeName(nameTable.getElementName(slot));
+                        writeElement(writer, slot, elementValue, encoderContext);
+                    }
             }
-            final String elementName = getBSONElementName(attributeName);
-            writer.writeName(elementName);
-            writeElement(writer, elementValue, encoderContext);
         }
         writer.writeEndDocument();
     }
@@ -12,6 +12,8 @@ import org.bson.codecs.ObjectIdGenerator;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.types.ObjectId;
 
+import java.util.List;
+
 /**
  * Abstract collection codec.
  *
@@ -31,6 +33,21 @@ public abstract class AbstractCollectionCodec<T extends AbstractCollection> exte
         super(registry, collectionClass);
     }
 
+    /**
+     * Constructor.
+     * <p>
+     * Use this constructor if the property accessors are already known, e.g. by a generated codec, so the collection
+     * class is not introspected.
+     *
+     * @param registry        registry
+     * @param collectionClass collection class
+     * @param accessors       property accessors
+     */
+    protected AbstractCollectionCodec(CodecRegistry registry, Class<T> collectionClass,
+                                      List<PropertyAccessor<T>> accessors) {
+        super(registry, collectionClass, accessors);
+    }
+
     /**
      * Returns target attribute name.
      * <p>
@@ -0,0 +1,140 @@
+package com.mongodb.app.codec;
+
+import java.util.Map;
+
+/**
+ * Element name table.
+ * <p>
+ * Maps a BSON element name to a property slot, and a property slot to its BSON element name. The table size is grown
+ * until every name hashes to its own bucket, so a lookup is a single probe which compares the hash code before the
+ * name. If no perfect size is found below the size limit, the table falls back to linear probing.
+ * <p>
+ * It also keeps the write order of the property slots, so the encoded element order is stable.
+ *
+ * @author nico.arianto
+ */
+final class ElementNameTable {
+    private static final int MAX_SIZE = 1 << 16;
+    private static final int NOT_FOUND = -1;
+    private final String[] names;
+    private final int[] hashes;
+    private final int[] slots;
+    private final String[] elementNames;
+    private final int[] writeOrder;
+    private final int mask;
+    private final boolean perfect;
+
+    /**
+     * Constructor.
+     *
+     * @param entries      element name to property slot entries
+     * @param elementNames BSON element name of each property slot
+     * @param writeOrder   property slots in write order
+     */
+    ElementNameTable(Map<String, Integer> entries, String[] elementNames, int[] writeOrder) {
+        this.elementNames = elementNames;
+        this.writeOrder = writeOrder;
+        int size = Integer.highestOneBit(Math.max(entries.size(), 1) * 2 - 1) << 1;
+        while (size < MAX_SIZE && !isPerfect(entries, size)) {
+            size <<= 1;
+        }
+        this.perfect = isPerfect(entries, size);
+        if (!perfect) {
+            size = Integer.highestOneBit(Math.max(entries.size(), 1) * 2 - 1) << 1;
+        }
+        this.names = new String[size];
+        this.hashes = new int[size];
+        this.slots = new int[size];
+        this.mask = size - 1;
+        for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+            final int hash = hash(entry.getKey());
+            int index = hash & mask;
+            while (names[index] != null) {
+                index = (index + 1) & mask;
+            }
+            names[index] = entry.getKey();
+            hashes[index] = hash;
+            slots[index] = entry.getValue();
+        }
+    }
+
+    /**
+     * Returns true if every element name hashes to its own bucket in a table of the size.
+     *
+     * @param entries element name to property slot entries
+     * @param size    table size, a power of two
+     * @return true if there is no collision
+     */
+    private static boolean isPerfect(final Map<String, Integer> entries, final int size) {
+        final boolean[] used = new boolean[size];
+        for (String name : entries.keySet()) {
+            final int index = hash(name) & (size - 1);
+            if (used[index]) {
+                return false;
+            }
+            used[index] = true;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the spread hash code of the element name.
+     *
+     * @param name element name
+     * @return hash code
+     */
+    private static int hash(final String name) {
+        final int hash = name.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns the property slot of the element name.
+     *
+     * @param name element name
+     * @return property slot, or -1 if the element name is unknown
+     */
+    int get(final String name) {
+        final int hash = hash(name);
+        int index = hash & mask;
+        String key;
+        while ((key = names[index]) != null) {
+            if (hashes[index] == hash && key.equals(name)) {
+                return slots[index];
+            }
+            if (perfect) {
+                break;
+            }
+            index = (index + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Returns the BSON element name of the property slot.
+     *
+     * @param slot property slot
+     * @return BSON element name
+     */
+    String getElementName(final int slot) {
+        return elementNames[slot];
+    }
+
+    /**
+     * Returns the property slots in write order.
+     *
+     * @return property slots
+     */
+    int[] getWriteOrder() {
+        return writeOrder;
+    }
+
+    /**
+     * Returns true if every element name has its own bucket.
+     *
+     * @return true if the table is a perfect hash table
+     */
+    boolean isPerfect() {
+        return perfect;
+    }
+}
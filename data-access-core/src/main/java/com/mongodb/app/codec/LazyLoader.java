@@ -0,0 +1,71 @@
+package com.mongodb.app.codec;
+
+import org.bson.RawBsonDocument;
+
+/**
+ * Lazy loader.
+ * <p>
+ * Backs a lazy collection object with its raw BSON document. Each property is decoded from the raw bytes on its first
+ * access, then the lazy collection object keeps the decoded value. A property which is set before its first access is
+ * never decoded. Like the collection object itself, a lazy loader is not thread-safe.
+ *
+ * @param <T> collection class
+ * @author nico.arianto
+ */
+public final class LazyLoader<T> {
+    private final AbstractCodec<T> codec;
+    private final RawBsonDocument document;
+    private final boolean[] loaded;
+
+    /**
+     * Constructor.
+     *
+     * @param codec     codec of the collection class
+     * @param document  raw BSON document
+     * @param slotCount number of property slots
+     */
+    LazyLoader(AbstractCodec<T> codec, RawBsonDocument document, int slotCount) {
+        this.codec = codec;
+        this.document = document;
+        this.loaded = new boolean[slotCount];
+    }
+
+    /**
+     * Returns true if the property slot is already loaded or set.
+     *
+     * @param slot property slot
+     * @return true if the property slot is loaded
+     */
+    public boolean isLoaded(final int slot) {
+        return loaded[slot];
+    }
+
+    /**
+     * Decodes the property value of the slot from the raw BSON document, and marks the slot as loaded.
+     *
+     * @param slot property slot
+     * @return property value, a primitive value is boxed, or NULL if the raw BSON document has no such element
+     */
+    public Object load(final int slot) {
+        loaded[slot] = true;
+        return codec.readProperty(document, slot);
+    }
+
+    /**
+     * Marks the property slot as loaded, so it is not decoded anymore.
+     *
+     * @param slot property slot
+     */
+    public void markLoaded(final int slot) {
+        loaded[slot] = true;
+    }
+
+    /**
+     * Returns the raw BSON document.
+     *
+     * @return raw BSON document
+     */
+    public RawBsonDocument getDocument() {
+        return document;
+    }
+}
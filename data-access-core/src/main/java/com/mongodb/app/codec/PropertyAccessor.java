@@ -0,0 +1,499 @@
+package com.mongodb.app.codec;
+
+import com.mongodb.app.annotation.ElementName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Property accessor.
+ * <p>
+ * Compiled getter and setter of a single collection property, built once per collection class so the codec does not
+ * go through {@link Method#invoke(Object, Object...)} for every property of every document. A primitive int, long or
+ * double property has a primitive getter and setter too, so the codec reads and writes it without boxing.
+ *
+ * @param <T> collection class
+ * @author nico.arianto
+ */
+public final class PropertyAccessor<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PropertyAccessor.class);
+    private final String name;
+    private final String elementName;
+    private final Class<?> type;
+    private final Class<?> elementType;
+    private final Class<?> valueType;
+    private final PropertyKind kind;
+    private final Function<T, Object> getter;
+    private final BiConsumer<T, Object> setter;
+    private final Object primitiveGetter;
+    private final Object primitiveSetter;
+
+    /**
+     * Constructor.
+     *
+     * @param name        property name
+     * @param elementName BSON element name
+     * @param type        property type
+     * @param elementType element type if the property type is an array or a collection, otherwise NULL
+     * @param getter      getter
+     * @param setter      setter
+     */
+    public PropertyAccessor(String name, String elementName, Class<?> type, Class<?> elementType,
+                            Function<T, Object> getter, BiConsumer<T, Object> setter) {
+        this(name, elementName, type, elementType, getter, setter, unboxGetter(type, getter),
+                boxSetter(type, setter));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param name            property name
+     * @param elementName     BSON element name
+     * @param type            property type
+     * @param elementType     element type if the property type is an array or a collection, otherwise NULL
+     * @param getter          getter
+     * @param setter          setter
+     * @param primitiveGetter primitive getter of a primitive int, long or double property, otherwise NULL
+     * @param primitiveSetter primitive setter of a primitive int, long or double property, otherwise NULL
+     */
+    private PropertyAccessor(String name, String elementName, Class<?> type, Class<?> elementType,
+                             Function<T, Object> getter, BiConsumer<T, Object> setter, Object primitiveGetter,
+                             Object primitiveSetter) {
+        this.name = name;
+        this.elementName = elementName;
+        this.type = type;
+        this.elementType = elementType;
+        this.valueType = MethodType.methodType(elementType == null ? type : elementType).wrap().returnType();
+        this.kind = PropertyKind.of(type);
+        this.getter = getter;
+        this.setter = setter;
+        this.primitiveGetter = primitiveGetter;
+        this.primitiveSetter = primitiveSetter;
+    }
+
+    /**
+     * Returns a property accessor of a primitive int property.
+     *
+     * @param name        property name
+     * @param elementName BSON element name
+     * @param getter      getter
+     * @param setter      setter
+     * @param <T>         collection class
+     * @return property accessor
+     */
+    public static <T> PropertyAccessor<T> ofInt(final String name, final String elementName,
+                                                final ToIntFunction<T> getter, final ObjIntConsumer<T> setter) {
+        return new PropertyAccessor<>(name, elementName, int.class, null, getter::applyAsInt,
+                (target, value) -> setter.accept(target, (Integer) value), getter, setter);
+    }
+
+    /**
+     * Returns a property accessor of a primitive long property.
+     *
+     * @param name        property name
+     * @param elementName BSON element name
+     * @param getter      getter
+     * @param setter      setter
+     * @param <T>         collection class
+     * @return property accessor
+     */
+    public static <T> PropertyAccessor<T> ofLong(final String name, final String elementName,
+                                                 final ToLongFunction<T> getter, final ObjLongConsumer<T> setter) {
+        return new PropertyAccessor<>(name, elementName, long.class, null, getter::applyAsLong,
+                (target, value) -> setter.accept(target, (Long) value), getter, setter);
+    }
+
+    /**
+     * Returns a property accessor of a primitive double property.
+     *
+     * @param name        property name
+     * @param elementName BSON element name
+     * @param getter      getter
+     * @param setter      setter
+     * @param <T>         collection class
+     * @return property accessor
+     */
+    public static <T> PropertyAccessor<T> ofDouble(final String name, final String elementName,
+                                                   final ToDoubleFunction<T> getter,
+                                                   final ObjDoubleConsumer<T> setter) {
+        return new PropertyAccessor<>(name, elementName, double.class, null, getter::applyAsDouble,
+                (target, value) -> setter.accept(target, (Double) value), getter, setter);
+    }
+
+    /**
+     * Returns a primitive getter which unboxes the value of the getter.
+     *
+     * @param type   property type
+     * @param getter getter
+     * @param <T>    collection class
+     * @return primitive getter, or NULL if the property type is not a primitive int, long or double
+     */
+    private static <T> Object unboxGetter(final Class<?> type, final Function<T, Object> getter) {
+        if (type == int.class) {
+            return (ToIntFunction<T>) target -> (Integer) getter.apply(target);
+        } else if (type == long.class) {
+            return (ToLongFunction<T>) target -> (Long) getter.apply(target);
+        } else if (type == double.class) {
+            return (ToDoubleFunction<T>) target -> (Double) getter.apply(target);
+        }
+        return null;
+    }
+
+    /**
+     * Returns a primitive setter which boxes the value for the setter.
+     *
+     * @param type   property type
+     * @param setter setter
+     * @param <T>    collection class
+     * @return primitive setter, or NULL if the property type is not a primitive int, long or double
+     */
+    private static <T> Object boxSetter(final Class<?> type, final BiConsumer<T, Object> setter) {
+        if (type == int.class) {
+            return (ObjIntConsumer<T>) setter::accept;
+        } else if (type == long.class) {
+            return (ObjLongConsumer<T>) setter::accept;
+        } else if (type == double.class) {
+            return (ObjDoubleConsumer<T>) setter::accept;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a property accessor of the property descriptor.
+     *
+     * @param descriptor property descriptor
+     * @param <T>        collection class
+     * @return property accessor
+     */
+    static <T> PropertyAccessor<T> of(final PropertyDescriptor descriptor) {
+        final Method readMethod = descriptor.getReadMethod();
+        final Method writeMethod = descriptor.getWriteMethod();
+        final Class<?> type = descriptor.getPropertyType();
+        final Function<T, Object> getter = createGetter(readMethod);
+        final BiConsumer<T, Object> setter = createSetter(writeMethod);
+        final Object primitiveGetter;
+        final Object primitiveSetter;
+        if (type == int.class) {
+            primitiveGetter = compile(readMethod, ToIntFunction.class, "applyAsInt",
+                    MethodType.methodType(int.class, Object.class));
+            primitiveSetter = compile(writeMethod, ObjIntConsumer.class, "accept",
+                    MethodType.methodType(void.class, Object.class, int.class));
+        } else if (type == long.class) {
+            primitiveGetter = compile(readMethod, ToLongFunction.class, "applyAsLong",
+                    MethodType.methodType(long.class, Object.class));
+            primitiveSetter = compile(writeMethod, ObjLongConsumer.class, "accept",
+                    MethodType.methodType(void.class, Object.class, long.class));
+        } else if (type == double.class) {
+            primitiveGetter = compile(readMethod, ToDoubleFunction.class, "applyAsDouble",
+                    MethodType.methodType(double.class, Object.class));
+            primitiveSetter = compile(writeMethod, ObjDoubleConsumer.class, "accept",
+                    MethodType.methodType(void.class, Object.class, double.class));
+        } else {
+            primitiveGetter = null;
+            primitiveSetter = null;
+        }
+        return new PropertyAccessor<>(descriptor.getName(), getElementName(descriptor), type,
+                getElementType(type, writeMethod), getter, setter,
+                primitiveGetter == null ? unboxGetter(type, getter) : primitiveGetter,
+                primitiveSetter == null ? boxSetter(type, setter) : primitiveSetter);
+    }
+
+    /**
+     * Returns the BSON element name of the property.
+     * <p>
+     * It is taken from {@link ElementName} of the getter or of the field, otherwise it is the property name.
+     *
+     * @param descriptor property descriptor
+     * @return BSON element name
+     */
+    private static String getElementName(final PropertyDescriptor descriptor) {
+        final Method readMethod = descriptor.getReadMethod();
+        ElementName elementName = readMethod.getAnnotation(ElementName.class);
+        for (Class<?> declaringClass = readMethod.getDeclaringClass(); elementName == null && declaringClass != null;
+             declaringClass = declaringClass.getSuperclass()) {
+            try {
+                final Field field = declaringClass.getDeclaredField(descriptor.getName());
+                elementName = field.getAnnotation(ElementName.class);
+                break;
+            } catch (NoSuchFieldException exception) {
+                LOGGER.trace("No field [{}] in {}", descriptor.getName(), declaringClass);
+            }
+        }
+        return elementName == null ? descriptor.getName() : elementName.value();
+    }
+
+    /**
+     * Returns the element type of an array or a collection property.
+     *
+     * @param type        property type
+     * @param writeMethod write method
+     * @return element type, or NULL if the property type is neither an array nor a collection
+     */
+    private static Class<?> getElementType(final Class<?> type, final Method writeMethod) {
+        if (type.isArray()) {
+            return type.getComponentType();
+        } else if (Collection.class.isAssignableFrom(type)) {
+            final Type parameterType = writeMethod.getGenericParameterTypes()[0];
+            if (parameterType instanceof ParameterizedType) {
+                final Type argumentType = ((ParameterizedType) parameterType).getActualTypeArguments()[0];
+                if (argumentType instanceof Class) {
+                    return (Class<?>) argumentType;
+                }
+            }
+            return Object.class;
+        }
+        return null;
+    }
+
+    /**
+     * Creates a getter of the read method.
+     * <p>
+     * The getter is spun by {@link LambdaMetafactory}, so it runs as fast as a plain method call. If the method is
+     * not accessible from this class, it falls back to a reflective call.
+     *
+     * @param readMethod read method
+     * @param <T>        collection class
+     * @return getter
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Function<T, Object> createGetter(final Method readMethod) {
+        final Function<T, Object> getter = compile(readMethod, Function.class, "apply",
+                MethodType.methodType(Object.class, Object.class));
+        if (getter == null) {
+            return target -> {
+                try {
+                    return readMethod.invoke(target);
+                } catch (ReflectiveOperationException exception) {
+                    throw new IllegalStateException("Failed to invoke the read method [" + readMethod + "]!",
+                            exception);
+                }
+            };
+        }
+        return getter;
+    }
+
+    /**
+     * Creates a setter of the write method.
+     * <p>
+     * The setter is spun by {@link LambdaMetafactory}, so it runs as fast as a plain method call. If the method is
+     * not accessible from this class, it falls back to a reflective call.
+     *
+     * @param writeMethod write method
+     * @param <T>         collection class
+     * @return setter
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> BiConsumer<T, Object> createSetter(final Method writeMethod) {
+        final BiConsumer<T, Object> setter = compile(writeMethod, BiConsumer.class, "accept",
+                MethodType.methodType(void.class, Object.class, Object.class));
+        if (setter == null) {
+            return (target, value) -> {
+                try {
+                    writeMethod.invoke(target, value);
+                } catch (ReflectiveOperationException exception) {
+                    throw new IllegalStateException("Failed to invoke the write method [" + writeMethod + "]!",
+                            exception);
+                }
+            };
+        }
+        return setter;
+    }
+
+    /**
+     * Compiles the method into an instance of the functional interface with {@link LambdaMetafactory}.
+     * <p>
+     * Every Object in the functional method type is narrowed to the matching (boxed) type of the method, the first
+     * parameter is narrowed to the declaring class of the method.
+     *
+     * @param method              getter or setter method
+     * @param functionalInterface functional interface
+     * @param functionalName      functional method name
+     * @param functionalType      erased functional method type
+     * @param <F>                 functional interface class
+     * @return compiled function, or NULL if the method is not accessible from this class
+     */
+    @SuppressWarnings("unchecked")
+    private static <F> F compile(final Method method, final Class<?> functionalInterface, final String functionalName,
+                                 final MethodType functionalType) {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            final MethodHandle handle = lookup.unreflect(method);
+            final MethodType wrappedType = handle.type().wrap();
+            MethodType instantiatedType = functionalType.changeParameterType(0, method.getDeclaringClass());
+            for (int index = 1; index < functionalType.parameterCount(); index++) {
+                if (functionalType.parameterType(index) == Object.class) {
+                    instantiatedType = instantiatedType.changeParameterType(index, wrappedType.parameterType(index));
+                }
+            }
+            if (functionalType.returnType() == Object.class) {
+                instantiatedType = instantiatedType.changeReturnType(wrappedType.returnType());
+            }
+            final CallSite site = LambdaMetafactory.metafactory(lookup, functionalName,
+                    MethodType.methodType(functionalInterface), functionalType, handle, instantiatedType);
+            return (F) site.getTarget().invoke();
+        } catch (Throwable throwable) {
+            LOGGER.debug("Failed to compile the method [" + method + "], fall back to reflection!", throwable);
+            return null;
+        }
+    }
+
+    /**
+     * Returns property name.
+     *
+     * @return property name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns BSON element name.
+     *
+     * @return BSON element name
+     */
+    public String getElementName() {
+        return elementName;
+    }
+
+    /**
+     * Returns property type.
+     *
+     * @return property type
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Returns element type of an array or a collection property.
+     *
+     * @return element type, or NULL if the property type is neither an array nor a collection
+     */
+    public Class<?> getElementType() {
+        return elementType;
+    }
+
+    /**
+     * Returns value type, it is the element type of an array or a collection property, otherwise the property type.
+     * A primitive value type is boxed.
+     *
+     * @return value type
+     */
+    public Class<?> getValueType() {
+        return valueType;
+    }
+
+    /**
+     * Returns property kind.
+     *
+     * @return property kind
+     */
+    PropertyKind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the property value of the target.
+     *
+     * @param target target
+     * @return property value
+     */
+    public Object get(final T target) {
+        return getter.apply(target);
+    }
+
+    /**
+     * Sets the property value of the target.
+     *
+     * @param target target
+     * @param value  property value
+     */
+    public void set(final T target, final Object value) {
+        setter.accept(target, value);
+    }
+
+    /**
+     * Returns the primitive int property value of the target.
+     *
+     * @param target target
+     * @return property value
+     */
+    @SuppressWarnings("unchecked")
+    public int getInt(final T target) {
+        return ((ToIntFunction<T>) primitiveGetter).applyAsInt(target);
+    }
+
+    /**
+     * Sets the primitive int property value of the target.
+     *
+     * @param target target
+     * @param value  property value
+     */
+    @SuppressWarnings("unchecked")
+    public void setInt(final T target, final int value) {
+        ((ObjIntConsumer<T>) primitiveSetter).accept(target, value);
+    }
+
+    /**
+     * Returns the primitive long property value of the target.
+     *
+     * @param target target
+     * @return property value
+     */
+    @SuppressWarnings("unchecked")
+    public long getLong(final T target) {
+        return ((ToLongFunction<T>) primitiveGetter).applyAsLong(target);
+    }
+
+    /**
+     * Sets the primitive long property value of the target.
+     *
+     * @param target target
+     * @param value  property value
+     */
+    @SuppressWarnings("unchecked")
+    public void setLong(final T target, final long value) {
+        ((ObjLongConsumer<T>) primitiveSetter).accept(target, value);
+    }
+
+    /**
+     * Returns the primitive double property value of the target.
+     *
+     * @param target target
+     * @return property value
+     */
+    @SuppressWarnings("unchecked")
+    public double getDouble(final T target) {
+        return ((ToDoubleFunction<T>) primitiveGetter).applyAsDouble(target);
+    }
+
+    /**
+     * Sets the primitive double property value of the target.
+     *
+     * @param target target
+     * @param value  property value
+     */
+    @SuppressWarnings("unchecked")
+    public void setDouble(final T target, final double value) {
+        ((ObjDoubleConsumer<T>) primitiveSetter).accept(target, value);
+    }
+}
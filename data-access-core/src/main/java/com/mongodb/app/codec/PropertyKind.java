@@ -0,0 +1,77 @@
+package com.mongodb.app.codec;
+
+import java.util.Collection;
+
+/**
+ * Property kind.
+ * <p>
+ * Tells the codec how a property is read and written, so the primitive kinds go straight between the BSON reader or
+ * writer and the property without boxing.
+ *
+ * @author nico.arianto
+ */
+enum PropertyKind {
+    /**
+     * Any property which is written by a codec of the registry.
+     */
+    OBJECT,
+    /**
+     * Array of objects.
+     */
+    ARRAY,
+    /**
+     * Collection of objects.
+     */
+    COLLECTION,
+    /**
+     * Primitive int.
+     */
+    INT,
+    /**
+     * Primitive long.
+     */
+    LONG,
+    /**
+     * Primitive double.
+     */
+    DOUBLE,
+    /**
+     * Array of primitive int.
+     */
+    INT_ARRAY,
+    /**
+     * Array of primitive long.
+     */
+    LONG_ARRAY,
+    /**
+     * Array of primitive double.
+     */
+    DOUBLE_ARRAY;
+
+    /**
+     * Returns the property kind of the property type.
+     *
+     * @param type property type
+     * @return property kind
+     */
+    static PropertyKind of(final Class<?> type) {
+        if (type == int.class) {
+            return INT;
+        } else if (type == long.class) {
+            return LONG;
+        } else if (type == double.class) {
+            return DOUBLE;
+        } else if (type == int[].class) {
+            return INT_ARRAY;
+        } else if (type == long[].class) {
+            return LONG_ARRAY;
+        } else if (type == double[].class) {
+            return DOUBLE_ARRAY;
+        } else if (type.isArray()) {
+            return ARRAY;
+        } else if (Collection.class.isAssignableFrom(type)) {
+            return COLLECTION;
+        }
+        return OBJECT;
+    }
+}
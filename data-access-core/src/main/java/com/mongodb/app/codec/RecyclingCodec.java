@@ -0,0 +1,65 @@
+package com.mongodb.app.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * Recycling codec.
+ * <p>
+ * Decodes every document into the same collection object by {@link AbstractCodec#decodeInto(Object, BsonReader,
+ * DecoderContext)}, and encodes by the abstract codec. It is meant for a single scan, and it is not thread-safe.
+ *
+ * @param <T> collection class
+ * @author nico.arianto
+ */
+final class RecyclingCodec<T> implements Codec<T> {
+    private final AbstractCodec<T> codec;
+    private T target;
+
+    /**
+     * Constructor.
+     *
+     * @param codec abstract codec
+     */
+    RecyclingCodec(AbstractCodec<T> codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Decode a document into the recycled collection object.
+     *
+     * @param reader         reader
+     * @param decoderContext context
+     * @return recycled collection object
+     */
+    @Override
+    public T decode(final BsonReader reader, final DecoderContext decoderContext) {
+        target = codec.decodeInto(target, reader, decoderContext);
+        return target;
+    }
+
+    /**
+     * Encode a collection object.
+     *
+     * @param writer         writer
+     * @param value          value
+     * @param encoderContext context
+     */
+    @Override
+    public void encode(final BsonWriter writer, final T value, final EncoderContext encoderContext) {
+        codec.encode(writer, value, encoderContext);
+    }
+
+    /**
+     * Returns encoder class.
+     *
+     * @return encoder class
+     */
+    @Override
+    public Class<T> getEncoderClass() {
+        return codec.getEncoderClass();
+    }
+}
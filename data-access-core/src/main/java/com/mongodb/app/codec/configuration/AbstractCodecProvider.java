@@ -0,0 +1,96 @@
+package com.mongodb.app.codec.configuration;
+
+import com.mongodb.app.codec.AbstractCodec;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Abstract codec provider.
+ * <p>
+ * Keeps a single codec instance per registered collection class, the codec is built once by its factory and shared by
+ * every caller. The codecs are built under one reentrant lock rather than inside the cache, so a codec constructor may
+ * look up the codecs of its nested collection classes from the same provider. A provider instance should belong to a single codec registry, since the cached codecs keep the registry
+ * they are built with.
+ *
+ * @author nico.arianto
+ */
+public abstract class AbstractCodecProvider implements CodecProvider {
+    private final ConcurrentMap<Class<?>, Function<CodecRegistry, ? extends Codec<?>>> factories = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, Class<?>> subclasses = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, Codec<?>> codecs = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the codec factory of a collection class, it should be called from the constructor.
+     *
+     * @param clazz   collection class
+     * @param factory codec factory
+     * @param <T>     collection class
+     */
+    protected <T> void register(final Class<T> clazz, final Function<CodecRegistry, ? extends Codec<T>> factory) {
+        factories.put(clazz, factory);
+    }
+
+    /**
+     * Registers a subclass of a registered collection class, e.g. a lazy collection class, which is encoded by the codec
+     * of the collection class.
+     *
+     * @param subclass subclass
+     * @param clazz    registered collection class
+     * @param <T>      collection class
+     */
+    protected <T> void registerSubclass(final Class<? extends T> subclass, final Class<T> clazz) {
+        subclasses.put(subclass, clazz);
+    }
+
+    /**
+     * Builds every registered codec and its metadata in parallel.
+     * <p>
+     * It is meant to be called once at startup with the registry which contains this provider, so the first encode or
+     * decode does not pay for the codec build.
+     *
+     * @param registry codec registry
+     */
+    public void initialize(final CodecRegistry registry) {
+        factories.keySet().parallelStream().forEach(clazz -> {
+            final Codec<?> codec = get(clazz, registry);
+            if (codec instanceof AbstractCodec) {
+                ((AbstractCodec<?>) codec).initialize();
+            }
+        });
+    }
+
+    /**
+     * Returns codec.
+     *
+     * @param clazz    collection class
+     * @param registry codec registry
+     * @param <T>      collection class
+     * @return codec, or NULL if the collection class is not registered
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Codec<T> get(final Class<T> clazz, final CodecRegistry registry) {
+        final Class<?> codecClass = subclasses.getOrDefault(clazz, clazz);
+        final Codec<?> codec = codecs.get(codecClass);
+        if (codec != null) {
+            return (Codec<T>) codec;
+        }
+        final Function<CodecRegistry, ? extends Codec<?>> factory = factories.get(codecClass);
+        if (factory == null) {
+            return null;
+        }
+        synchronized (factories) {
+            Codec<?> builtCodec = codecs.get(codecClass);
+            if (builtCodec == null) {
+                builtCodec = factory.apply(registry);
+                codecs.put(codecClass, builtCodec);
+            }
+            return (Codec<T>) builtCodec;
+        }
+    }
+}
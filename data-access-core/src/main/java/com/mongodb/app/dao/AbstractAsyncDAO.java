@@ -0,0 +1,168 @@
+package com.mongodb.app.dao;
+
+import com.mongodb.app.collection.AbstractCollection;
+import com.mongodb.async.SingleResultCallback;
+import com.mongodb.async.client.MongoCollection;
+import com.mongodb.async.client.MongoDatabase;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.in;
+
+/**
+ * Abstract asynchronous DAO.
+ * <p>
+ * The asynchronous variant of {@link AbstractDAO} on the MongoDB async driver, every method returns at once with a
+ * future which is completed by a driver thread, so a single caller thread can have many operations in flight. The
+ * collection class is encoded and decoded by the same codecs as the synchronous DAO, if the database has the same
+ * codec registry. A dependent stage should not block, since it may run on a driver thread.
+ *
+ * @param <T> collection class
+ * @author nico.arianto
+ */
+public abstract class AbstractAsyncDAO<T extends AbstractCollection> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractAsyncDAO.class);
+    private static final int MAX_BATCH_COUNT = 1000;
+    protected final MongoCollection<T> collection;
+
+    /**
+     * Constructor.
+     *
+     * @param collectionName  collection name
+     * @param collectionClass collection class
+     */
+    protected AbstractAsyncDAO(String collectionName, Class<T> collectionClass) {
+        collection = getDatabase().getCollection(collectionName, collectionClass);
+    }
+
+    /**
+     * Returns the asynchronous database object.
+     *
+     * @return database
+     */
+    protected abstract MongoDatabase getDatabase();
+
+    /**
+     * Create a document.
+     *
+     * @param document document
+     * @return future completed when the document is inserted
+     */
+    public CompletableFuture<Void> create(T document) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        collection.insertOne(document, complete(future));
+        return future;
+    }
+
+    /**
+     * Read a document.
+     *
+     * @param id id
+     * @return future of the document, or of NULL if it is missing
+     */
+    public CompletableFuture<T> read(ObjectId id) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        collection.find(eq(AbstractCollection.COLLECTION_ID, id)).first(complete(future));
+        return future;
+    }
+
+    /**
+     * Read documents by id.
+     * <p>
+     * The ids are queried by $in in chunks of at most {@link #getMaxBatchCount()} ids, and every chunk is in flight at
+     * the same time.
+     *
+     * @param ids ids, a duplicate id is read once
+     * @return future of the documents by id in request order, NULL for a missing document
+     */
+    public CompletableFuture<Map<ObjectId, T>> readAll(Collection<ObjectId> ids) {
+        final Map<ObjectId, T> documents = new LinkedHashMap<>();
+        for (ObjectId id : ids) {
+            documents.put(id, null);
+        }
+        final List<ObjectId> distinctIds = new ArrayList<>(documents.keySet());
+        final int maxBatchCount = getMaxBatchCount();
+        final List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+        for (int index = 0; index < distinctIds.size(); index += maxBatchCount) {
+            final List<ObjectId> chunk = distinctIds.subList(index, Math.min(index + maxBatchCount, distinctIds.size()));
+            final CompletableFuture<List<T>> future = new CompletableFuture<>();
+            collection.find(in(AbstractCollection.COLLECTION_ID, chunk)).into(new ArrayList<>(chunk.size()),
+                    complete(future));
+            futures.add(future);
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(ignored -> {
+            for (CompletableFuture<List<T>> future : futures) {
+                for (T document : future.join()) {
+                    if (documents.containsKey(document.getId())) {
+                        documents.put(document.getId(), document);
+                    }
+                }
+            }
+            return documents;
+        });
+    }
+
+    /**
+     * Replace a document.
+     *
+     * @param id       id
+     * @param document document
+     * @return future completed when the document is replaced
+     */
+    public CompletableFuture<Void> update(ObjectId id, T document) {
+        final CompletableFuture<UpdateResult> future = new CompletableFuture<>();
+        collection.replaceOne(eq(AbstractCollection.COLLECTION_ID, id), document, complete(future));
+        return future.thenAccept(result -> LOGGER.debug("Replace one: {}", result));
+    }
+
+    /**
+     * Delete a document.
+     *
+     * @param id id
+     * @return future completed when the document is deleted
+     */
+    public CompletableFuture<Void> delete(ObjectId id) {
+        final CompletableFuture<DeleteResult> future = new CompletableFuture<>();
+        collection.deleteOne(eq(AbstractCollection.COLLECTION_ID, id), complete(future));
+        return future.thenAccept(result -> LOGGER.debug("Delete one: {}", result));
+    }
+
+    /**
+     * Returns the maximum number of ids per $in query.
+     * <p>
+     * Override this method to tune the reads.
+     *
+     * @return maximum batch count
+     */
+    protected int getMaxBatchCount() {
+        return MAX_BATCH_COUNT;
+    }
+
+    /**
+     * Returns a driver callback which completes the future.
+     *
+     * @param future future
+     * @param <R>    result class
+     * @return callback
+     */
+    private static <R> SingleResultCallback<R> complete(final CompletableFuture<? super R> future) {
+        return (result, throwable) -> {
+            if (throwable == null) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(throwable);
+            }
+        };
+    }
+}
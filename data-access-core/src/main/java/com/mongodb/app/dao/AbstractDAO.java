@@ -1,15 +1,59 @@
 package com.mongodb.app.dao;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ReadPreference;
+import com.mongodb.app.annotation.Index;
+import com.mongodb.app.annotation.ShardKey;
+import com.mongodb.app.codec.AbstractCodec;
 import com.mongodb.app.collection.AbstractCollection;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.FindOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentWrapper;
+import org.bson.BsonNull;
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.mongodb.client.model.Filters.and;
 import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.gt;
+import static com.mongodb.client.model.Filters.in;
+import static com.mongodb.client.model.Filters.or;
 
 /**
  * Abstract DAO.
@@ -19,7 +63,15 @@ import static com.mongodb.client.model.Filters.eq;
  */
 public abstract class AbstractDAO<T extends AbstractCollection> {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractDAO.class);
+    private static final int MAX_BATCH_COUNT = 1000;
+    private static final int MAX_BATCH_SIZE = 16 * 1024 * 1024;
+    private static final int MAX_DOCUMENT_SIZE = 16 * 1024 * 1024;
+    private static final String CONTINUATION_VALUE = "value";
     protected final MongoCollection collection;
+    private final String[] shardKeyProperties;
+    private volatile String[] shardKeyPaths;
+    private final Index[] indexes;
+    private final SnapshotTable<T> snapshots = new SnapshotTable<>();
 
     /**
      * Constructor.
@@ -29,6 +81,9 @@ public abstract class AbstractDAO<T extends AbstractCollection> {
      */
     protected AbstractDAO(String collectionName, Class<T> collectionClass) {
         collection = getDatabase().getCollection(collectionName, collectionClass);
+        final ShardKey shardKey = collectionClass.getAnnotation(ShardKey.class);
+        shardKeyProperties = shardKey == null ? new String[0] : shardKey.value();
+        indexes = collectionClass.getAnnotationsByType(Index.class);
     }
 
     /**
@@ -38,43 +93,1068 @@ public abstract class AbstractDAO<T extends AbstractCollection> {
      */
     protected abstract MongoDatabase getDatabase();
 
+    /**
+     * Reconcile the indexes which the collection class declares by {@link Index}.
+     * <p>
+     * The existing indexes are compared by their keys, and the missing ones are created with the background option.
+     * The calling thread waits until the indexes are built, which may take minutes for a large collection, so it is
+     * meant to be called once at startup, or by an executor. A failure is thrown, so the call can be retried.
+     *
+     * @return names of the created indexes
+     * @throws com.mongodb.MongoException if the indexes cannot be listed or created
+     */
+    public List<String> reconcileIndexes() {
+        final Codec<T> codec = getCodec();
+        return IndexReconciler.reconcile(collection,
+                IndexReconciler.getIndexModels(indexes, property -> getElementPath(codec, property)));
+    }
+
     /**
      * Create a document.
      *
      * @param document document
      */
     public void create(T document) {
-        collection.insertOne(document);
+        create(document, getWriteTier());
+    }
+
+    /**
+     * Create a document with a write tier.
+     *
+     * @param document  document
+     * @param writeTier write tier, or NULL for the write concern of the collection
+     */
+    public void create(T document, WriteTier writeTier) {
+        getWriter(writeTier).insertOne(document);
+    }
+
+    /**
+     * Create documents with ordered bulk inserts, see {@link #createAll(Iterator, boolean)}.
+     *
+     * @param documents documents
+     * @return bulk insert result
+     */
+    public BulkInsertResult<T> createAll(Iterable<? extends T> documents) {
+        return createAll(documents.iterator(), true);
+    }
+
+    /**
+     * Create documents with bulk inserts, see {@link #createAll(Iterator, boolean)}.
+     *
+     * @param documents documents
+     * @param ordered   true if the inserts stop at the first failed document
+     * @return bulk insert result
+     */
+    public BulkInsertResult<T> createAll(Iterable<? extends T> documents, boolean ordered) {
+        return createAll(documents.iterator(), ordered);
+    }
+
+    /**
+     * Create documents with ordered bulk inserts, see {@link #createAll(Iterator, boolean)}.
+     *
+     * @param documents documents
+     * @return bulk insert result
+     */
+    public BulkInsertResult<T> createAll(Iterator<? extends T> documents) {
+        return createAll(documents, true);
+    }
+
+    /**
+     * Create documents with bulk inserts.
+     * <p>
+     * The documents are consumed as a stream, each one gets an id if it has none and is encoded once, then the encoded
+     * documents are sent by insertMany in batches of at most {@link #getMaxBatchCount()} documents and
+     * {@link #getMaxBatchSize()} bytes. A document larger than the maximum BSON document size is not sent and is
+     * reported as a failure.
+     * <p>
+     * With ordered inserts, nothing is sent after the batch which has the first failed document. With unordered inserts,
+     * every document is tried.
+     *
+     * @param documents documents
+     * @param ordered   true if the inserts stop at the first failed document
+     * @return bulk insert result
+     */
+    public BulkInsertResult<T> createAll(Iterator<? extends T> documents, boolean ordered) {
+        return createAll(documents, ordered, getWriteTier());
+    }
+
+    /**
+     * Create documents with bulk inserts and a write tier, see {@link #createAll(Iterator, boolean)}.
+     * <p>
+     * With {@link WriteTier#FIRE_AND_FORGET}, every sent document is counted as inserted and no failure is reported
+     * but the oversized documents, so a bulk reload should be verified afterwards, e.g. by {@link #count(Bson)}.
+     *
+     * @param documents documents
+     * @param ordered   true if the inserts stop at the first failed document
+     * @param writeTier write tier, or NULL for the write concern of the collection
+     * @return bulk insert result
+     */
+    public BulkInsertResult<T> createAll(Iterator<? extends T> documents, boolean ordered, WriteTier writeTier) {
+        final Codec<T> codec = getCodec();
+        final MongoCollection rawCollection = getWriter(writeTier).withDocumentClass(RawBsonDocument.class);
+        final InsertManyOptions options = new InsertManyOptions().ordered(ordered);
+        final int maxBatchCount = getMaxBatchCount();
+        final int maxBatchSize = getMaxBatchSize();
+        final BulkInsertResult<T> result = new BulkInsertResult<>();
+        final List<T> batch = new ArrayList<>();
+        final List<RawBsonDocument> rawBatch = new ArrayList<>();
+        int batchSize = 0;
+        int batchIndex = 0;
+        int index = 0;
+        while (documents.hasNext()) {
+            final T document = documents.next();
+            if (codec instanceof CollectibleCodec) {
+                ((CollectibleCodec<T>) codec).generateIdIfAbsentFromDocument(document);
+            }
+            final RawBsonDocument rawDocument = new RawBsonDocument(document, codec);
+            final int size = rawDocument.getByteBuffer().remaining();
+            final boolean oversized = size > MAX_DOCUMENT_SIZE;
+            if (!batch.isEmpty() && (oversized || batch.size() >= maxBatchCount || batchSize + size > maxBatchSize)) {
+                if (!insertBatch(rawCollection, options, batch, rawBatch, batchIndex, result) && ordered) {
+                    return result;
+                }
+                batch.clear();
+                rawBatch.clear();
+                batchSize = 0;
+            }
+            if (oversized) {
+                result.addFailure(new BulkInsertResult.Failure<>(index++, document, -1,
+                        "The document size " + size + " exceeds the maximum of " + MAX_DOCUMENT_SIZE + " bytes!"));
+                if (ordered) {
+                    return result;
+                }
+                continue;
+            }
+            if (batch.isEmpty()) {
+                batchIndex = index;
+            }
+            batch.add(document);
+            rawBatch.add(rawDocument);
+            batchSize += size;
+            index++;
+        }
+        if (!batch.isEmpty()) {
+            insertBatch(rawCollection, options, batch, rawBatch, batchIndex, result);
+        }
+        return result;
+    }
+
+    /**
+     * Sends a batch of encoded documents by insertMany, and adds its outcome to the bulk insert result.
+     *
+     * @param rawCollection collection of raw BSON documents
+     * @param options       insert options
+     * @param batch         batch of documents
+     * @param rawBatch      batch of encoded documents
+     * @param batchIndex    position of the first document of the batch in the input
+     * @param result        bulk insert result
+     * @return true if every document of the batch is inserted
+     * @throws MongoBulkWriteException if the batch failed without any document error, e.g. a write concern error
+     */
+    private boolean insertBatch(final MongoCollection rawCollection, final InsertManyOptions options,
+                                final List<T> batch, final List<RawBsonDocument> rawBatch, final int batchIndex,
+                                final BulkInsertResult<T> result) {
+        try {
+            rawCollection.insertMany(rawBatch, options);
+            result.addInserted(rawBatch.size());
+            return true;
+        } catch (MongoBulkWriteException exception) {
+            if (exception.getWriteErrors().isEmpty()) {
+                throw exception;
+            }
+            result.addInserted(exception.getWriteResult().getInsertedCount());
+            for (BulkWriteError error : exception.getWriteErrors()) {
+                result.addFailure(new BulkInsertResult.Failure<>(batchIndex + error.getIndex(),
+                        batch.get(error.getIndex()), error.getCode(), error.getMessage()));
+            }
+            LOGGER.debug("Insert many: {} failed of {}", exception.getWriteErrors().size(), rawBatch.size());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the maximum number of documents per insertMany batch, and of ids per $in query.
+     * <p>
+     * Override this method to tune the bulk inserts and reads.
+     *
+     * @return maximum batch count
+     */
+    protected int getMaxBatchCount() {
+        return MAX_BATCH_COUNT;
+    }
+
+    /**
+     * Returns the maximum number of encoded bytes per insertMany batch.
+     * <p>
+     * Override this method to tune the bulk inserts.
+     *
+     * @return maximum batch size in bytes
+     */
+    protected int getMaxBatchSize() {
+        return MAX_BATCH_SIZE;
     }
 
     /**
      * Read a document.
+     * <p>
+     * If the DAO has a write-behind buffer, a copy of a pending replacement of the document is returned. If the DAO
+     * has a document cache, the document is read through it, and every read decodes its own copy of the cached raw
+     * BSON document. If the DAO tracks changes, the document is read as raw BSON, which is kept as its snapshot.
      *
      * @param id id
      * @return document
      */
     public T read(ObjectId id) {
-        return (T) collection.find(eq(AbstractCollection.COLLECTION_ID, id)).first();
+        return read(id, getIdFilter(id, null), getReadPreference());
+    }
+
+    /**
+     * Read a document with a read preference, e.g. from a secondary, see {@link #read(ObjectId)}.
+     * <p>
+     * The read preference applies only if the document is neither pending in the write-behind buffer nor cached.
+     *
+     * @param id             id
+     * @param readPreference read preference, or NULL for the read preference of the collection
+     * @return document
+     */
+    public T readWithPreference(ObjectId id, ReadPreference readPreference) {
+        return read(id, getIdFilter(id, null), readPreference);
+    }
+
+    /**
+     * Read a document with a shard key, so the read is routed to a single shard, see {@link #read(ObjectId)}.
+     *
+     * @param id       id
+     * @param shardKey shard key filter, e.g. {@code eq("borough", "Bronx")}, or NULL
+     * @return document
+     */
+    public T readByShardKey(ObjectId id, Bson shardKey) {
+        return read(id, getIdFilter(id, shardKey), getReadPreference());
+    }
+
+    /**
+     * Read a document by a filter of its id, see {@link #read(ObjectId)}.
+     *
+     * @param id             id
+     * @param filter         filter of the id, and of the shard key if any
+     * @param readPreference read preference, or NULL for the read preference of the collection
+     * @return document
+     */
+    private T read(final ObjectId id, final Bson filter, final ReadPreference readPreference) {
+        final MongoCollection reader = getReader(readPreference);
+        final DocumentCache cache = getCache();
+        final long stamp = cache != null ? cache.getStamp() : 0;
+        final WriteBehindBuffer<T> writeBehind = getWriteBehind();
+        if (writeBehind != null) {
+            final RawBsonDocument pendingDocument = writeBehind.getDocument(id);
+            if (pendingDocument != null) {
+                return decodeTracked(pendingDocument);
+            }
+        }
+        if (cache == null && !isTrackingChanges()) {
+            return (T) reader.find(filter).first();
+        }
+        RawBsonDocument document = cache != null ? cache.get(id) : null;
+        if (document == null) {
+            document = (RawBsonDocument) reader.withDocumentClass(RawBsonDocument.class).find(filter).first();
+            if (document == null) {
+                return null;
+            }
+            if (cache != null) {
+                cache.put(id, document, stamp);
+            }
+        }
+        return decodeTracked(document);
+    }
+
+    /**
+     * Returns the document cache of this DAO.
+     * <p>
+     * Override this method to read through a cache, the same cache instance must be returned on every call. The entries
+     * are invalidated by {@link #update(ObjectId, AbstractCollection)} and {@link #delete(ObjectId)} of this DAO, but not
+     * by any other writer.
+     *
+     * @return document cache, or NULL if the reads are not cached
+     */
+    protected DocumentCache getCache() {
+        return null;
+    }
+
+    /**
+     * Returns the write-behind buffer of this DAO.
+     * <p>
+     * Override this method to coalesce the replacements of {@link #update(ObjectId, AbstractCollection)}, the same
+     * buffer instance, on the collection of this DAO, must be returned on every call. The buffer is owned by the
+     * subclass, which flushes and closes it.
+     * <p>
+     * The reads by id, {@link #read(ObjectId)}, {@link #read(ObjectId, String...)}, {@link #readLazy(ObjectId)} and
+     * {@link #readAll(Collection, Executor)}, see the pending replacements. The reads by a query filter, e.g.
+     * {@link #find(Bson, String...)}, {@link #page(Bson, ObjectId, int)} and {@link #stream(Bson)}, do not, they
+     * see the documents as they are before the next flush.
+     *
+     * @return write-behind buffer, or NULL if the replacements are written immediately
+     */
+    protected WriteBehindBuffer<T> getWriteBehind() {
+        return null;
+    }
+
+    /**
+     * Returns true if this DAO tracks the changes of the documents it reads, for {@link #save(AbstractCollection)}.
+     * <p>
+     * Override this method to track the changes, the raw BSON document of every document which is read by
+     * {@link #read(ObjectId)}, {@link #readLazy(ObjectId)} or {@link #findLazy(Bson)} is then kept as its snapshot, as
+     * long as the document is reachable.
+     * A document which is replaced by {@link #update(ObjectId, AbstractCollection)} is tracked by its replacement.
+     * Only a tracked document can be saved, the documents of the other reads, which may be projected, are not tracked.
+     *
+     * @return true if the changes are tracked
+     */
+    protected boolean isTrackingChanges() {
+        return false;
+    }
+
+    /**
+     * Returns the read preference of this DAO.
+     * <p>
+     * Override this method to route the reads of this DAO, e.g. to {@link ReadPreference#secondaryPreferred()} or to
+     * tagged members by {@link ReadPreference#nearest(com.mongodb.TagSet)}, the writes always go to the primary. A read
+     * from a secondary may not see the latest writes.
+     *
+     * @return read preference, or NULL for the read preference of the collection
+     */
+    protected ReadPreference getReadPreference() {
+        return null;
+    }
+
+    /**
+     * Returns the collection to read with a read preference.
+     *
+     * @param readPreference read preference, or NULL for the read preference of the collection
+     * @return collection
+     */
+    private MongoCollection getReader(final ReadPreference readPreference) {
+        return readPreference == null ? collection : collection.withReadPreference(readPreference);
+    }
+
+    /**
+     * Returns the write tier of this DAO.
+     * <p>
+     * Override this method to set the write concern of every write of this DAO, a write with its own write tier
+     * overrides it.
+     *
+     * @return write tier, or NULL for the write concern of the collection
+     */
+    protected WriteTier getWriteTier() {
+        return null;
+    }
+
+    /**
+     * Returns the collection to write with a write tier.
+     *
+     * @param writeTier write tier, or NULL for the write concern of the collection
+     * @return collection
+     */
+    private MongoCollection getWriter(final WriteTier writeTier) {
+        return writeTier == null ? collection : collection.withWriteConcern(writeTier.getWriteConcern());
+    }
+
+    /**
+     * Read a subset of the document properties.
+     * <p>
+     * Only the BSON elements of the properties, and the id, are sent back by the server, so only those properties are
+     * decoded. A nested property is addressed by a dotted path, e.g. "address.street". If the DAO has a write-behind
+     * buffer, a copy of a pending replacement of the document is returned with all of its properties.
+     *
+     * @param id         id
+     * @param properties Java property names, all properties are read if it is empty
+     * @return document
+     */
+    public T read(ObjectId id, String... properties) {
+        final WriteBehindBuffer<T> writeBehind = getWriteBehind();
+        if (writeBehind != null) {
+            final T pendingDocument = writeBehind.get(id);
+            if (pendingDocument != null) {
+                return pendingDocument;
+            }
+        }
+        FindIterable iterable = getReader(getReadPreference()).find(eq(AbstractCollection.COLLECTION_ID, id));
+        if (properties.length > 0) {
+            iterable = iterable.projection(getProjection(properties));
+        }
+        return (T) iterable.first();
+    }
+
+    /**
+     * Read documents by id, see {@link #readAll(Collection, Executor)}.
+     *
+     * @param ids ids
+     * @return documents by id in request order, NULL for a missing document
+     */
+    public Map<ObjectId, T> readAll(Collection<ObjectId> ids) {
+        return readAll(ids, null);
+    }
+
+    /**
+     * Read documents by id.
+     * <p>
+     * The ids are queried by $in in chunks of at most {@link #getMaxBatchCount()} ids, so N ids take one round trip per
+     * chunk instead of N round trips. With an executor the chunks are queried in parallel, otherwise one after another
+     * in the caller thread. If the DAO has a write-behind buffer, a copy of a pending replacement is returned instead,
+     * and its id is not queried.
+     *
+     * @param ids      ids, a duplicate id is read once
+     * @param executor executor of the chunk queries, or NULL
+     * @return documents by id in request order, NULL for a missing document
+     */
+    public Map<ObjectId, T> readAll(Collection<ObjectId> ids, Executor executor) {
+        final Map<ObjectId, T> documents = new LinkedHashMap<>();
+        for (ObjectId id : ids) {
+            documents.put(id, null);
+        }
+        final WriteBehindBuffer<T> writeBehind = getWriteBehind();
+        final List<ObjectId> distinctIds = new ArrayList<>(documents.size());
+        for (Map.Entry<ObjectId, T> entry : documents.entrySet()) {
+            final T pendingDocument = writeBehind != null ? writeBehind.get(entry.getKey()) : null;
+            if (pendingDocument != null) {
+                entry.setValue(pendingDocument);
+            } else {
+                distinctIds.add(entry.getKey());
+            }
+        }
+        final int maxBatchCount = getMaxBatchCount();
+        final List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+        for (int index = 0; index < distinctIds.size(); index += maxBatchCount) {
+            final List<ObjectId> chunk = distinctIds.subList(index, Math.min(index + maxBatchCount, distinctIds.size()));
+            if (executor == null) {
+                putAll(documents, readChunk(chunk));
+            } else {
+                futures.add(CompletableFuture.supplyAsync(() -> readChunk(chunk), executor));
+            }
+        }
+        for (CompletableFuture<List<T>> future : futures) {
+            try {
+                putAll(documents, future.join());
+            } catch (CompletionException exception) {
+                if (exception.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) exception.getCause();
+                }
+                throw exception;
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Read documents by id in request order, see {@link #readAll(Collection, Executor)}.
+     *
+     * @param ids ids
+     * @return documents in request order, NULL for a missing document
+     */
+    public List<T> readAllAsList(List<ObjectId> ids) {
+        final Map<ObjectId, T> documents = readAll(ids, null);
+        final List<T> orderedDocuments = new ArrayList<>(ids.size());
+        for (ObjectId id : ids) {
+            orderedDocuments.add(documents.get(id));
+        }
+        return orderedDocuments;
+    }
+
+    /**
+     * Queries a chunk of ids by $in.
+     *
+     * @param ids chunk of ids
+     * @return found documents
+     */
+    private List<T> readChunk(final List<ObjectId> ids) {
+        final List<T> documents = new ArrayList<>(ids.size());
+        for (Object document : getReader(getReadPreference()).find(in(AbstractCollection.COLLECTION_ID, ids))) {
+            documents.add((T) document);
+        }
+        return documents;
+    }
+
+    /**
+     * Puts the found documents by their id, an unexpected id is ignored.
+     *
+     * @param documents documents by id
+     * @param found     found documents
+     */
+    private void putAll(final Map<ObjectId, T> documents, final List<T> found) {
+        for (T document : found) {
+            if (documents.containsKey(document.getId())) {
+                documents.put(document.getId(), document);
+            }
+        }
+    }
+
+    /**
+     * Find documents with a subset of their properties.
+     * <p>
+     * Only the BSON elements of the properties, and the id, are sent back by the server, so only those properties are
+     * decoded. A nested property is addressed by a dotted path, e.g. "address.street".
+     *
+     * @param filter     query filter
+     * @param properties Java property names, all properties are read if it is empty
+     * @return documents
+     */
+    public List<T> find(Bson filter, String... properties) {
+        return find(filter, getReadPreference(), properties);
+    }
+
+    /**
+     * Find documents with a read preference, e.g. from a secondary, see {@link #find(Bson, String...)}.
+     *
+     * @param filter         query filter
+     * @param readPreference read preference, or NULL for the read preference of the collection
+     * @param properties     Java property names, all properties are read if it is empty
+     * @return documents
+     */
+    public List<T> find(Bson filter, ReadPreference readPreference, String... properties) {
+        FindIterable iterable = getReader(readPreference).find(filter);
+        if (properties.length > 0) {
+            iterable = iterable.projection(getProjection(properties));
+        }
+        final List<T> documents = new ArrayList<>();
+        for (Object document : iterable) {
+            documents.add((T) document);
+        }
+        return documents;
+    }
+
+    /**
+     * Count every document, e.g. to verify a bulk reload.
+     *
+     * @return number of documents
+     */
+    public long count() {
+        return count(new BsonDocument());
+    }
+
+    /**
+     * Count documents.
+     *
+     * @param filter query filter
+     * @return number of documents
+     */
+    public long count(Bson filter) {
+        return getReader(getReadPreference()).count(filter);
+    }
+
+    /**
+     * Read a page of documents sorted by id, see {@link #page(Bson, String, String, int)}.
+     *
+     * @param filter query filter
+     * @param after  last id of the previous page, or NULL for the first page
+     * @param size   page size
+     * @return page of documents
+     */
+    public Page<T> page(Bson filter, ObjectId after, int size) {
+        return page(filter, null, after == null ? null :
+                new BsonDocument(AbstractCollection.COLLECTION_ID, new BsonObjectId(after)).toJson(), size);
+    }
+
+    /**
+     * Read a page of documents by keyset pagination.
+     * <p>
+     * The documents are sorted ascending by the sort property, if any, then by id. A page is read by a range query
+     * after the last document of the previous page instead of skipping the previous pages, so a deep page costs the same
+     * as the first page, and the sort should be backed by an index. The sort property should be present in every
+     * document.
+     *
+     * @param filter       query filter
+     * @param sortProperty Java property path of the secondary sort key, or NULL to sort by id only
+     * @param continuation continuation token of the previous page, or NULL for the first page
+     * @param size         page size
+     * @return page of documents
+     * @throws IllegalArgumentException if the page size is not positive
+     */
+    public Page<T> page(Bson filter, String sortProperty, String continuation, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("The page size must be positive!");
+        }
+        final String elementPath = sortProperty == null ? null : getElementPath(getCodec(), sortProperty);
+        Bson pageFilter = filter;
+        if (continuation != null) {
+            final BsonDocument token = BsonDocument.parse(continuation);
+            final BsonValue afterId = token.get(AbstractCollection.COLLECTION_ID);
+            if (elementPath == null) {
+                pageFilter = and(filter, gt(AbstractCollection.COLLECTION_ID, afterId));
+            } else {
+                final BsonValue afterValue = token.get(CONTINUATION_VALUE);
+                pageFilter = and(filter, or(gt(elementPath, afterValue),
+                        and(eq(elementPath, afterValue), gt(AbstractCollection.COLLECTION_ID, afterId))));
+            }
+        }
+        final Bson sort = elementPath == null ? Sorts.ascending(AbstractCollection.COLLECTION_ID)
+                : Sorts.ascending(elementPath, AbstractCollection.COLLECTION_ID);
+        final List<T> documents = new ArrayList<>(size + 1);
+        for (Object document : getReader(getReadPreference()).find(pageFilter).sort(sort).limit(size + 1)) {
+            documents.add((T) document);
+        }
+        final boolean hasNext = documents.size() > size;
+        if (hasNext) {
+            documents.remove(size);
+        }
+        if (documents.isEmpty()) {
+            return new Page<>(documents, null, null);
+        }
+        final T last = documents.get(documents.size() - 1);
+        String nextContinuation = null;
+        if (hasNext) {
+            final BsonDocument token = new BsonDocument(AbstractCollection.COLLECTION_ID, new BsonObjectId(last.getId()));
+            if (elementPath != null) {
+                token.append(CONTINUATION_VALUE, getElementValue(new BsonDocumentWrapper<>(last, getCodec()), elementPath));
+            }
+            nextContinuation = token.toJson();
+        }
+        return new Page<>(documents, last.getId(), nextContinuation);
+    }
+
+    /**
+     * Returns the value of a dotted BSON element path.
+     *
+     * @param document    BSON document
+     * @param elementPath BSON element path
+     * @return element value, or BSON NULL if it is missing
+     */
+    private static BsonValue getElementValue(final BsonDocument document, final String elementPath) {
+        BsonValue value = document;
+        for (String elementName : elementPath.split("\\.")) {
+            if (value == null || !value.isDocument()) {
+                return BsonNull.VALUE;
+            }
+            value = value.asDocument().get(elementName);
+        }
+        return value == null ? BsonNull.VALUE : value;
+    }
+
+    /**
+     * Stream documents, see {@link #stream(Bson, FindOptions)}.
+     *
+     * @param filter query filter
+     * @return stream of documents, which must be closed
+     */
+    public Stream<T> stream(Bson filter) {
+        return stream(filter, new FindOptions());
+    }
+
+    /**
+     * Stream documents.
+     * <p>
+     * The documents are pulled from the cursor one batch at a time as the stream is consumed, so the result is never
+     * materialized. Closing the stream closes the cursor, so it should be used in a try-with-resources statement.
+     *
+     * @param filter  query filter
+     * @param options find options, e.g. batch size, limit, sort and max time
+     * @return stream of documents, which must be closed
+     */
+    public Stream<T> stream(Bson filter, FindOptions options) {
+        final MongoCursor<T> cursor = find(getReader(getReadPreference()).find(filter), options).iterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL),
+                false).onClose(cursor::close);
+    }
+
+    /**
+     * Performs an action for each document, see {@link #forEach(Bson, FindOptions, Consumer)}.
+     *
+     * @param filter query filter
+     * @param action action per document
+     */
+    public void forEach(Bson filter, Consumer<? super T> action) {
+        forEach(filter, new FindOptions(), action);
+    }
+
+    /**
+     * Performs an action for each document.
+     * <p>
+     * The documents are pulled from the cursor one batch at a time, and the cursor is closed at the end, also if the
+     * action throws an exception.
+     *
+     * @param filter  query filter
+     * @param options find options, e.g. batch size, limit, sort and max time
+     * @param action  action per document
+     */
+    public void forEach(Bson filter, FindOptions options, Consumer<? super T> action) {
+        try (MongoCursor<T> cursor = find(getReader(getReadPreference()).find(filter), options).iterator()) {
+            while (cursor.hasNext()) {
+                action.accept(cursor.next());
+            }
+        }
+    }
+
+    /**
+     * Applies the find options to the find iterable.
+     *
+     * @param iterable find iterable
+     * @param options  find options
+     * @return find iterable
+     */
+    private FindIterable<T> find(final FindIterable<T> iterable, final FindOptions options) {
+        FindIterable<T> optionIterable = iterable.batchSize(options.getBatchSize())
+                .limit(options.getLimit())
+                .skip(options.getSkip())
+                .maxTime(options.getMaxTime(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+        if (options.getSort() != null) {
+            optionIterable = optionIterable.sort(options.getSort());
+        }
+        if (options.getProjection() != null) {
+            optionIterable = optionIterable.projection(options.getProjection());
+        }
+        return optionIterable;
+    }
+
+    /**
+     * Scan documents with a single recycled document object.
+     * <p>
+     * Every document is decoded into the same document object, with its lists and nested objects refilled, if the codec
+     * of the collection class supports it, so the action must not keep the document or its properties after it
+     * returns. The cursor is closed at the end of the scan.
+     *
+     * @param filter query filter
+     * @param action action per document
+     */
+    public void scan(Bson filter, Consumer<? super T> action) {
+        final Codec<T> codec = getCodec();
+        MongoCollection scanCollection = getReader(getReadPreference());
+        if (codec instanceof AbstractCodec) {
+            scanCollection = scanCollection.withCodecRegistry(CodecRegistries.fromRegistries(
+                    CodecRegistries.fromCodecs(((AbstractCodec<T>) codec).recycling()), collection.getCodecRegistry()));
+        }
+        try (MongoCursor cursor = scanCollection.find(filter).iterator()) {
+            while (cursor.hasNext()) {
+                action.accept((T) cursor.next());
+            }
+        }
+    }
+
+    /**
+     * Returns the projection of the Java property names, each name is translated to its BSON element path by the codec
+     * of the collection class.
+     *
+     * @param properties Java property names
+     * @return projection
+     */
+    protected Bson getProjection(final String... properties) {
+        final Codec<T> codec = getCodec();
+        final List<String> elementPaths = new ArrayList<>(properties.length);
+        for (String property : properties) {
+            elementPaths.add(getElementPath(codec, property));
+        }
+        return Projections.include(elementPaths);
+    }
+
+    /**
+     * Returns the BSON element path of a Java property path by the codec, if it is an abstract codec.
+     *
+     * @param codec    codec of the collection class
+     * @param property Java property path
+     * @return BSON element path
+     */
+    private String getElementPath(final Codec<T> codec, final String property) {
+        return codec instanceof AbstractCodec ? ((AbstractCodec<T>) codec).getElementPath(property) : property;
+    }
+
+    /**
+     * Returns the codec of the collection class.
+     *
+     * @return codec
+     */
+    @SuppressWarnings("unchecked")
+    protected Codec<T> getCodec() {
+        return collection.getCodecRegistry().get(collection.getDocumentClass());
+    }
+
+    /**
+     * Read a document lazily.
+     * <p>
+     * The document is fetched as raw BSON, and each property is decoded on its first access if the codec of the
+     * collection class supports lazy decoding, otherwise the whole document is decoded. If the DAO has a write-behind
+     * buffer, a pending replacement of the document is decoded instead.
+     *
+     * @param id id
+     * @return document
+     */
+    public T readLazy(ObjectId id) {
+        final WriteBehindBuffer<T> writeBehind = getWriteBehind();
+        final RawBsonDocument pendingDocument = writeBehind != null ? writeBehind.getDocument(id) : null;
+        if (pendingDocument != null) {
+            return decodeTracked(pendingDocument);
+        }
+        final RawBsonDocument document = (RawBsonDocument) getReader(getReadPreference())
+                .withDocumentClass(RawBsonDocument.class)
+                .find(eq(AbstractCollection.COLLECTION_ID, id)).first();
+        return document == null ? null : decodeTracked(document);
+    }
+
+    /**
+     * Find documents lazily.
+     * <p>
+     * The documents are fetched as raw BSON, and each property is decoded on its first access if the codec of the
+     * collection class supports lazy decoding, otherwise the whole document is decoded.
+     *
+     * @param filter query filter
+     * @return documents
+     */
+    public List<T> findLazy(Bson filter) {
+        final List<T> documents = new ArrayList<>();
+        for (Object document : getReader(getReadPreference()).withDocumentClass(RawBsonDocument.class).find(filter)) {
+            documents.add(decodeTracked((RawBsonDocument) document));
+        }
+        return documents;
+    }
+
+    /**
+     * Decodes a raw BSON document lazily, and keeps it as the snapshot of the document if this DAO tracks changes.
+     *
+     * @param document raw BSON document
+     * @return document
+     */
+    private T decodeTracked(final RawBsonDocument document) {
+        final T target = decodeLazy(document);
+        if (isTrackingChanges()) {
+            snapshots.put(target, document);
+        }
+        return target;
+    }
+
+    /**
+     * Decodes a raw BSON document lazily with the codec of the collection class.
+     *
+     * @param document raw BSON document
+     * @return document
+     */
+    private T decodeLazy(final RawBsonDocument document) {
+        final Codec<T> codec = getCodec();
+        if (codec instanceof AbstractCodec) {
+            return ((AbstractCodec<T>) codec).decodeLazy(document);
+        }
+        try (BsonBinaryReader reader = new BsonBinaryReader(document.getByteBuffer().asNIO())) {
+            return codec.decode(reader, DecoderContext.builder().build());
+        }
     }
 
     /**
      * Replace a document.
+     * <p>
+     * The filter has the shard key properties of the document, if the collection class declares a {@link ShardKey}. If
+     * the DAO has a write-behind buffer, the replacement is buffered instead, and written by its next flush. If the DAO
+     * tracks changes, the encoded replacement is kept as the snapshot of the document, so it can be saved later.
      *
      * @param id       id
      * @param document document
      */
     public void update(ObjectId id, T document) {
-        final UpdateResult result = collection.replaceOne(eq(AbstractCollection.COLLECTION_ID, id), document);
-        LOGGER.debug("Replace one: {}", result);
+        update(id, document, getWriteTier());
     }
 
     /**
-     * Delete a document.
+     * Replace a document with a write tier, see {@link #update(ObjectId, AbstractCollection)}.
+     * <p>
+     * The write tier does not apply to a buffered replacement.
+     *
+     * @param id        id
+     * @param document  document
+     * @param writeTier write tier, or NULL for the write concern of the collection
+     */
+    public void update(ObjectId id, T document, WriteTier writeTier) {
+        final RawBsonDocument current = isTrackingChanges() ? new RawBsonDocument(document, getCodec()) : null;
+        boolean replaced = false;
+        try {
+            final Bson filter = getDocumentFilter(id, document);
+            final WriteBehindBuffer<T> writeBehind = getWriteBehind();
+            if (writeBehind != null) {
+                if (current != null) {
+                    writeBehind.replaceEncoded(id, current, filter);
+                } else {
+                    writeBehind.replace(id, document, filter);
+                }
+            } else {
+                final UpdateResult result = current != null
+                        ? getWriter(writeTier).withDocumentClass(RawBsonDocument.class).replaceOne(filter, current)
+                        : getWriter(writeTier).replaceOne(filter, document);
+                LOGGER.debug("Replace one: {}", result);
+            }
+            replaced = true;
+        } finally {
+            if (current != null) {
+                if (replaced) {
+                    snapshots.put(document, current);
+                } else {
+                    snapshots.remove(document);
+                }
+            }
+            invalidate(id);
+        }
+    }
+
+    /**
+     * Save a document by a partial update of its changed properties.
+     * <p>
+     * The document must be tracked, see {@link #isTrackingChanges()}, its current encoding is then compared with its
+     * snapshot by {@link AbstractCodec#getUpdate(BsonDocument, BsonDocument)}, only the changed elements are sent by
+     * "$set" and "$unset", and nothing is sent if no element is changed. If the codec cannot compare the encodings, or
+     * if the DAO has a write-behind buffer, the tracked document is replaced by
+     * {@link #update(ObjectId, AbstractCollection)}, since it is complete.
+     * <p>
+     * A document which is not tracked is rejected, e.g. a document of a projected read, which would erase every
+     * property that is not projected.
+     *
+     * @param document document
+     * @throws IllegalStateException if the document is not tracked
+     */
+    public void save(T document) {
+        final ObjectId id = document.getId();
+        final RawBsonDocument snapshot = isTrackingChanges() ? snapshots.get(document) : null;
+        if (snapshot == null) {
+            throw new IllegalStateException("The document " + id + " is not tracked, it must be read by this DAO"
+                    + " with change tracking to be saved!");
+        }
+        final Codec<T> codec = getCodec();
+        if (!(codec instanceof AbstractCodec) || getWriteBehind() != null) {
+            update(id, document);
+            return;
+        }
+        final RawBsonDocument current = new RawBsonDocument(document, codec);
+        final BsonDocument changes = ((AbstractCodec<T>) codec).getUpdate(snapshot, current);
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            final UpdateResult result = getWriter(getWriteTier()).updateOne(getDocumentFilter(id, document), changes);
+            LOGGER.debug("Update one: {}", result);
+            snapshots.put(document, current);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    /**
+     * Delete a document, a pending replacement of the document is discarded.
      *
      * @param id id
      */
     public void delete(ObjectId id) {
-        final DeleteResult result = collection.deleteOne(eq(AbstractCollection.COLLECTION_ID, id));
-        LOGGER.debug("Delete one: {}", result);
+        delete(id, getWriteTier());
+    }
+
+    /**
+     * Delete a document with a write tier, see {@link #delete(ObjectId)}.
+     *
+     * @param id        id
+     * @param writeTier write tier, or NULL for the write concern of the collection
+     */
+    public void delete(ObjectId id, WriteTier writeTier) {
+        delete(id, getIdFilter(id, null), writeTier);
+    }
+
+    /**
+     * Delete a document with a shard key, so the delete is routed to a single shard, see {@link #delete(ObjectId)}.
+     *
+     * @param id       id
+     * @param shardKey shard key filter, e.g. {@code eq("borough", "Bronx")}, or NULL
+     */
+    public void deleteByShardKey(ObjectId id, Bson shardKey) {
+        delete(id, getIdFilter(id, shardKey), getWriteTier());
+    }
+
+    /**
+     * Delete a document by its id, and by its shard key properties if any, see {@link #delete(ObjectId)}.
+     *
+     * @param document document
+     */
+    public void delete(T document) {
+        delete(document.getId(), getDocumentFilter(document.getId(), document), getWriteTier());
+    }
+
+    /**
+     * Delete a document by a filter of its id, see {@link #delete(ObjectId)}.
+     *
+     * @param id        id
+     * @param filter    filter of the id, and of the shard key if any
+     * @param writeTier write tier, or NULL for the write concern of the collection
+     */
+    private void delete(final ObjectId id, final Bson filter, final WriteTier writeTier) {
+        try {
+            final WriteBehindBuffer<T> writeBehind = getWriteBehind();
+            if (writeBehind != null) {
+                writeBehind.discard(id);
+            }
+            final DeleteResult result = getWriter(writeTier).deleteOne(filter);
+            LOGGER.debug("Delete one: {}", result);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    /**
+     * Returns the filter of an id and a supplied shard key.
+     *
+     * @param id       id
+     * @param shardKey shard key filter, or NULL
+     * @return filter
+     */
+    private static Bson getIdFilter(final ObjectId id, final Bson shardKey) {
+        final Bson idFilter = eq(AbstractCollection.COLLECTION_ID, id);
+        return shardKey == null ? idFilter : and(idFilter, shardKey);
+    }
+
+    /**
+     * Returns the filter of an id and of the shard key properties of a document, see {@link ShardKey}.
+     * <p>
+     * The shard key values are read by the property accessors of the codec, if it is an abstract codec, otherwise the
+     * document is encoded.
+     *
+     * @param id       id
+     * @param document document, which the shard key values are taken from
+     * @return filter
+     */
+    private Bson getDocumentFilter(final ObjectId id, final T document) {
+        final Bson idFilter = eq(AbstractCollection.COLLECTION_ID, id);
+        if (shardKeyProperties.length == 0) {
+            return idFilter;
+        }
+        final String[] elementPaths = getShardKeyPaths();
+        final Codec<T> codec = getCodec();
+        final BsonDocument encodedDocument = codec instanceof AbstractCodec ? null
+                : new BsonDocumentWrapper<>(document, codec);
+        final List<Bson> filters = new ArrayList<>(elementPaths.length + 1);
+        filters.add(idFilter);
+        for (int index = 0; index < elementPaths.length; index++) {
+            final Object value = encodedDocument == null
+                    ? ((AbstractCodec<T>) codec).getPropertyValue(document, shardKeyProperties[index])
+                    : getElementValue(encodedDocument, elementPaths[index]);
+            filters.add(eq(elementPaths[index], value));
+        }
+        return and(filters);
+    }
+
+    /**
+     * Returns the BSON element paths of the shard key properties, which are mapped once by the codec.
+     *
+     * @return BSON element paths
+     */
+    private String[] getShardKeyPaths() {
+        String[] elementPaths = shardKeyPaths;
+        if (elementPaths == null) {
+            final Codec<T> codec = getCodec();
+            elementPaths = new String[shardKeyProperties.length];
+            for (int index = 0; index < elementPaths.length; index++) {
+                elementPaths[index] = getElementPath(codec, shardKeyProperties[index]);
+            }
+            shardKeyPaths = elementPaths;
+        }
+        return elementPaths;
+    }
+
+    /**
+     * Invalidates the cache entry of a document, if the DAO has a document cache.
+     *
+     * @param id id
+     */
+    private void invalidate(final ObjectId id) {
+        final DocumentCache cache = getCache();
+        if (cache != null) {
+            cache.invalidate(id);
+        }
     }
 }
\ No newline at end of file
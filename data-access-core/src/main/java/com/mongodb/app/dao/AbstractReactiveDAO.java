@@ -0,0 +1,76 @@
+package com.mongodb.app.dao;
+
+import com.mongodb.app.collection.AbstractCollection;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.conversions.Bson;
+import org.reactivestreams.Publisher;
+
+import java.util.List;
+
+/**
+ * Abstract reactive DAO.
+ * <p>
+ * Adds Reactive Streams publishers to the {@link AbstractAsyncDAO}. Nothing is sent to the server before a subscriber
+ * requests, and a find is paged by subscriber demand, so a slow subscriber never makes the DAO buffer more than one
+ * batch of documents.
+ *
+ * @param <T> collection class
+ * @author nico.arianto
+ */
+public abstract class AbstractReactiveDAO<T extends AbstractCollection> extends AbstractAsyncDAO<T> {
+    private static final int MAX_CURSOR_BATCH_SIZE = 100;
+
+    /**
+     * Constructor.
+     *
+     * @param collectionName  collection name
+     * @param collectionClass collection class
+     */
+    protected AbstractReactiveDAO(String collectionName, Class<T> collectionClass) {
+        super(collectionName, collectionClass);
+    }
+
+    /**
+     * Find documents, see {@link #find(Bson, int)}.
+     *
+     * @param filter query filter
+     * @return publisher of documents
+     */
+    public Publisher<T> find(Bson filter) {
+        return find(filter, MAX_CURSOR_BATCH_SIZE);
+    }
+
+    /**
+     * Find documents.
+     * <p>
+     * The cursor is opened on the first request of a subscriber, and each next batch is fetched once the previous one is
+     * consumed, with a batch size of the outstanding demand up to the maximum batch size.
+     *
+     * @param filter       query filter
+     * @param maxBatchSize maximum cursor batch size
+     * @return publisher of documents
+     */
+    public Publisher<T> find(Bson filter, int maxBatchSize) {
+        return new CursorPublisher<>(collection.find(filter).batchSize(maxBatchSize), maxBatchSize);
+    }
+
+    /**
+     * Create documents by a single insertMany.
+     *
+     * @param documents documents
+     * @return publisher which completes without any element when the documents are inserted
+     */
+    public Publisher<Void> insertMany(List<? extends T> documents) {
+        return new SingleResultPublisher<>(callback -> collection.insertMany(documents, callback));
+    }
+
+    /**
+     * Delete documents.
+     *
+     * @param filter query filter
+     * @return publisher of the delete result
+     */
+    public Publisher<DeleteResult> deleteMany(Bson filter) {
+        return new SingleResultPublisher<>(callback -> collection.deleteMany(filter, callback));
+    }
+}
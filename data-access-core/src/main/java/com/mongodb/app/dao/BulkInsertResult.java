@@ -0,0 +1,150 @@
+package com.mongodb.app.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bulk insert result.
+ * <p>
+ * Counts the inserted documents and keeps the failed documents with their position in the input, over every batch of
+ * a bulk insert.
+ *
+ * @param <T> collection class
+ * @author nico.arianto
+ */
+public final class BulkInsertResult<T> {
+    private final List<Failure<T>> failures = new ArrayList<>();
+    private int insertedCount;
+    private int batchCount;
+
+    /**
+     * Adds the inserted count of a batch.
+     *
+     * @param count inserted count
+     */
+    void addInserted(final int count) {
+        insertedCount += count;
+        batchCount++;
+    }
+
+    /**
+     * Adds a failed document.
+     *
+     * @param failure failure
+     */
+    void addFailure(final Failure<T> failure) {
+        failures.add(failure);
+    }
+
+    /**
+     * Returns the number of inserted documents.
+     *
+     * @return inserted count
+     */
+    public int getInsertedCount() {
+        return insertedCount;
+    }
+
+    /**
+     * Returns the number of sent batches.
+     *
+     * @return batch count
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Returns the failed documents in input order.
+     *
+     * @return failures
+     */
+    public List<Failure<T>> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * Returns true if no document failed.
+     *
+     * @return true if no document failed
+     */
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BulkInsertResult{insertedCount=" + insertedCount + ", batchCount=" + batchCount + ", failures="
+                + failures + '}';
+    }
+
+    /**
+     * Failed document of a bulk insert.
+     *
+     * @param <T> collection class
+     * @author nico.arianto
+     */
+    public static final class Failure<T> {
+        private final int index;
+        private final T document;
+        private final int code;
+        private final String message;
+
+        /**
+         * Constructor.
+         *
+         * @param index    position of the document in the input
+         * @param document document
+         * @param code     server error code
+         * @param message  server error message
+         */
+        Failure(int index, T document, int code, String message) {
+            this.index = index;
+            this.document = document;
+            this.code = code;
+            this.message = message;
+        }
+
+        /**
+         * Returns the position of the document in the input.
+         *
+         * @return index
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the document.
+         *
+         * @return document
+         */
+        public T getDocument() {
+            return document;
+        }
+
+        /**
+         * Returns the server error code, e.g. 11000 for a duplicate key.
+         *
+         * @return error code
+         */
+        public int getCode() {
+            return code;
+        }
+
+        /**
+         * Returns the server error message.
+         *
+         * @return error message
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "Failure{index=" + index + ", code=" + code + ", message='" + message + "'}";
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.mongodb.app.dao;
+
+import com.mongodb.async.AsyncBatchCursor;
+import com.mongodb.async.client.MongoIterable;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cursor publisher.
+ * <p>
+ * Publishes the results of an asynchronous cursor by subscriber demand. The cursor is opened on the first request, and
+ * the next batch is fetched only when the current one is emitted and there is still demand, with a batch size of the
+ * outstanding demand up to the maximum batch size. So at most one batch is buffered, however slow the subscriber is.
+ * Every subscriber gets its own cursor.
+ *
+ * @param <T> result class
+ * @author nico.arianto
+ */
+final class CursorPublisher<T> implements Publisher<T> {
+    private final MongoIterable<T> iterable;
+    private final int maxBatchSize;
+
+    /**
+     * Constructor.
+     *
+     * @param iterable     asynchronous iterable
+     * @param maxBatchSize maximum batch size
+     */
+    CursorPublisher(MongoIterable<T> iterable, int maxBatchSize) {
+        this.iterable = iterable;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Subscribes to the results.
+     *
+     * @param subscriber subscriber
+     * @throws NullPointerException if the subscriber is NULL
+     */
+    @Override
+    public void subscribe(final Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("The subscriber is null!");
+        }
+        subscriber.onSubscribe(new CursorSubscription<>(iterable, maxBatchSize, subscriber));
+    }
+
+    /**
+     * Subscription of a cursor.
+     * <p>
+     * Every signal is sent from the drain loop, which is run by a single thread at a time, either the requesting thread
+     * or the driver thread which delivers a batch.
+     *
+     * @param <T> result class
+     * @author nico.arianto
+     */
+    private static final class CursorSubscription<T> implements Subscription {
+        private final MongoIterable<T> iterable;
+        private final int maxBatchSize;
+        private final Subscriber<? super T> subscriber;
+        private final Queue<T> buffer = new ConcurrentLinkedQueue<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger drains = new AtomicInteger();
+        private volatile AsyncBatchCursor<T> cursor;
+        private volatile Throwable error;
+        private volatile boolean fetching;
+        private volatile boolean exhausted;
+        private volatile boolean cancelled;
+        private boolean terminated;
+
+        /**
+         * Constructor.
+         *
+         * @param iterable     asynchronous iterable
+         * @param maxBatchSize maximum batch size
+         * @param subscriber   subscriber
+         */
+        private CursorSubscription(MongoIterable<T> iterable, int maxBatchSize, Subscriber<? super T> subscriber) {
+            this.iterable = iterable;
+            this.maxBatchSize = maxBatchSize;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("The request must be positive, but it is " + n + "!");
+            } else {
+                long current;
+                do {
+                    current = demand.get();
+                } while (!demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        /**
+         * Emits the buffered results by demand, signals a termination, or fetches the next batch.
+         */
+        private void drain() {
+            if (drains.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (!terminated) {
+                    drainOnce();
+                }
+                missed = drains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * A single pass of the drain loop.
+         */
+        private void drainOnce() {
+            if (cancelled) {
+                terminate();
+                return;
+            }
+            while (demand.get() > 0 && !buffer.isEmpty() && error == null && !cancelled) {
+                subscriber.onNext(buffer.poll());
+                demand.decrementAndGet();
+            }
+            if (cancelled) {
+                terminate();
+            } else if (error != null) {
+                terminate();
+                subscriber.onError(error);
+            } else if (buffer.isEmpty() && exhausted) {
+                terminate();
+                subscriber.onComplete();
+            } else if (buffer.isEmpty() && demand.get() > 0 && !fetching) {
+                fetching = true;
+                fetch();
+            }
+        }
+
+        /**
+         * Opens the cursor, or fetches its next batch with a batch size of the outstanding demand.
+         */
+        private void fetch() {
+            final AsyncBatchCursor<T> currentCursor = cursor;
+            if (currentCursor == null) {
+                iterable.batchCursor((newCursor, throwable) -> {
+                    if (throwable != null) {
+                        onBatch(null, throwable);
+                    } else if (newCursor == null) {
+                        onBatch(null, null);
+                    } else if (cancelled) {
+                        newCursor.close();
+                    } else {
+                        cursor = newCursor;
+                        next(newCursor);
+                    }
+                });
+            } else {
+                next(currentCursor);
+            }
+        }
+
+        /**
+         * Fetches the next batch of the cursor.
+         *
+         * @param currentCursor cursor
+         */
+        private void next(final AsyncBatchCursor<T> currentCursor) {
+            currentCursor.setBatchSize((int) Math.max(1, Math.min(demand.get(), maxBatchSize)));
+            currentCursor.next(this::onBatch);
+        }
+
+        /**
+         * Buffers a batch, or marks the cursor as exhausted or failed, then drains.
+         *
+         * @param batch     batch, NULL if the cursor is exhausted
+         * @param throwable failure, or NULL
+         */
+        private void onBatch(final List<T> batch, final Throwable throwable) {
+            if (throwable != null) {
+                error = throwable;
+            } else if (batch == null) {
+                exhausted = true;
+            } else {
+                buffer.addAll(batch);
+            }
+            fetching = false;
+            drain();
+        }
+
+        /**
+         * Marks this subscription as terminated, drops the buffer and closes the cursor.
+         */
+        private void terminate() {
+            terminated = true;
+            buffer.clear();
+            final AsyncBatchCursor<T> currentCursor = cursor;
+            if (currentCursor != null) {
+                currentCursor.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.mongodb.app.dao;
+
+import org.bson.RawBsonDocument;
+import org.bson.types.ObjectId;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Document cache.
+ * <p>
+ * An in-process cache of raw BSON documents by id, bounded by the number of entries and by their total size in bytes,
+ * with least recently used eviction and a time to live. A raw BSON document is immutable, so every reader decodes its
+ * own copy and no caller can corrupt a cached entry.
+ * <p>
+ * An off-heap cache, see {@link #offHeap(int, long, long, TimeUnit)}, keeps the BSON bytes in direct byte buffer slabs
+ * instead, and only its id index is on the heap. A hit copies the bytes of the entry into a new raw BSON document, which
+ * is decoded by the codec, or passed through as is.
+ * <p>
+ * A DAO reads through the cache by a stamp: it takes {@link #getStamp()} before it queries a missing document, and the
+ * document is put only if no entry has been invalidated since, so a concurrent update or delete never leaves a stale
+ * entry behind.
+ *
+ * @author nico.arianto
+ */
+public final class DocumentCache {
+    public static final int SLAB_SIZE = 1024 * 1024;
+    private final int maxEntries;
+    private final long maxWeight;
+    private final long timeToLive;
+    private final LongSupplier ticker;
+    private final SlabAllocator allocator;
+    private final LinkedHashMap<ObjectId, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong stamp = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private long weight;
+
+    /**
+     * Constructor.
+     *
+     * @param maxEntries maximum number of entries
+     * @param maxWeight  maximum total size of the entries in bytes
+     * @param timeToLive time to live of an entry
+     * @param unit       time unit of the time to live
+     * @throws IllegalArgumentException if a bound is not positive
+     */
+    public DocumentCache(int maxEntries, long maxWeight, long timeToLive, TimeUnit unit) {
+        this(maxEntries, maxWeight, unit.toNanos(timeToLive), System::nanoTime, null);
+    }
+
+    /**
+     * Returns an off-heap document cache, with slabs of {@link #SLAB_SIZE} bytes.
+     * <p>
+     * The slabs are allocated on demand up to the capacity, and never released, but an empty slab is reused by any
+     * block size. A document which is larger than a slab is not cached.
+     *
+     * @param maxEntries maximum number of entries
+     * @param capacity   off-heap capacity in bytes
+     * @param timeToLive time to live of an entry
+     * @param unit       time unit of the time to live
+     * @return off-heap document cache
+     * @throws IllegalArgumentException if a bound is not positive, or the capacity is less than a slab
+     */
+    public static DocumentCache offHeap(int maxEntries, long capacity, long timeToLive, TimeUnit unit) {
+        return new DocumentCache(maxEntries, capacity, unit.toNanos(timeToLive), System::nanoTime,
+                new SlabAllocator(SLAB_SIZE, capacity));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxEntries maximum number of entries
+     * @param maxWeight  maximum total size of the entries in bytes
+     * @param timeToLive time to live of an entry in nanoseconds
+     * @param ticker     nanosecond time source
+     * @param allocator  slab allocator of an off-heap cache, or NULL
+     * @throws IllegalArgumentException if a bound is not positive
+     */
+    DocumentCache(int maxEntries, long maxWeight, long timeToLive, LongSupplier ticker, SlabAllocator allocator) {
+        if (maxEntries <= 0 || maxWeight <= 0 || timeToLive <= 0) {
+            throw new IllegalArgumentException("The cache bounds must be positive!");
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.timeToLive = timeToLive;
+        this.ticker = ticker;
+        this.allocator = allocator;
+    }
+
+    /**
+     * Returns the cached document, an expired entry is removed.
+     *
+     * @param id id
+     * @return raw BSON document, or NULL if it is not cached
+     */
+    public RawBsonDocument get(final ObjectId id) {
+        synchronized (entries) {
+            final Entry entry = entries.get(id);
+            if (entry != null) {
+                if (ticker.getAsLong() - entry.createdAt < timeToLive) {
+                    hitCount.incrementAndGet();
+                    return entry.document != null ? entry.document
+                            : new RawBsonDocument(allocator.read(entry.handle, entry.size));
+                }
+                remove(id);
+                evictionCount.incrementAndGet();
+            }
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Returns the current stamp, to be taken before the document of a missing entry is queried.
+     *
+     * @return stamp
+     */
+    public long getStamp() {
+        return stamp.get();
+    }
+
+    /**
+     * Puts a document, unless an entry has been invalidated since the stamp was taken or the document is larger than
+     * the maximum weight, or than a slab. The least recently used entries are evicted until the cache is within its
+     * bounds. For an off-heap cache without a free block of the document block size, the least recently used entry of
+     * that block size is evicted, and if there is none, the document is not cached.
+     *
+     * @param id       id
+     * @param document raw BSON document
+     * @param stamp    stamp, which is taken before the document was queried
+     * @return true if the document is cached
+     */
+    public boolean put(final ObjectId id, final RawBsonDocument document, final long stamp) {
+        final int size = document.getByteBuffer().remaining();
+        if (size > maxWeight || allocator != null && allocator.getBlockSize(size) < 0) {
+            return false;
+        }
+        synchronized (entries) {
+            if (this.stamp.get() != stamp) {
+                return false;
+            }
+            remove(id);
+            final Entry entry;
+            if (allocator == null) {
+                entry = new Entry(document, -1, size, ticker.getAsLong());
+            } else {
+                if (!allocator.canAllocate(size) && !evictEldest(allocator.getBlockSize(size))) {
+                    return false;
+                }
+                final long handle = allocator.allocate(size);
+                allocator.write(handle, document.getByteBuffer().asNIO());
+                entry = new Entry(null, handle, size, ticker.getAsLong());
+            }
+            entries.put(id, entry);
+            weight += size;
+            while (entries.size() > maxEntries || weight > maxWeight) {
+                evictEldest();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Evicts the least recently used entry, the caller holds the lock.
+     */
+    private void evictEldest() {
+        final Iterator<Map.Entry<ObjectId, Entry>> iterator = entries.entrySet().iterator();
+        final Entry entry = iterator.next().getValue();
+        iterator.remove();
+        release(entry);
+        evictionCount.incrementAndGet();
+    }
+
+    /**
+     * Evicts the least recently used entry of a block size, the caller holds the lock.
+     *
+     * @param blockSize block size in bytes
+     * @return true if an entry is evicted
+     */
+    private boolean evictEldest(final int blockSize) {
+        final Iterator<Map.Entry<ObjectId, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Entry entry = iterator.next().getValue();
+            if (allocator.getBlockSize(entry.size) == blockSize) {
+                iterator.remove();
+                release(entry);
+                evictionCount.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Invalidates the entry of a document, e.g. after it is updated or deleted.
+     *
+     * @param id id
+     */
+    public void invalidate(final ObjectId id) {
+        synchronized (entries) {
+            stamp.incrementAndGet();
+            remove(id);
+        }
+    }
+
+    /**
+     * Invalidates every entry.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            stamp.incrementAndGet();
+            for (Entry entry : entries.values()) {
+                release(entry);
+            }
+            entries.clear();
+        }
+    }
+
+    /**
+     * Removes an entry, the caller holds the lock.
+     *
+     * @param id id
+     */
+    private void remove(final ObjectId id) {
+        final Entry entry = entries.remove(id);
+        if (entry != null) {
+            release(entry);
+        }
+    }
+
+    /**
+     * Releases the weight, and the off-heap block, of a removed entry, the caller holds the lock.
+     *
+     * @param entry removed entry
+     */
+    private void release(final Entry entry) {
+        weight -= entry.size;
+        if (entry.document == null) {
+            allocator.free(entry.handle, entry.size);
+        }
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the total size of the entries in bytes.
+     *
+     * @return weight
+     */
+    public long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    /**
+     * Returns the number of reads which found a live entry.
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of reads which found no live entry.
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of entries which are evicted by the bounds or expired, invalidations are not counted.
+     *
+     * @return eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the ratio of hits to reads.
+     *
+     * @return hit rate, or 0 if nothing is read
+     */
+    public double getHitRate() {
+        final long hits = hitCount.get();
+        final long reads = hits + missCount.get();
+        return reads == 0 ? 0 : (double) hits / reads;
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentCache{size=" + size() + ", weight=" + getWeight() + ", hitCount=" + getHitCount()
+                + ", missCount=" + getMissCount() + ", evictionCount=" + getEvictionCount() + '}';
+    }
+
+    /**
+     * Cache entry, either on the heap by its raw BSON document or off-heap by its block handle.
+     *
+     * @author nico.arianto
+     */
+    private static final class Entry {
+        private final RawBsonDocument document;
+        private final long handle;
+        private final int size;
+        private final long createdAt;
+
+        /**
+         * Constructor.
+         *
+         * @param document  raw BSON document, or NULL if it is off-heap
+         * @param handle    block handle, if it is off-heap
+         * @param size      size in bytes
+         * @param createdAt creation time in nanoseconds
+         */
+        private Entry(RawBsonDocument document, long handle, int size, long createdAt) {
+            this.document = document;
+            this.handle = handle;
+            this.size = size;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.mongodb.app.dao;
+
+import com.mongodb.app.annotation.Index;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Index reconciler.
+ * <p>
+ * Compares the declared indexes of a collection class, see {@link Index}, with the indexes of its collection by their
+ * keys, and creates the missing ones with the background option. An existing index with the same keys but other
+ * options is kept as is, and only logged, since it cannot be changed without dropping it.
+ *
+ * @author nico.arianto
+ */
+final class IndexReconciler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexReconciler.class);
+    private static final String KEY = "key";
+
+    /**
+     * Private constructor.
+     */
+    private IndexReconciler() {
+    }
+
+    /**
+     * Returns the index models of the declared indexes.
+     *
+     * @param indexes     declared indexes
+     * @param elementPath mapping of a Java property path to its BSON element path
+     * @return index models, which are created in the background
+     */
+    static List<IndexModel> getIndexModels(final Index[] indexes, final Function<String, String> elementPath) {
+        final List<IndexModel> models = new ArrayList<>(indexes.length);
+        for (Index index : indexes) {
+            final BsonDocument keys = new BsonDocument();
+            for (String property : index.value()) {
+                keys.append(elementPath.apply(property), getKeyValue(index.kind()));
+            }
+            final IndexOptions options = new IndexOptions().background(true).unique(index.unique())
+                    .sparse(index.sparse());
+            if (!index.name().isEmpty()) {
+                options.name(index.name());
+            }
+            if (index.expireAfterSeconds() >= 0) {
+                options.expireAfter(index.expireAfterSeconds(), TimeUnit.SECONDS);
+            }
+            models.add(new IndexModel(keys, options));
+        }
+        return models;
+    }
+
+    /**
+     * Creates the indexes which the collection does not have yet. The calling thread waits until the indexes are
+     * built, even with the background option.
+     *
+     * @param collection collection
+     * @param models     index models
+     * @return names of the created indexes
+     * @throws com.mongodb.MongoException if the indexes cannot be listed or created
+     */
+    static List<String> reconcile(final MongoCollection<?> collection, final List<IndexModel> models) {
+        if (models.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<BsonDocument> existingIndexes = new ArrayList<>();
+        for (BsonDocument existingIndex : collection.listIndexes(BsonDocument.class)) {
+            existingIndexes.add(existingIndex);
+        }
+        final List<IndexModel> missingModels = new ArrayList<>();
+        for (IndexModel model : models) {
+            final BsonDocument keys = model.getKeys().toBsonDocument(BsonDocument.class, collection.getCodecRegistry());
+            final BsonDocument existingIndex = find(existingIndexes, keys);
+            if (existingIndex == null) {
+                missingModels.add(model);
+            } else if (!hasOptions(existingIndex, model.getOptions())) {
+                LOGGER.warn("The index {} of {} has other options than the declared ones, it is kept as is.",
+                        existingIndex.toJson(), collection.getNamespace());
+            }
+        }
+        if (missingModels.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<String> names = collection.createIndexes(missingModels);
+        LOGGER.info("Created the indexes {} of {}", names, collection.getNamespace());
+        return names;
+    }
+
+    /**
+     * Returns the key value of an index key kind.
+     *
+     * @param kind index key kind
+     * @return key value
+     */
+    private static BsonValue getKeyValue(final Index.Kind kind) {
+        switch (kind) {
+            case DESCENDING:
+                return new BsonInt32(-1);
+            case GEO_2DSPHERE:
+                return new BsonString("2dsphere");
+            case HASHED:
+                return new BsonString("hashed");
+            default:
+                return new BsonInt32(1);
+        }
+    }
+
+    /**
+     * Returns the existing index with the same keys.
+     *
+     * @param existingIndexes existing indexes
+     * @param keys            index keys
+     * @return existing index, or NULL if there is none
+     */
+    private static BsonDocument find(final List<BsonDocument> existingIndexes, final BsonDocument keys) {
+        for (BsonDocument existingIndex : existingIndexes) {
+            final BsonValue existingKeys = existingIndex.get(KEY);
+            if (existingKeys != null && existingKeys.isDocument() && isSameKeys(existingKeys.asDocument(), keys)) {
+                return existingIndex;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if the keys have the same element paths in the same order and the same kinds, a numeric key value
+     * is compared by its sign only, e.g. 1 and 1.0 are the same.
+     *
+     * @param existingKeys keys of an existing index
+     * @param keys         declared keys
+     * @return true if the keys are the same
+     */
+    private static boolean isSameKeys(final BsonDocument existingKeys, final BsonDocument keys) {
+        if (existingKeys.size() != keys.size()) {
+            return false;
+        }
+        final Iterator<Map.Entry<String, BsonValue>> existingIterator = existingKeys.entrySet().iterator();
+        for (Map.Entry<String, BsonValue> key : keys.entrySet()) {
+            final Map.Entry<String, BsonValue> existingKey = existingIterator.next();
+            if (!existingKey.getKey().equals(key.getKey())) {
+                return false;
+            }
+            final BsonValue existingValue = existingKey.getValue();
+            final BsonValue value = key.getValue();
+            if (existingValue.isNumber() && value.isNumber()) {
+                if (Math.signum(existingValue.asNumber().doubleValue()) != Math.signum(value.asNumber().doubleValue())) {
+                    return false;
+                }
+            } else if (!existingValue.equals(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if an existing index has the unique, sparse and time to live options of the declared index.
+     *
+     * @param existingIndex existing index
+     * @param options       declared options
+     * @return true if the options are the same
+     */
+    private static boolean hasOptions(final BsonDocument existingIndex, final IndexOptions options) {
+        final boolean unique = existingIndex.getBoolean("unique", BsonBoolean.FALSE).getValue();
+        final boolean sparse = existingIndex.getBoolean("sparse", BsonBoolean.FALSE).getValue();
+        final BsonValue expireAfter = existingIndex.get("expireAfterSeconds");
+        final Long expireAfterSeconds = options.getExpireAfter(TimeUnit.SECONDS);
+        final boolean sameExpiry = expireAfter == null ? expireAfterSeconds == null
+                : expireAfter.isNumber() && expireAfterSeconds != null
+                && expireAfter.asNumber().longValue() == expireAfterSeconds;
+        return unique == options.isUnique() && sparse == options.isSparse() && sameExpiry;
+    }
+}
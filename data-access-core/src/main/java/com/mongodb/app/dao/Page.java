@@ -0,0 +1,70 @@
+package com.mongodb.app.dao;
+
+import org.bson.types.ObjectId;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Page of documents.
+ * <p>
+ * A page of a keyset pagination, the next page is read after the last document of this page by its continuation
+ * token, or by its last id if the page is sorted by id only.
+ *
+ * @param <T> collection class
+ * @author nico.arianto
+ */
+public final class Page<T> {
+    private final List<T> documents;
+    private final ObjectId lastId;
+    private final String continuation;
+
+    /**
+     * Constructor.
+     *
+     * @param documents    documents
+     * @param lastId       id of the last document, or NULL if the page is empty
+     * @param continuation continuation token, or NULL if this is the last page
+     */
+    Page(List<T> documents, ObjectId lastId, String continuation) {
+        this.documents = Collections.unmodifiableList(documents);
+        this.lastId = lastId;
+        this.continuation = continuation;
+    }
+
+    /**
+     * Returns the documents of this page.
+     *
+     * @return documents
+     */
+    public List<T> getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Returns the id of the last document of this page.
+     *
+     * @return last id, or NULL if the page is empty
+     */
+    public ObjectId getLastId() {
+        return lastId;
+    }
+
+    /**
+     * Returns the continuation token of the next page.
+     *
+     * @return continuation token, or NULL if this is the last page
+     */
+    public String getContinuation() {
+        return continuation;
+    }
+
+    /**
+     * Returns true if there is a next page.
+     *
+     * @return true if there is a next page
+     */
+    public boolean hasNext() {
+        return continuation != null;
+    }
+}
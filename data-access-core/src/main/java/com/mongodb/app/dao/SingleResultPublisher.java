@@ -0,0 +1,76 @@
+package com.mongodb.app.dao;
+
+import com.mongodb.async.SingleResultCallback;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Single result publisher.
+ * <p>
+ * Publishes the result of an asynchronous driver operation, which is run on the first request of every subscriber. A
+ * NULL result, e.g. of an insert, completes the subscriber without any element.
+ *
+ * @param <R> result class
+ * @author nico.arianto
+ */
+final class SingleResultPublisher<R> implements Publisher<R> {
+    private final Consumer<SingleResultCallback<R>> operation;
+
+    /**
+     * Constructor.
+     *
+     * @param operation asynchronous operation, which completes the callback
+     */
+    SingleResultPublisher(Consumer<SingleResultCallback<R>> operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Subscribes to the result.
+     *
+     * @param subscriber subscriber
+     * @throws NullPointerException if the subscriber is NULL
+     */
+    @Override
+    public void subscribe(final Subscriber<? super R> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("The subscriber is null!");
+        }
+        final AtomicBoolean requested = new AtomicBoolean();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(final long n) {
+                if (!requested.compareAndSet(false, true)) {
+                    return;
+                }
+                if (n <= 0) {
+                    subscriber.onError(new IllegalArgumentException("The request must be positive, but it is " + n + "!"));
+                    return;
+                }
+                operation.accept((result, throwable) -> {
+                    if (cancelled.get()) {
+                        return;
+                    }
+                    if (throwable != null) {
+                        subscriber.onError(throwable);
+                        return;
+                    }
+                    if (result != null) {
+                        subscriber.onNext(result);
+                    }
+                    subscriber.onComplete();
+                });
+            }
+
+            @Override
+            public void cancel() {
+                cancelled.set(true);
+            }
+        });
+    }
+}
@@ -0,0 +1,219 @@
+package com.mongodb.app.dao;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Slab allocator.
+ * <p>
+ * Allocates blocks of off-heap memory from direct byte buffer slabs. Every block size is a power of two, from
+ * {@link #MIN_BLOCK_SIZE} up to the slab size, and every slab is split into blocks of a single size once it is needed
+ * by that block size. A freed block is kept in the free list of its block size, and a slab whose blocks are all free
+ * is taken back, so it can be split again by any block size. Slabs are never released to the operating system. A
+ * block is addressed by a handle, which has the slab index in its high 32 bits
+ * and the block offset in its low 32 bits.
+ * <p>
+ * The slab allocator is not thread-safe, its owner must serialize every call.
+ *
+ * @author nico.arianto
+ */
+final class SlabAllocator {
+    static final int MIN_BLOCK_SIZE = 64;
+    private static final int MIN_BLOCK_SHIFT = Integer.numberOfTrailingZeros(MIN_BLOCK_SIZE);
+    private final int slabSize;
+    private final int maxSlabs;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private final long[][] freeBlocks;
+    private final int[] freeCounts;
+    private int[] usedBlocks = new int[16];
+    private int[] emptySlabs = new int[16];
+    private int emptySlabCount;
+
+    /**
+     * Constructor.
+     *
+     * @param slabSize slab size in bytes, a power of two which is at least the minimum block size
+     * @param capacity off-heap capacity in bytes, which is rounded down to whole slabs
+     * @throws IllegalArgumentException if the slab size or the capacity is invalid
+     */
+    SlabAllocator(int slabSize, long capacity) {
+        if (slabSize < MIN_BLOCK_SIZE || Integer.bitCount(slabSize) != 1 || capacity < slabSize) {
+            throw new IllegalArgumentException("The slab size must be a power of two of at least " + MIN_BLOCK_SIZE
+                    + " bytes and not larger than the capacity!");
+        }
+        this.slabSize = slabSize;
+        this.maxSlabs = (int) Math.min(Integer.MAX_VALUE, capacity / slabSize);
+        final int sizeClasses = Integer.numberOfTrailingZeros(slabSize) - MIN_BLOCK_SHIFT + 1;
+        this.freeBlocks = new long[sizeClasses][];
+        this.freeCounts = new int[sizeClasses];
+    }
+
+    /**
+     * Returns the block size of a length.
+     *
+     * @param length length in bytes
+     * @return block size in bytes, or -1 if it is larger than a slab
+     */
+    int getBlockSize(final int length) {
+        if (length > slabSize) {
+            return -1;
+        }
+        return length <= MIN_BLOCK_SIZE ? MIN_BLOCK_SIZE : Integer.highestOneBit(length - 1) << 1;
+    }
+
+    /**
+     * Returns true if a block of a length can be allocated without freeing another block, i.e. there is a free block of
+     * its block size, an empty slab, or a slab is left.
+     *
+     * @param length length in bytes
+     * @return true if a block can be allocated
+     */
+    boolean canAllocate(final int length) {
+        final int blockSize = getBlockSize(length);
+        return blockSize >= 0 && (freeCounts[getSizeClass(blockSize)] > 0 || emptySlabCount > 0
+                || slabs.size() < maxSlabs);
+    }
+
+    /**
+     * Allocates a block.
+     *
+     * @param length length in bytes
+     * @return handle, or -1 if there is no free block of its block size, no empty slab and no slab is left
+     */
+    long allocate(final int length) {
+        final int blockSize = getBlockSize(length);
+        if (blockSize < 0) {
+            return -1;
+        }
+        final int sizeClass = getSizeClass(blockSize);
+        if (freeCounts[sizeClass] == 0) {
+            final long slabIndex;
+            if (emptySlabCount > 0) {
+                slabIndex = emptySlabs[--emptySlabCount];
+            } else if (slabs.size() < maxSlabs) {
+                slabIndex = slabs.size();
+                slabs.add(ByteBuffer.allocateDirect(slabSize));
+                if (usedBlocks.length < slabs.size()) {
+                    usedBlocks = Arrays.copyOf(usedBlocks, usedBlocks.length * 2);
+                }
+            } else {
+                return -1;
+            }
+            for (int offset = slabSize - blockSize; offset >= 0; offset -= blockSize) {
+                push(sizeClass, slabIndex << 32 | offset);
+            }
+        }
+        final long handle = freeBlocks[sizeClass][--freeCounts[sizeClass]];
+        usedBlocks[(int) (handle >>> 32)]++;
+        return handle;
+    }
+
+    /**
+     * Frees a block, its slab is taken back once all of its blocks are free.
+     *
+     * @param handle handle
+     * @param length length in bytes, which is allocated
+     */
+    void free(final long handle, final int length) {
+        final int sizeClass = getSizeClass(getBlockSize(length));
+        push(sizeClass, handle);
+        final int slabIndex = (int) (handle >>> 32);
+        if (--usedBlocks[slabIndex] == 0) {
+            reclaim(sizeClass, slabIndex);
+        }
+    }
+
+    /**
+     * Writes the remaining bytes of the source into a block.
+     *
+     * @param handle handle
+     * @param source source, its position is not changed
+     */
+    void write(final long handle, final ByteBuffer source) {
+        final ByteBuffer block = slabs.get((int) (handle >>> 32)).duplicate();
+        block.position((int) handle);
+        block.put(source.duplicate());
+    }
+
+    /**
+     * Reads a block into a new byte array.
+     *
+     * @param handle handle
+     * @param length length in bytes
+     * @return bytes
+     */
+    byte[] read(final long handle, final int length) {
+        final ByteBuffer block = slabs.get((int) (handle >>> 32)).duplicate();
+        block.position((int) handle);
+        final byte[] bytes = new byte[length];
+        block.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns the number of allocated slabs.
+     *
+     * @return slab count
+     */
+    int getSlabCount() {
+        return slabs.size();
+    }
+
+    /**
+     * Returns the number of slabs whose blocks are all free, and which can be split by any block size.
+     *
+     * @return empty slab count
+     */
+    int getEmptySlabCount() {
+        return emptySlabCount;
+    }
+
+    /**
+     * Returns the size class of a block size.
+     *
+     * @param blockSize block size in bytes
+     * @return size class
+     */
+    private static int getSizeClass(final int blockSize) {
+        return Integer.numberOfTrailingZeros(blockSize) - MIN_BLOCK_SHIFT;
+    }
+
+    /**
+     * Takes back an empty slab, by removing its blocks from the free list of its size class.
+     *
+     * @param sizeClass size class
+     * @param slabIndex slab index
+     */
+    private void reclaim(final int sizeClass, final int slabIndex) {
+        final long[] blocks = freeBlocks[sizeClass];
+        int count = 0;
+        for (int index = 0; index < freeCounts[sizeClass]; index++) {
+            if ((int) (blocks[index] >>> 32) != slabIndex) {
+                blocks[count++] = blocks[index];
+            }
+        }
+        freeCounts[sizeClass] = count;
+        if (emptySlabCount == emptySlabs.length) {
+            emptySlabs = Arrays.copyOf(emptySlabs, emptySlabs.length * 2);
+        }
+        emptySlabs[emptySlabCount++] = slabIndex;
+    }
+
+    /**
+     * Pushes a handle to the free list of a size class.
+     *
+     * @param sizeClass size class
+     * @param handle    handle
+     */
+    private void push(final int sizeClass, final long handle) {
+        long[] blocks = freeBlocks[sizeClass];
+        if (blocks == null) {
+            blocks = freeBlocks[sizeClass] = new long[16];
+        } else if (freeCounts[sizeClass] == blocks.length) {
+            blocks = freeBlocks[sizeClass] = Arrays.copyOf(blocks, blocks.length * 2);
+        }
+        blocks[freeCounts[sizeClass]++] = handle;
+    }
+}
@@ -0,0 +1,114 @@
+package com.mongodb.app.dao;
+
+import org.bson.RawBsonDocument;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Snapshot table.
+ * <p>
+ * Keeps the raw BSON document which a collection object was decoded from, by the identity of the collection object, so
+ * its changed properties can be computed later. A collection object is weakly referenced, so its snapshot is dropped
+ * once the collection object is garbage collected.
+ *
+ * @param <T> collection class
+ * @author nico.arianto
+ */
+final class SnapshotTable<T> {
+    private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+    private final Map<Key<T>, RawBsonDocument> snapshots = new HashMap<>();
+
+    /**
+     * Puts the snapshot of a collection object.
+     *
+     * @param document collection object
+     * @param snapshot raw BSON document
+     */
+    synchronized void put(final T document, final RawBsonDocument snapshot) {
+        expunge();
+        snapshots.put(new Key<>(document, queue), snapshot);
+    }
+
+    /**
+     * Returns the snapshot of a collection object.
+     *
+     * @param document collection object
+     * @return raw BSON document, or NULL if the collection object is not tracked
+     */
+    synchronized RawBsonDocument get(final T document) {
+        expunge();
+        return snapshots.get(new Key<>(document, null));
+    }
+
+    /**
+     * Removes the snapshot of a collection object.
+     *
+     * @param document collection object
+     */
+    synchronized void remove(final T document) {
+        expunge();
+        snapshots.remove(new Key<>(document, null));
+    }
+
+    /**
+     * Returns the number of tracked collection objects.
+     *
+     * @return size
+     */
+    synchronized int size() {
+        expunge();
+        return snapshots.size();
+    }
+
+    /**
+     * Removes the snapshots of the garbage collected collection objects, the caller holds the lock.
+     */
+    private void expunge() {
+        Reference<? extends T> reference;
+        while ((reference = queue.poll()) != null) {
+            snapshots.remove(reference);
+        }
+    }
+
+    /**
+     * Weak identity key.
+     *
+     * @param <T> collection class
+     * @author nico.arianto
+     */
+    private static final class Key<T> extends WeakReference<T> {
+        private final int hash;
+
+        /**
+         * Constructor.
+         *
+         * @param referent collection object
+         * @param queue    reference queue, or NULL for a lookup key
+         */
+        private Key(T referent, ReferenceQueue<T> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (object == this) {
+                return true;
+            }
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            final Object referent = get();
+            return referent != null && referent == ((Key<?>) object).get();
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.mongodb.app.dao;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.app.collection.AbstractCollection;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonBinaryReader;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.mongodb.client.model.Filters.eq;
+
+/**
+ * Write-behind buffer.
+ * <p>
+ * Coalesces the document replacements of a collection by id, so only the last replacement of a document within a
+ * window is written. A replacement is encoded when it is buffered, so a later change of the document object is not
+ * written, and every {@link #get(ObjectId)} decodes its own copy. The pending replacements are flushed as a single
+ * unordered bulk write when the window elapses, when the number of pending documents reaches its limit, on
+ * {@link #flush()} and on {@link #close()}. A flush by the limit is run by the writing thread, which is the
+ * back-pressure of the buffer.
+ * <p>
+ * The replacements which fail to be written are pending again, unless they are replaced or discarded meanwhile, and
+ * are retried by the next flush, so a replacement which can never be written, e.g. by a duplicate key, is retried
+ * until it is discarded. A pending replacement is lost if the process dies before it is flushed, so the buffer should
+ * be used only for documents which may lose their last updates.
+ *
+ * @param <T> collection class
+ * @author nico.arianto
+ */
+public final class WriteBehindBuffer<T extends AbstractCollection> implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindBuffer.class);
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+    private final MongoCollection<T> collection;
+    private final Codec<T> codec;
+    private final int maxPending;
+    private final ScheduledExecutorService scheduler;
+    private final Object flushLock = new Object();
+    private final AtomicLong updateCount = new AtomicLong();
+    private final AtomicLong writeCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private Map<ObjectId, Replacement> pending = new LinkedHashMap<>();
+    private Map<ObjectId, Replacement> flushing = new LinkedHashMap<>();
+    private boolean closed;
+
+    /**
+     * Constructor, the window is flushed by a daemon thread of the buffer.
+     *
+     * @param collection collection
+     * @param maxPending maximum number of pending documents
+     * @param window     flush window
+     * @param unit       time unit of the flush window
+     * @throws IllegalArgumentException if the maximum number of pending documents or the window is not positive
+     */
+    public WriteBehindBuffer(MongoCollection<T> collection, int maxPending, long window, TimeUnit unit) {
+        this(collection, collection.getCodecRegistry().get(collection.getDocumentClass()), maxPending,
+                Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "write-behind-" + collection.getNamespace());
+            thread.setDaemon(true);
+            return thread;
+        }));
+        if (window <= 0) {
+            scheduler.shutdown();
+            throw new IllegalArgumentException("The flush window must be positive!");
+        }
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, window, window, unit);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param collection collection
+     * @param codec      codec of the collection class
+     * @param maxPending maximum number of pending documents
+     * @param scheduler  scheduler of the flush window, which is shut down on close, or NULL
+     * @throws IllegalArgumentException if the maximum number of pending documents is not positive
+     */
+    WriteBehindBuffer(MongoCollection<T> collection, Codec<T> codec, int maxPending,
+                      ScheduledExecutorService scheduler) {
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("The maximum number of pending documents must be positive!");
+        }
+        this.collection = collection;
+        this.codec = codec;
+        this.maxPending = maxPending;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Buffers the replacement of a document by its id, see {@link #replace(ObjectId, AbstractCollection, Bson)}.
+     *
+     * @param id       id
+     * @param document document
+     * @throws IllegalStateException if the buffer is closed
+     */
+    public void replace(final ObjectId id, final T document) {
+        replace(id, document, eq(AbstractCollection.COLLECTION_ID, id));
+    }
+
+    /**
+     * Buffers the replacement of a document, which supersedes any pending replacement of the same document. The
+     * document is encoded by the calling thread. If the number of pending documents reaches its limit, they are
+     * flushed by the calling thread.
+     *
+     * @param id       id
+     * @param document document
+     * @param filter   filter of the id, and of the shard key if any
+     * @throws IllegalStateException if the buffer is closed
+     */
+    public void replace(final ObjectId id, final T document, final Bson filter) {
+        replaceEncoded(id, new RawBsonDocument(document, codec), filter);
+    }
+
+    /**
+     * Buffers the replacement of a document which is already encoded, see
+     * {@link #replace(ObjectId, AbstractCollection, Bson)}.
+     *
+     * @param id       id
+     * @param document encoded document
+     * @param filter   filter of the id, and of the shard key if any
+     * @throws IllegalStateException if the buffer is closed
+     */
+    void replaceEncoded(final ObjectId id, final RawBsonDocument document, final Bson filter) {
+        final Replacement replacement = new Replacement(document, filter);
+        final boolean full;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The write-behind buffer is closed!");
+            }
+            pending.put(id, replacement);
+            full = pending.size() >= maxPending;
+        }
+        updateCount.incrementAndGet();
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Returns a copy of the pending replacement of a document, which is either buffered or being flushed.
+     *
+     * @param id id
+     * @return document, or NULL if there is no pending replacement
+     */
+    public T get(final ObjectId id) {
+        final RawBsonDocument document = getDocument(id);
+        if (document == null) {
+            return null;
+        }
+        try (BsonBinaryReader reader = new BsonBinaryReader(document.getByteBuffer().asNIO())) {
+            return codec.decode(reader, DecoderContext.builder().build());
+        }
+    }
+
+    /**
+     * Returns the encoded pending replacement of a document, which is either buffered or being flushed.
+     *
+     * @param id id
+     * @return raw BSON document, or NULL if there is no pending replacement
+     */
+    synchronized RawBsonDocument getDocument(final ObjectId id) {
+        Replacement replacement = pending.get(id);
+        if (replacement == null) {
+            replacement = flushing.get(id);
+        }
+        return replacement == null ? null : replacement.document;
+    }
+
+    /**
+     * Discards the pending replacement of a document, e.g. before it is deleted, a replacement which is being flushed
+     * is not retried if it fails.
+     *
+     * @param id id
+     */
+    public synchronized void discard(final ObjectId id) {
+        pending.remove(id);
+        flushing.remove(id);
+    }
+
+    /**
+     * Flushes the pending replacements as a single unordered bulk write.
+     *
+     * @throws com.mongodb.MongoException if the bulk write fails, the failed replacements are pending again
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            final List<ObjectId> ids;
+            final List<WriteModel<RawBsonDocument>> requests;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                ids = new ArrayList<>(pending.keySet());
+                requests = new ArrayList<>(pending.size());
+                for (Replacement replacement : pending.values()) {
+                    requests.add(new ReplaceOneModel<>(replacement.filter, replacement.document));
+                }
+                flushing = pending;
+                pending = new LinkedHashMap<>();
+            }
+            List<ObjectId> failedIds = ids;
+            try {
+                final BulkWriteResult result = collection.withDocumentClass(RawBsonDocument.class)
+                        .bulkWrite(requests, UNORDERED);
+                LOGGER.debug("Write-behind bulk write: {}", result);
+                failedIds = new ArrayList<>(0);
+                writeCount.addAndGet(requests.size());
+                flushCount.incrementAndGet();
+            } catch (MongoBulkWriteException e) {
+                if (!e.getWriteErrors().isEmpty() && e.getWriteConcernError() == null) {
+                    failedIds = getFailedIds(ids, e.getWriteErrors());
+                    writeCount.addAndGet(requests.size() - failedIds.size());
+                }
+                failureCount.incrementAndGet();
+                throw e;
+            } catch (RuntimeException e) {
+                failureCount.incrementAndGet();
+                throw e;
+            } finally {
+                synchronized (this) {
+                    retry(failedIds);
+                    flushing = new LinkedHashMap<>();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the ids of the failed replacements of a bulk write.
+     *
+     * @param ids         ids in request order
+     * @param writeErrors write errors, by request index
+     * @return failed ids in request order
+     */
+    private static List<ObjectId> getFailedIds(final List<ObjectId> ids, final List<BulkWriteError> writeErrors) {
+        final Set<Integer> failedIndexes = new HashSet<>();
+        for (BulkWriteError writeError : writeErrors) {
+            failedIndexes.add(writeError.getIndex());
+        }
+        final List<ObjectId> failedIds = new ArrayList<>(failedIndexes.size());
+        for (int index = 0; index < ids.size(); index++) {
+            if (failedIndexes.contains(index)) {
+                failedIds.add(ids.get(index));
+            }
+        }
+        return failedIds;
+    }
+
+    /**
+     * Makes the failed replacements pending again, ahead of the newer ones, unless they are replaced or discarded
+     * meanwhile, the caller holds the lock.
+     *
+     * @param failedIds failed ids
+     */
+    private void retry(final List<ObjectId> failedIds) {
+        if (failedIds.isEmpty()) {
+            return;
+        }
+        final Map<ObjectId, Replacement> retried = new LinkedHashMap<>();
+        for (ObjectId id : failedIds) {
+            final Replacement replacement = flushing.get(id);
+            if (replacement != null && !pending.containsKey(id)) {
+                retried.put(id, replacement);
+            }
+        }
+        if (!retried.isEmpty()) {
+            retried.putAll(pending);
+            pending = retried;
+        }
+    }
+
+    /**
+     * Flushes the pending replacements, a failure is logged.
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOGGER.error("Write-behind flush failed!", e);
+        }
+    }
+
+    /**
+     * Flushes the pending replacements and stops the flush window, a closed buffer rejects any replacement.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        flush();
+    }
+
+    /**
+     * Returns the number of pending documents.
+     *
+     * @return queue depth
+     */
+    public synchronized int getQueueDepth() {
+        return pending.size();
+    }
+
+    /**
+     * Returns the number of buffered replacements.
+     *
+     * @return update count
+     */
+    public long getUpdateCount() {
+        return updateCount.get();
+    }
+
+    /**
+     * Returns the number of written replacements, the difference to the update count is coalesced or pending.
+     *
+     * @return write count
+     */
+    public long getWriteCount() {
+        return writeCount.get();
+    }
+
+    /**
+     * Returns the number of successful flushes.
+     *
+     * @return flush count
+     */
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    /**
+     * Returns the number of failed flushes.
+     *
+     * @return failure count
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "WriteBehindBuffer{queueDepth=" + getQueueDepth() + ", updateCount=" + getUpdateCount()
+                + ", writeCount=" + getWriteCount() + ", flushCount=" + getFlushCount()
+                + ", failureCount=" + getFailureCount() + '}';
+    }
+
+    /**
+     * Buffered replacement.
+     *
+     * @author nico.arianto
+     */
+    private static final class Replacement {
+        private final RawBsonDocument document;
+        private final Bson filter;
+
+        /**
+         * Constructor.
+         *
+         * @param document encoded document
+         * @param filter   filter of the id, and of the shard key if any
+         */
+        private Replacement(RawBsonDocument document, Bson filter) {
+            this.document = document;
+            this.filter = filter;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.mongodb.app.dao;
+
+import com.mongodb.WriteConcern;
+
+/**
+ * Write tier.
+ * <p>
+ * A named write concern of a DAO or of a single write, from the fastest acknowledged write to the most durable one,
+ * plus an unacknowledged tier for bulk reloads which are verified afterwards, e.g. by a count.
+ *
+ * @author nico.arianto
+ */
+public enum WriteTier {
+    /**
+     * Acknowledged by the primary, without waiting for the journal.
+     */
+    FAST(WriteConcern.W1.withJournal(false)),
+    /**
+     * Acknowledged by a majority of the replica set members, after the write is in the journal.
+     */
+    DURABLE(WriteConcern.MAJORITY.withJournal(true)),
+    /**
+     * Not acknowledged, a failed write is never reported, e.g. a duplicate key.
+     */
+    FIRE_AND_FORGET(WriteConcern.UNACKNOWLEDGED);
+
+    private final WriteConcern writeConcern;
+
+    /**
+     * Constructor.
+     *
+     * @param writeConcern write concern
+     */
+    WriteTier(WriteConcern writeConcern) {
+        this.writeConcern = writeConcern;
+    }
+
+    /**
+     * Returns the write concern.
+     *
+     * @return write concern
+     */
+    public WriteConcern getWriteConcern() {
+        return writeConcern;
+    }
+}
@@ -1,16 +1,27 @@
 package com.mongodb.app.codec;
 
 import com.mongodb.MongoClient;
+import com.mongodb.app.annotation.ElementName;
+import com.mongodb.app.annotation.PropertyOrder;
 import mockit.Deencapsulation;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInvalidOperationException;
 import org.bson.BsonReader;
+import org.bson.BsonString;
 import org.bson.BsonWriter;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
 import org.bson.codecs.DecoderContext;
 import org.bson.codecs.EncoderContext;
 import org.bson.codecs.configuration.CodecConfigurationException;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistries;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.json.JsonReader;
 import org.bson.json.JsonWriter;
+import org.bson.types.ObjectId;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
@@ -222,6 +233,323 @@ public class AbstractCodecTest {
         assertEquals(document.toJson(), writer.toString());
     }
 
+    /**
+     * Test encode({@link BsonWriter}, T, {@link EncoderContext}) and decode({@link BsonReader}, {@link DecoderContext})
+     * methods with an element name annotation.
+     */
+    @Test
+    public void testEncodeAndDecodeWithElementName() {
+        final AbstractCodec<BeanElementNameTest> elementNameCodec = new AbstractCodec<BeanElementNameTest>(MongoClient.getDefaultCodecRegistry(), BeanElementNameTest.class) {
+        };
+        final BeanElementNameTest inputBean = new BeanElementNameTest();
+        inputBean.setStringProp(stringProp);
+        final Document document = new Document();
+        document.put("string_prop", stringProp);
+        final StringWriter writer = new StringWriter();
+        elementNameCodec.encode(new JsonWriter(writer), inputBean, EncoderContext.builder().build());
+        assertEquals(document.toJson(), writer.toString());
+        final BeanElementNameTest actualBean = elementNameCodec.decode(new JsonReader(writer.toString()), DecoderContext.builder().build());
+        assertEquals(stringProp, actualBean.getStringProp());
+    }
+
+    /**
+     * Test decode({@link BsonReader}, {@link DecoderContext}) method of a codec which overrides getAttributeName(String)
+     * only, a known alias is mapped to its property by the override.
+     */
+    @Test
+    public void testDecodeWithAttributeName() {
+        final AbstractCodec<AbstractCollectionCodecTest.CollectionTest> attributeNameCodec =
+                new AbstractCodec<AbstractCollectionCodecTest.CollectionTest>(MongoClient.getDefaultCodecRegistry(),
+                        AbstractCollectionCodecTest.CollectionTest.class) {
+
+                    @Override
+                    protected String getAttributeName(final String bsonElementName) {
+                        return "_id".equals(bsonElementName) ? "id" : super.getAttributeName(bsonElementName);
+                    }
+                };
+        final ObjectId id = new ObjectId();
+        final Document document = new Document("_id", id).append("stringProp", stringProp);
+        final AbstractCollectionCodecTest.CollectionTest actualBean = attributeNameCodec.decode(
+                new JsonReader(document.toJson()), DecoderContext.builder().build());
+        assertEquals(id, actualBean.getId());
+        assertEquals(stringProp, actualBean.getStringProp());
+    }
+
+    /**
+     * Test encode({@link BsonWriter}, T, {@link EncoderContext}) and decode({@link BsonReader}, {@link DecoderContext})
+     * methods look up each codec from the registry only once.
+     */
+    @Test
+    public void testEncodeAndDecodeWithCachedCodec() {
+        final Map<Class<?>, Integer> lookups = new HashMap<>();
+        final CodecRegistry countingRegistry = new CodecRegistry() {
+            @Override
+            public <S> Codec<S> get(final Class<S> clazz) {
+                lookups.merge(clazz, 1, Integer::sum);
+                return MongoClient.getDefaultCodecRegistry().get(clazz);
+            }
+        };
+        final AbstractCodec<BeanTest> cachedCodec = new AbstractCodec<BeanTest>(countingRegistry, BeanTest.class) {
+        };
+        for (int index = 0; index < 3; index++) {
+            final StringWriter writer = new StringWriter();
+            cachedCodec.encode(new JsonWriter(writer), bean, EncoderContext.builder().build());
+            assertEquals(bean, cachedCodec.decode(new JsonReader(writer.toString()), DecoderContext.builder().build()));
+        }
+        assertFalse(lookups.isEmpty());
+        for (Map.Entry<Class<?>, Integer> lookup : lookups.entrySet()) {
+            assertEquals(lookup.getKey().getName(), Integer.valueOf(1), lookup.getValue());
+        }
+    }
+
+    /**
+     * Test encode({@link BsonWriter}, T, {@link EncoderContext}) and decode({@link BsonReader}, {@link DecoderContext})
+     * methods with primitive properties.
+     */
+    @Test
+    public void testEncodeAndDecodeWithPrimitiveProperty() {
+        final AbstractCodec<BeanPrimitiveTest> primitiveCodec = new AbstractCodec<BeanPrimitiveTest>(MongoClient.getDefaultCodecRegistry(), BeanPrimitiveTest.class) {
+        };
+        final BeanPrimitiveTest inputBean = new BeanPrimitiveTest();
+        inputBean.setIntProp(intProp);
+        inputBean.setLongProp(longProp);
+        inputBean.setDoubleProp(doubleProp);
+        inputBean.setIntArrayProp(new int[]{1, 2, 3, 4, 5});
+        inputBean.setLongArrayProp(new long[]{10l, 20l});
+        inputBean.setDoubleArrayProp(new double[]{-73.9557413, 40.7720266});
+        final StringWriter writer = new StringWriter();
+        primitiveCodec.encode(new JsonWriter(writer), inputBean, EncoderContext.builder().build());
+        final Document document = Document.parse(writer.toString());
+        assertEquals(intProp, document.get("intProp"));
+        assertEquals(longProp, document.get("longProp"));
+        assertEquals(Arrays.asList(-73.9557413, 40.7720266), document.get("doubleArrayProp"));
+        final BeanPrimitiveTest actualBean = primitiveCodec.decode(new JsonReader(writer.toString()), DecoderContext.builder().build());
+        assertEquals(inputBean, actualBean);
+    }
+
+    /**
+     * Test decode({@link BsonReader}, {@link DecoderContext}) method with numeric conversion, singular and NULL values to
+     * primitive properties.
+     */
+    @Test
+    public void testDecodeWithPrimitivePropertyConversion() {
+        final AbstractCodec<BeanPrimitiveTest> primitiveCodec = new AbstractCodec<BeanPrimitiveTest>(MongoClient.getDefaultCodecRegistry(), BeanPrimitiveTest.class) {
+        };
+        final Document document = new Document();
+        document.append("intProp", null);
+        document.append("longProp", intProp);
+        document.append("doubleProp", intProp);
+        document.append("intArrayProp", intProp);
+        document.append("doubleArrayProp", Arrays.asList(1, 2l, 3.5, 4, 5, 6));
+        final BeanPrimitiveTest expectedBean = new BeanPrimitiveTest();
+        expectedBean.setLongProp(intProp);
+        expectedBean.setDoubleProp(intProp);
+        expectedBean.setIntArrayProp(new int[]{intProp});
+        expectedBean.setDoubleArrayProp(new double[]{1, 2, 3.5, 4, 5, 6});
+        final BeanPrimitiveTest actualBean = primitiveCodec.decode(new JsonReader(document.toJson()), DecoderContext.builder().build());
+        assertEquals(expectedBean, actualBean);
+    }
+
+    /**
+     * Test decode({@link BsonReader}, {@link DecoderContext}) method with numeric conversion, a whole double value is
+     * converted to an int or a long property, and a value which does not convert exactly is rejected.
+     */
+    @Test
+    public void testDecodeWithInexactPrimitivePropertyConversion() {
+        final AbstractCodec<BeanPrimitiveTest> primitiveCodec = new AbstractCodec<BeanPrimitiveTest>(MongoClient.getDefaultCodecRegistry(), BeanPrimitiveTest.class) {
+        };
+        final BeanPrimitiveTest actualBean = primitiveCodec.decode(new JsonReader(new Document("intProp", 2.0)
+                .append("longProp", 3e9).toJson()), DecoderContext.builder().build());
+        assertEquals(2, actualBean.getIntProp());
+        assertEquals(3000000000L, actualBean.getLongProp());
+        final Map<Document, String> documents = new LinkedHashMap<>();
+        documents.put(new Document("intProp", 1.5), "1.5 is not an int value!");
+        documents.put(new Document("intProp", 3e9), "3.0E9 is not an int value!");
+        documents.put(new Document("intProp", 3000000000L), "3000000000 is not an int value!");
+        documents.put(new Document("intArrayProp", Arrays.asList(1, 2.5)), "2.5 is not an int value!");
+        documents.put(new Document("longProp", 1e19), "1.0E19 is not a long value!");
+        documents.put(new Document("longArrayProp", Collections.singletonList(Double.NaN)), "NaN is not a long value!");
+        for (Map.Entry<Document, String> document : documents.entrySet()) {
+            try {
+                primitiveCodec.decode(new JsonReader(document.getKey().toJson()), DecoderContext.builder().build());
+                fail(document.getKey().toJson());
+            } catch (BsonInvalidOperationException e) {
+                assertEquals(document.getValue(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Test getElementPath(String) method.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetElementPath() {
+        final CodecRegistry registry = CodecRegistries.fromRegistries(CodecRegistries.fromProviders(new CodecProvider() {
+            @Override
+            public <S> Codec<S> get(final Class<S> clazz, final CodecRegistry registry) {
+                return clazz == BeanElementNameTest.class ? (Codec<S>) new AbstractCodec<BeanElementNameTest>(registry, BeanElementNameTest.class) {
+                } : null;
+            }
+        }), MongoClient.getDefaultCodecRegistry());
+        final AbstractCodec<BeanNestedTest> nestedCodec = new AbstractCodec<BeanNestedTest>(registry, BeanNestedTest.class) {
+        };
+        assertEquals("nested_prop", nestedCodec.getElementPath("nestedProp"));
+        assertEquals("nested_prop.string_prop", nestedCodec.getElementPath("nestedProp.stringProp"));
+        assertEquals("nested_prop.unknownProp", nestedCodec.getElementPath("nestedProp.unknownProp"));
+        assertEquals("stringProp.length", codec.getElementPath("stringProp.length"));
+        assertEquals("unknownProp.length", codec.getElementPath("unknownProp.length"));
+    }
+
+    /**
+     * Test encode({@link BsonWriter}, T, {@link EncoderContext}) method writes the properties in declaration order.
+     */
+    @Test
+    public void testEncodeWithDeclarationOrder() {
+        final StringWriter writer = new StringWriter();
+        codec.encode(new JsonWriter(writer), bean, EncoderContext.builder().build());
+        assertEquals(json, writer.toString());
+    }
+
+    /**
+     * Test encode({@link BsonWriter}, T, {@link EncoderContext}) method writes the properties in the order of
+     * {@link PropertyOrder}, then the remaining properties in declaration order.
+     */
+    @Test
+    public void testEncodeWithPropertyOrder() {
+        final AbstractCodec<BeanOrderTest> orderCodec = new AbstractCodec<BeanOrderTest>(MongoClient.getDefaultCodecRegistry(), BeanOrderTest.class) {
+        };
+        final BeanOrderTest inputBean = new BeanOrderTest();
+        inputBean.setStringProp(stringProp);
+        inputBean.setIntProp(intProp);
+        inputBean.setLongProp(longProp);
+        inputBean.setBooleanProp(booleanProp);
+        final StringWriter writer = new StringWriter();
+        orderCodec.encode(new JsonWriter(writer), inputBean, EncoderContext.builder().build());
+        assertEquals(Arrays.asList("longProp", "stringProp", "intProp", "booleanProp"),
+                new ArrayList<>(Document.parse(writer.toString()).keySet()));
+    }
+
+    /**
+     * Test decodeInto(T, {@link BsonReader}, {@link DecoderContext}) method, the current list and set are refilled.
+     */
+    @Test
+    public void testDecodeInto() {
+        final BeanTest target = new BeanTest();
+        final List<Long> currentList = new ArrayList<>(Arrays.asList(1l, 2l, 3l, 4l, 5l, 6l, 7l));
+        final Set<Double> currentSet = new HashSet<>(Arrays.asList(1.0, 2.0));
+        target.setStringProp("currentStringProp");
+        target.setListProp(currentList);
+        target.setSetProp(currentSet);
+        final BeanTest actualBean = codec.decodeInto(target, new JsonReader(json), DecoderContext.builder().build());
+        assertSame(target, actualBean);
+        assertEquals(bean, actualBean);
+        assertSame(currentList, actualBean.getListProp());
+        assertSame(currentSet, actualBean.getSetProp());
+        assertEquals(setProp, actualBean.getSetProp());
+        codec.decodeInto(target, new JsonReader(new Document("stringProp", stringProp).toJson()), DecoderContext.builder().build());
+        final BeanTest expectedBean = new BeanTest();
+        expectedBean.setStringProp(stringProp);
+        assertEquals(expectedBean, target);
+        assertNull(target.getSetProp());
+    }
+
+    /**
+     * Test decodeInto(T, {@link BsonReader}, {@link DecoderContext}) method, the current nested object is recycled.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDecodeIntoWithNestedProperty() {
+        final CodecRegistry registry = CodecRegistries.fromRegistries(CodecRegistries.fromProviders(new CodecProvider() {
+            @Override
+            public <S> Codec<S> get(final Class<S> clazz, final CodecRegistry registry) {
+                return clazz == BeanElementNameTest.class ? (Codec<S>) new AbstractCodec<BeanElementNameTest>(registry, BeanElementNameTest.class) {
+                } : null;
+            }
+        }), MongoClient.getDefaultCodecRegistry());
+        final AbstractCodec<BeanNestedTest> nestedCodec = new AbstractCodec<BeanNestedTest>(registry, BeanNestedTest.class) {
+        };
+        final BeanNestedTest target = new BeanNestedTest();
+        final BeanElementNameTest currentNested = new BeanElementNameTest();
+        target.setNestedProp(currentNested);
+        final String nestedJson = new Document("nested_prop", new Document("string_prop", stringProp)).toJson();
+        nestedCodec.decodeInto(target, new JsonReader(nestedJson), DecoderContext.builder().build());
+        assertSame(currentNested, target.getNestedProp());
+        assertEquals(stringProp, currentNested.getStringProp());
+        nestedCodec.decodeInto(target, new JsonReader(new Document().toJson()), DecoderContext.builder().build());
+        assertNull(target.getNestedProp());
+    }
+
+    /**
+     * Test recycling() method, every document is decoded into the same collection object.
+     */
+    @Test
+    public void testRecycling() {
+        final Codec<BeanTest> recyclingCodec = codec.recycling();
+        assertEquals(BeanTest.class, recyclingCodec.getEncoderClass());
+        final BeanTest firstBean = recyclingCodec.decode(new JsonReader(json), DecoderContext.builder().build());
+        assertEquals(bean, firstBean);
+        final BeanTest secondBean = recyclingCodec.decode(new JsonReader(new Document("intProp", intProp).toJson()), DecoderContext.builder().build());
+        assertSame(firstBean, secondBean);
+        assertEquals(intProp, secondBean.getIntProp());
+        assertNull(secondBean.getStringProp());
+        final StringWriter writer = new StringWriter();
+        recyclingCodec.encode(new JsonWriter(writer), bean, EncoderContext.builder().build());
+        assertEquals(json, writer.toString());
+    }
+
+    /**
+     * Test getPropertyValue(Object, String) method, a nested property is read through the codec of its property type.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetPropertyValue() {
+        final CodecRegistry registry = CodecRegistries.fromRegistries(CodecRegistries.fromProviders(new CodecProvider() {
+            @Override
+            public <S> Codec<S> get(final Class<S> clazz, final CodecRegistry registry) {
+                return clazz == BeanElementNameTest.class ? (Codec<S>) new AbstractCodec<BeanElementNameTest>(registry, BeanElementNameTest.class) {
+                } : null;
+            }
+        }), MongoClient.getDefaultCodecRegistry());
+        final AbstractCodec<BeanNestedTest> nestedCodec = new AbstractCodec<BeanNestedTest>(registry, BeanNestedTest.class) {
+        };
+        final BeanNestedTest bean = new BeanNestedTest();
+        assertNull(nestedCodec.getPropertyValue(bean, "nestedProp.stringProp"));
+        final BeanElementNameTest nestedBean = new BeanElementNameTest();
+        nestedBean.setStringProp("nested");
+        bean.setNestedProp(nestedBean);
+        assertEquals(nestedBean, nestedCodec.getPropertyValue(bean, "nestedProp"));
+        assertEquals("nested", nestedCodec.getPropertyValue(bean, "nestedProp.stringProp"));
+        try {
+            nestedCodec.getPropertyValue(bean, "unknownProp");
+            fail();
+        } catch (CodecConfigurationException e) {
+            assertTrue(e.getMessage().contains("unknownProp"));
+        }
+    }
+
+    /**
+     * Test getUpdate(BsonDocument, BsonDocument) method, a changed element is set by its element name, a missing
+     * element is unset, and an element which is not a property is ignored.
+     */
+    @Test
+    public void testGetUpdate() {
+        final AbstractCodec<BeanElementNameTest> elementNameCodec = new AbstractCodec<BeanElementNameTest>(MongoClient.getDefaultCodecRegistry(), BeanElementNameTest.class) {
+        };
+        final BeanElementNameTest inputBean = new BeanElementNameTest();
+        inputBean.setStringProp(stringProp);
+        final BsonDocument snapshot = new BsonDocument();
+        snapshot.putAll(new RawBsonDocument(inputBean, elementNameCodec));
+        snapshot.put("unknown", new BsonInt32(1));
+        assertTrue(elementNameCodec.getUpdate(snapshot, new RawBsonDocument(inputBean, elementNameCodec)).isEmpty());
+        inputBean.setStringProp("changed");
+        assertEquals(new BsonDocument("$set", new BsonDocument("string_prop", new BsonString("changed"))),
+                elementNameCodec.getUpdate(snapshot, new RawBsonDocument(inputBean, elementNameCodec)));
+        inputBean.setStringProp(null);
+        assertEquals(new BsonDocument("$unset", new BsonDocument("string_prop", new BsonString(""))),
+                elementNameCodec.getUpdate(snapshot, new RawBsonDocument(inputBean, elementNameCodec)));
+    }
+
     /**
      * Test getEncoderClass() method.
      */
@@ -486,6 +814,15 @@ public class AbstractCodecTest {
         }
     }
 
+    /**
+     * Java Bean with property order - test class.
+     *
+     * @author nico.arianto
+     */
+    @PropertyOrder({"longProp", "stringProp"})
+    public static class BeanOrderTest extends BeanTest {
+    }
+
     /**
      * Java Bean Queue - test class.
      *
@@ -554,6 +891,206 @@ public class AbstractCodecTest {
         }
     }
 
+    /**
+     * Java Bean Element Name - test class.
+     *
+     * @author nico.arianto
+     */
+    public static class BeanElementNameTest {
+        @ElementName("string_prop")
+        private String stringProp;
+
+        /**
+         * Returns string property.
+         *
+         * @return string property
+         */
+        public String getStringProp() {
+            return stringProp;
+        }
+
+        /**
+         * Sets string property.
+         *
+         * @param stringProp string property
+         */
+        public void setStringProp(String stringProp) {
+            this.stringProp = stringProp;
+        }
+    }
+
+    /**
+     * Java Bean Nested - test class.
+     *
+     * @author nico.arianto
+     */
+    public static class BeanNestedTest {
+        @ElementName("nested_prop")
+        private BeanElementNameTest nestedProp;
+
+        /**
+         * Returns nested property.
+         *
+         * @return nested property
+         */
+        public BeanElementNameTest getNestedProp() {
+            return nestedProp;
+        }
+
+        /**
+         * Sets nested property.
+         *
+         * @param nestedProp nested property
+         */
+        public void setNestedProp(BeanElementNameTest nestedProp) {
+            this.nestedProp = nestedProp;
+        }
+    }
+
+    /**
+     * Java Bean Primitive - test class.
+     *
+     * @author nico.arianto
+     */
+    public static class BeanPrimitiveTest {
+        private int intProp;
+        private long longProp;
+        private double doubleProp;
+        private int[] intArrayProp;
+        private long[] longArrayProp;
+        private double[] doubleArrayProp;
+
+        /**
+         * Returns integer property.
+         *
+         * @return integer property
+         */
+        public int getIntProp() {
+            return intProp;
+        }
+
+        /**
+         * Sets integer property.
+         *
+         * @param intProp integer property
+         */
+        public void setIntProp(int intProp) {
+            this.intProp = intProp;
+        }
+
+        /**
+         * Returns long property.
+         *
+         * @return long property
+         */
+        public long getLongProp() {
+            return longProp;
+        }
+
+        /**
+         * Sets long property.
+         *
+         * @param longProp long property
+         */
+        public void setLongProp(long longProp) {
+            this.longProp = longProp;
+        }
+
+        /**
+         * Returns double property.
+         *
+         * @return double property
+         */
+        public double getDoubleProp() {
+            return doubleProp;
+        }
+
+        /**
+         * Sets double property.
+         *
+         * @param doubleProp double property
+         */
+        public void setDoubleProp(double doubleProp) {
+            this.doubleProp = doubleProp;
+        }
+
+        /**
+         * Returns integer array property.
+         *
+         * @return integer array property
+         */
+        public int[] getIntArrayProp() {
+            return intArrayProp;
+        }
+
+        /**
+         * Sets integer array property.
+         *
+         * @param intArrayProp integer array property
+         */
+        public void setIntArrayProp(int[] intArrayProp) {
+            this.intArrayProp = intArrayProp;
+        }
+
+        /**
+         * Returns long array property.
+         *
+         * @return long array property
+         */
+        public long[] getLongArrayProp() {
+            return longArrayProp;
+        }
+
+        /**
+         * Sets long array property.
+         *
+         * @param longArrayProp long array property
+         */
+        public void setLongArrayProp(long[] longArrayProp) {
+            this.longArrayProp = longArrayProp;
+        }
+
+        /**
+         * Returns double array property.
+         *
+         * @return double array property
+         */
+        public double[] getDoubleArrayProp() {
+            return doubleArrayProp;
+        }
+
+        /**
+         * Sets double array property.
+         *
+         * @param doubleArrayProp double array property
+         */
+        public void setDoubleArrayProp(double[] doubleArrayProp) {
+            this.doubleArrayProp = doubleArrayProp;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (object == null || getClass() != object.getClass()) {
+                return false;
+            }
+            final BeanPrimitiveTest that = (BeanPrimitiveTest) object;
+            return intProp == that.intProp && longProp == that.longProp
+                    && Double.compare(doubleProp, that.doubleProp) == 0
+                    && Arrays.equals(intArrayProp, that.intArrayProp)
+                    && Arrays.equals(longArrayProp, that.longArrayProp)
+                    && Arrays.equals(doubleArrayProp, that.doubleArrayProp);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(intProp, longProp, doubleProp, Arrays.hashCode(intArrayProp),
+                    Arrays.hashCode(longArrayProp), Arrays.hashCode(doubleArrayProp));
+        }
+    }
+
     /**
      * Java Bean Contructor - test class.
      */
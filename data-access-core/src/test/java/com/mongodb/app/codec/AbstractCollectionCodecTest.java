@@ -1,14 +1,22 @@
 package com.mongodb.app.codec;
 
 import com.mongodb.MongoClient;
+import com.mongodb.app.annotation.PropertyOrder;
 import com.mongodb.app.collection.AbstractCollection;
 import mockit.Injectable;
 import org.bson.BsonObjectId;
 import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.codecs.EncoderContext;
+import org.bson.json.JsonWriter;
 import org.bson.types.ObjectId;
 import org.testng.AssertJUnit;
 import org.testng.annotations.Test;
 
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 import static org.testng.AssertJUnit.assertEquals;
@@ -49,6 +57,15 @@ public class AbstractCollectionCodecTest {
         }
     }
 
+    /**
+     * Collection with property order - test class.
+     *
+     * @author nico.arianto
+     */
+    @PropertyOrder("stringProp")
+    public static class CollectionOrderTest extends CollectionTest {
+    }
+
     final AbstractCollectionCodec<CollectionTest> collectionCodec =
             new AbstractCollectionCodec<CollectionTest>(MongoClient.getDefaultCodecRegistry(), CollectionTest.class) {
             };
@@ -119,6 +136,23 @@ public class AbstractCollectionCodecTest {
         assertEquals(objectId, collection.getId());
     }
 
+    /**
+     * Test encode({@link BsonWriter}, T, {@link EncoderContext}) method writes the id first.
+     */
+    @Test
+    public void testEncodeWithIdFirst() {
+        final AbstractCollectionCodec<CollectionOrderTest> orderCodec =
+                new AbstractCollectionCodec<CollectionOrderTest>(MongoClient.getDefaultCodecRegistry(), CollectionOrderTest.class) {
+                };
+        final CollectionOrderTest collection = new CollectionOrderTest();
+        collection.setId(new ObjectId());
+        collection.setStringProp("stringProp");
+        final StringWriter writer = new StringWriter();
+        orderCodec.encode(new JsonWriter(writer), collection, EncoderContext.builder().build());
+        assertEquals(Arrays.asList(AbstractCollection.COLLECTION_ID, "stringProp"),
+                new ArrayList<>(Document.parse(writer.toString()).keySet()));
+    }
+
     /**
      * Test getDocumentId(T) method.
      */
@@ -0,0 +1,61 @@
+package com.mongodb.app.codec;
+
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Element name table - unit test.
+ *
+ * @author nico.arianto
+ */
+public class ElementNameTableTest {
+
+    /**
+     * Test get(String) method.
+     */
+    @Test
+    public void testGet() {
+        final Map<String, Integer> entries = new HashMap<>();
+        entries.put("_id", 0);
+        entries.put("id", 0);
+        entries.put("restaurant_id", 1);
+        entries.put("name", 2);
+        final ElementNameTable table = new ElementNameTable(entries, new String[]{"_id", "restaurant_id", "name"}, new int[]{0, 1, 2});
+        assertTrue(table.isPerfect());
+        assertEquals(0, table.get("_id"));
+        assertEquals(0, table.get("id"));
+        assertEquals(1, table.get("restaurant_id"));
+        assertEquals(2, table.get("name"));
+        assertEquals(-1, table.get("restaurantId"));
+        assertEquals("restaurant_id", table.getElementName(1));
+    }
+
+    /**
+     * Test get(String) method with element names of the same hash code.
+     */
+    @Test
+    public void testGetWithSameHashCode() {
+        final Map<String, Integer> entries = new HashMap<>();
+        entries.put("Aa", 0);
+        entries.put("BB", 1);
+        final ElementNameTable table = new ElementNameTable(entries, new String[]{"Aa", "BB"}, new int[]{0, 1});
+        assertEquals(false, table.isPerfect());
+        assertEquals(0, table.get("Aa"));
+        assertEquals(1, table.get("BB"));
+        assertEquals(-1, table.get("C#"));
+    }
+
+    /**
+     * Test get(String) method with an empty table.
+     */
+    @Test
+    public void testGetWithEmptyTable() {
+        final ElementNameTable table = new ElementNameTable(new HashMap<>(), new String[0], new int[0]);
+        assertEquals(-1, table.get("name"));
+    }
+}
@@ -0,0 +1,262 @@
+package com.mongodb.app.codec;
+
+import com.mongodb.MongoClient;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.json.JsonWriter;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.AssertJUnit.*;
+
+/**
+ * Lazy loader - unit test.
+ *
+ * @author nico.arianto
+ */
+public class LazyLoaderTest {
+    private final Codec codec = new Codec(MongoClient.getDefaultCodecRegistry());
+    private RawBsonDocument document;
+
+    /**
+     * Initialize raw BSON document.
+     */
+    @BeforeClass
+    public void init() {
+        final Document source = new Document();
+        source.append("stringProp", "stringProp");
+        source.append("intProp", 9);
+        source.append("listProp", Arrays.asList(10l, 20l));
+        document = new RawBsonDocument(source, new DocumentCodec());
+    }
+
+    /**
+     * Test load(int) method through the getters of a lazy Java Bean.
+     */
+    @Test
+    public void testLoad() {
+        final BeanTest bean = codec.decodeLazy(document);
+        assertTrue(bean instanceof LazyBeanTest);
+        final LazyLoader<BeanTest> loader = ((LazyBeanTest) bean).loader;
+        assertSame(document, loader.getDocument());
+        assertFalse(loader.isLoaded(0));
+        assertFalse(loader.isLoaded(1));
+        assertEquals("stringProp", bean.getStringProp());
+        assertTrue(loader.isLoaded(0));
+        assertFalse(loader.isLoaded(1));
+        assertEquals(9, bean.getIntProp());
+        assertEquals(Arrays.asList(10l, 20l), bean.getListProp());
+    }
+
+    /**
+     * Test markLoaded(int) method through the setter of a lazy Java Bean.
+     */
+    @Test
+    public void testMarkLoaded() {
+        final BeanTest bean = codec.decodeLazy(document);
+        bean.setStringProp("newStringProp");
+        assertEquals("newStringProp", bean.getStringProp());
+    }
+
+    /**
+     * Test load(int) method with an element which is not in the raw BSON document.
+     */
+    @Test
+    public void testLoadWithMissingElement() {
+        final BeanTest bean = codec.decodeLazy(new RawBsonDocument(new Document("stringProp", null), new DocumentCodec()));
+        assertNull(bean.getStringProp());
+        assertEquals(0, bean.getIntProp());
+        assertNull(bean.getListProp());
+    }
+
+    /**
+     * Test encoding a lazy Java Bean, every property is loaded.
+     */
+    @Test
+    public void testEncode() {
+        final StringWriter writer = new StringWriter();
+        codec.encode(new JsonWriter(writer), codec.decodeLazy(document), EncoderContext.builder().build());
+        assertEquals(document, BsonDocument.parse(writer.toString()));
+    }
+
+    /**
+     * Test decodeLazy({@link RawBsonDocument}) method with a codec which does not support lazy decoding.
+     */
+    @Test
+    public void testDecodeLazyWithEagerCodec() {
+        final AbstractCodec<BeanTest> eagerCodec = new AbstractCodec<BeanTest>(MongoClient.getDefaultCodecRegistry(), BeanTest.class, Codec.accessors()) {
+        };
+        final BeanTest bean = eagerCodec.decodeLazy(document);
+        assertEquals(BeanTest.class, bean.getClass());
+        assertEquals("stringProp", bean.getStringProp());
+        assertEquals(9, bean.getIntProp());
+    }
+
+    /**
+     * Codec with lazy decoding - test class.
+     *
+     * @author nico.arianto
+     */
+    private static final class Codec extends AbstractCodec<BeanTest> {
+
+        /**
+         * Constructor.
+         *
+         * @param registry registry
+         */
+        private Codec(CodecRegistry registry) {
+            super(registry, BeanTest.class, accessors());
+        }
+
+        /**
+         * Returns property accessors.
+         *
+         * @return property accessors
+         */
+        @SuppressWarnings("unchecked")
+        private static List<PropertyAccessor<BeanTest>> accessors() {
+            return Arrays.asList(
+                    new PropertyAccessor<>("stringProp", "stringProp", String.class, null, BeanTest::getStringProp,
+                            (target, value) -> target.setStringProp((String) value)),
+                    PropertyAccessor.ofInt("intProp", "intProp", BeanTest::getIntProp, BeanTest::setIntProp),
+                    new PropertyAccessor<>("listProp", "listProp", List.class, Long.class, BeanTest::getListProp,
+                            (target, value) -> target.setListProp((List<Long>) value)));
+        }
+
+        @Override
+        protected BeanTest createLazy(final LazyLoader<BeanTest> loader) {
+            return new LazyBeanTest(loader);
+        }
+    }
+
+    /**
+     * Java Bean - test class.
+     *
+     * @author nico.arianto
+     */
+    public static class BeanTest {
+        private String stringProp;
+        private int intProp;
+        private List<Long> listProp;
+
+        /**
+         * Returns string property.
+         *
+         * @return string property
+         */
+        public String getStringProp() {
+            return stringProp;
+        }
+
+        /**
+         * Sets string property.
+         *
+         * @param stringProp string property
+         */
+        public void setStringProp(String stringProp) {
+            this.stringProp = stringProp;
+        }
+
+        /**
+         * Returns integer property.
+         *
+         * @return integer property
+         */
+        public int getIntProp() {
+            return intProp;
+        }
+
+        /**
+         * Sets integer property.
+         *
+         * @param intProp integer property
+         */
+        public void setIntProp(int intProp) {
+            this.intProp = intProp;
+        }
+
+        /**
+         * Returns list property.
+         *
+         * @return list property
+         */
+        public List<Long> getListProp() {
+            return listProp;
+        }
+
+        /**
+         * Sets list property.
+         *
+         * @param listProp list property
+         */
+        public void setListProp(List<Long> listProp) {
+            this.listProp = listProp;
+        }
+    }
+
+    /**
+     * Lazy Java Bean - test class.
+     *
+     * @author nico.arianto
+     */
+    private static final class LazyBeanTest extends BeanTest {
+        private final LazyLoader<BeanTest> loader;
+
+        /**
+         * Constructor.
+         *
+         * @param loader lazy loader
+         */
+        private LazyBeanTest(LazyLoader<BeanTest> loader) {
+            this.loader = loader;
+        }
+
+        @Override
+        public String getStringProp() {
+            if (!loader.isLoaded(0)) {
+                final Object value = loader.load(0);
+                if (value != null) {
+                    super.setStringProp((String) value);
+                }
+            }
+            return super.getStringProp();
+        }
+
+        @Override
+        public void setStringProp(String stringProp) {
+            loader.markLoaded(0);
+            super.setStringProp(stringProp);
+        }
+
+        @Override
+        public int getIntProp() {
+            if (!loader.isLoaded(1)) {
+                final Object value = loader.load(1);
+                if (value != null) {
+                    super.setIntProp((Integer) value);
+                }
+            }
+            return super.getIntProp();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<Long> getListProp() {
+            if (!loader.isLoaded(2)) {
+                final Object value = loader.load(2);
+                if (value != null) {
+                    super.setListProp((List<Long>) value);
+                }
+            }
+            return super.getListProp();
+        }
+    }
+}
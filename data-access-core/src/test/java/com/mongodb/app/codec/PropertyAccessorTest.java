@@ -0,0 +1,197 @@
+package com.mongodb.app.codec;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.AssertJUnit.*;
+
+/**
+ * Property accessor - unit test.
+ *
+ * @author nico.arianto
+ */
+public class PropertyAccessorTest {
+    private final Map<String, PropertyAccessor<BeanTest>> accessors = new HashMap<>();
+
+    /**
+     * Initialize property accessors.
+     *
+     * @throws IntrospectionException
+     */
+    @BeforeClass
+    public void init() throws IntrospectionException {
+        final BeanInfo beanInfo = Introspector.getBeanInfo(BeanTest.class, Object.class);
+        for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+            accessors.put(descriptor.getName(), PropertyAccessor.of(descriptor));
+        }
+    }
+
+    /**
+     * Test get(T) and set(T, Object) methods.
+     */
+    @Test
+    public void testGetAndSet() {
+        final PropertyAccessor<BeanTest> accessor = accessors.get("stringProp");
+        final BeanTest bean = new BeanTest();
+        accessor.set(bean, "stringProp");
+        assertEquals("stringProp", bean.getStringProp());
+        assertEquals("stringProp", accessor.get(bean));
+        assertEquals(String.class, accessor.getType());
+        assertNull(accessor.getElementType());
+    }
+
+    /**
+     * Test get(T) and set(T, Object) methods with a primitive property.
+     */
+    @Test
+    public void testGetAndSetWithPrimitiveProperty() {
+        final PropertyAccessor<BeanTest> accessor = accessors.get("intProp");
+        final BeanTest bean = new BeanTest();
+        accessor.set(bean, 9);
+        assertEquals(9, bean.getIntProp());
+        assertEquals(9, accessor.get(bean));
+    }
+
+    /**
+     * Test getInt(T) and setInt(T, int) methods with a primitive property.
+     */
+    @Test
+    public void testGetIntAndSetInt() {
+        final PropertyAccessor<BeanTest> accessor = accessors.get("intProp");
+        final BeanTest bean = new BeanTest();
+        accessor.setInt(bean, 9);
+        assertEquals(9, bean.getIntProp());
+        assertEquals(9, accessor.getInt(bean));
+        assertEquals(PropertyKind.INT, accessor.getKind());
+        assertEquals(Integer.class, accessor.getValueType());
+    }
+
+    /**
+     * Test ofDouble(String, String, ToDoubleFunction, ObjDoubleConsumer) method.
+     */
+    @Test
+    public void testOfDouble() {
+        final double[] value = new double[1];
+        final PropertyAccessor<double[]> accessor = PropertyAccessor.ofDouble("value", "value",
+                target -> target[0], (target, newValue) -> target[0] = newValue);
+        accessor.setDouble(value, 9.9);
+        assertEquals(9.9, accessor.getDouble(value));
+        accessor.set(value, 99.9);
+        assertEquals(99.9, accessor.get(value));
+        assertEquals(double.class, accessor.getType());
+    }
+
+    /**
+     * Test getElementType() method with a list property.
+     */
+    @Test
+    public void testGetElementTypeWithListProperty() {
+        final PropertyAccessor<BeanTest> accessor = accessors.get("listProp");
+        final BeanTest bean = new BeanTest();
+        accessor.set(bean, Arrays.asList(10l, 20l));
+        assertEquals(Arrays.asList(10l, 20l), accessor.get(bean));
+        assertEquals(Long.class, accessor.getElementType());
+    }
+
+    /**
+     * Test get(T) method with a getter that throws a checked exception.
+     *
+     * @throws Exception
+     */
+    @Test(expectedExceptions = IllegalAccessException.class)
+    public void testGetThrowCheckedException() throws Exception {
+        accessors.get("protectedProp").get(new BeanTest());
+    }
+
+    /**
+     * Java Bean - test class.
+     *
+     * @author nico.arianto
+     */
+    public static class BeanTest {
+        private String stringProp;
+        private int intProp;
+        private List<Long> listProp;
+
+        /**
+         * Returns string property.
+         *
+         * @return string property
+         */
+        public String getStringProp() {
+            return stringProp;
+        }
+
+        /**
+         * Sets string property.
+         *
+         * @param stringProp string property
+         */
+        public void setStringProp(String stringProp) {
+            this.stringProp = stringProp;
+        }
+
+        /**
+         * Returns integer property.
+         *
+         * @return integer property
+         */
+        public int getIntProp() {
+            return intProp;
+        }
+
+        /**
+         * Sets integer property.
+         *
+         * @param intProp integer property
+         */
+        public void setIntProp(int intProp) {
+            this.intProp = intProp;
+        }
+
+        /**
+         * Returns list property.
+         *
+         * @return list property
+         */
+        public List<Long> getListProp() {
+            return listProp;
+        }
+
+        /**
+         * Sets list property.
+         *
+         * @param listProp list property
+         */
+        public void setListProp(List<Long> listProp) {
+            this.listProp = listProp;
+        }
+
+        /**
+         * Returns protected property.
+         *
+         * @return protected property
+         */
+        public String getProtectedProp() throws IllegalAccessException {
+            throw new IllegalAccessException();
+        }
+
+        /**
+         * Sets protected property.
+         *
+         * @param protectedProp protected property
+         */
+        public void setProtectedProp(String protectedProp) throws IllegalAccessException {
+            throw new IllegalAccessException();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.mongodb.app.codec.configuration;
+
+import com.mongodb.MongoClient;
+import com.mongodb.app.codec.AbstractCodec;
+import com.mongodb.app.codec.AbstractCodecTest;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.*;
+
+/**
+ * Abstract codec provider - unit test.
+ *
+ * @author nico.arianto
+ */
+public class AbstractCodecProviderTest {
+
+    /**
+     * Codec provider - test class.
+     *
+     * @author nico.arianto
+     */
+    public static class CodecProviderTest extends AbstractCodecProvider {
+        private final AtomicInteger builds = new AtomicInteger();
+
+        /**
+         * Default constructor.
+         */
+        public CodecProviderTest() {
+            register(AbstractCodecTest.BeanTest.class, registry -> {
+                builds.incrementAndGet();
+                return new AbstractCodec<AbstractCodecTest.BeanTest>(registry, AbstractCodecTest.BeanTest.class) {
+                };
+            });
+        }
+
+        /**
+         * Returns number of codec builds.
+         *
+         * @return number of codec builds
+         */
+        public int getBuilds() {
+            return builds.get();
+        }
+    }
+
+    /**
+     * Test get(Class, {@link CodecRegistry}) method.
+     */
+    @Test
+    public void testGet() {
+        final CodecProviderTest provider = new CodecProviderTest();
+        final CodecRegistry registry = CodecRegistries.fromRegistries(CodecRegistries.fromProviders(provider),
+                MongoClient.getDefaultCodecRegistry());
+        final Codec<AbstractCodecTest.BeanTest> codec = provider.get(AbstractCodecTest.BeanTest.class, registry);
+        assertNotNull(codec);
+        assertSame(codec, provider.get(AbstractCodecTest.BeanTest.class, registry));
+        assertEquals(1, provider.getBuilds());
+        assertNull(provider.get(String.class, registry));
+    }
+
+    /**
+     * Test get(Class, {@link CodecRegistry}) method with concurrent first use.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetWithConcurrentFirstUse() throws Exception {
+        final CodecProviderTest provider = new CodecProviderTest();
+        final CodecRegistry registry = CodecRegistries.fromProviders(provider);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Callable<Codec<AbstractCodecTest.BeanTest>>> tasks = new ArrayList<>();
+            for (int index = 0; index < 8; index++) {
+                tasks.add(() -> provider.get(AbstractCodecTest.BeanTest.class, registry));
+            }
+            final List<Future<Codec<AbstractCodecTest.BeanTest>>> codecs = executor.invokeAll(tasks);
+            for (Future<Codec<AbstractCodecTest.BeanTest>> codec : codecs) {
+                assertSame(codecs.get(0).get(), codec.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, provider.getBuilds());
+    }
+
+    /**
+     * Test initialize({@link CodecRegistry}) method.
+     */
+    @Test
+    public void testInitialize() {
+        final CodecProviderTest provider = new CodecProviderTest();
+        final CodecRegistry registry = CodecRegistries.fromProviders(provider);
+        provider.initialize(registry);
+        assertEquals(1, provider.getBuilds());
+        provider.get(AbstractCodecTest.BeanTest.class, registry);
+        assertEquals(1, provider.getBuilds());
+    }
+}
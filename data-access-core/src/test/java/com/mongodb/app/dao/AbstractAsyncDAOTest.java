@@ -0,0 +1,223 @@
+package com.mongodb.app.dao;
+
+import com.mongodb.MongoException;
+import com.mongodb.app.collection.AbstractCollection;
+import com.mongodb.async.SingleResultCallback;
+import com.mongodb.async.client.FindIterable;
+import com.mongodb.async.client.MongoCollection;
+import com.mongodb.async.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import mockit.Delegate;
+import mockit.Expectations;
+import mockit.Injectable;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+/**
+ * Abstract asynchronous DAO - unit test.
+ *
+ * @author nico.arianto
+ */
+public class AbstractAsyncDAOTest {
+    @Mocked
+    private MongoDatabase database;
+    @Mocked
+    private MongoCollection<AbstractCollection> collection;
+    @Mocked
+    private AbstractCollection document;
+    @Mocked
+    private Filters filters;
+    private AbstractAsyncDAO<AbstractCollection> dao;
+
+    /**
+     * Test constructor.
+     */
+    @Test
+    public void testConstructor(@Injectable("collectionName") String collectionName) {
+        new Expectations() {
+            {
+                database.getCollection(collectionName, AbstractCollection.class);
+                result = collection;
+            }
+        };
+        dao = new AbstractAsyncDAO<AbstractCollection>(collectionName, AbstractCollection.class) {
+
+            @Override
+            protected MongoDatabase getDatabase() {
+                return database;
+            }
+
+            @Override
+            protected int getMaxBatchCount() {
+                return 2;
+            }
+        };
+    }
+
+    /**
+     * Test create(T) method.
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testCreate() {
+        new Expectations() {
+            {
+                collection.insertOne(document, (SingleResultCallback<Void>) any);
+                result = new Delegate<Void>() {
+                    void insertOne(AbstractCollection document, SingleResultCallback<Void> callback) {
+                        callback.onResult(null, null);
+                    }
+                };
+            }
+        };
+        final CompletableFuture<Void> future = dao.create(document);
+        assertTrue(future.isDone());
+        assertNull(future.join());
+    }
+
+    /**
+     * Test create(T) method with a driver failure, the future is completed exceptionally.
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testCreateWithFailure() {
+        final MongoException exception = new MongoException("failure");
+        new Expectations() {
+            {
+                collection.insertOne(document, (SingleResultCallback<Void>) any);
+                result = new Delegate<Void>() {
+                    void insertOne(AbstractCollection document, SingleResultCallback<Void> callback) {
+                        callback.onResult(null, exception);
+                    }
+                };
+            }
+        };
+        final CompletableFuture<Void> future = dao.create(document);
+        assertTrue(future.isCompletedExceptionally());
+        try {
+            future.join();
+            fail();
+        } catch (CompletionException completionException) {
+            assertEquals(exception, completionException.getCause());
+        }
+    }
+
+    /**
+     * Test read(ObjectId) method.
+     *
+     * @param iterable iterable
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testRead(@Mocked FindIterable<AbstractCollection> iterable) {
+        final ObjectId objectId = new ObjectId();
+        new Expectations() {
+            {
+                collection.find(withInstanceOf(Bson.class));
+                result = iterable;
+                iterable.first((SingleResultCallback<AbstractCollection>) any);
+                result = new Delegate<Void>() {
+                    void first(SingleResultCallback<AbstractCollection> callback) {
+                        callback.onResult(document, null);
+                    }
+                };
+            }
+        };
+        assertEquals(document, dao.read(objectId).join());
+        new Verifications() {
+            {
+                Filters.eq(AbstractCollection.COLLECTION_ID, objectId);
+                times = 1;
+            }
+        };
+    }
+
+    /**
+     * Test readAll(Collection) method, every chunk is queried and the documents are in request order.
+     *
+     * @param iterable iterable
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    @SuppressWarnings("unchecked")
+    public void testReadAll(@Mocked FindIterable<AbstractCollection> iterable) {
+        final ObjectId firstId = new ObjectId();
+        final ObjectId secondId = new ObjectId();
+        final ObjectId missingId = new ObjectId();
+        new Expectations() {
+            {
+                collection.find(withInstanceOf(Bson.class));
+                result = iterable;
+                times = 2;
+                iterable.into((Collection<AbstractCollection>) any, (SingleResultCallback) any);
+                result = new Delegate<Void>() {
+                    void into(Collection<AbstractCollection> target, SingleResultCallback<Collection<AbstractCollection>> callback) {
+                        target.add(document);
+                        callback.onResult(target, null);
+                    }
+                };
+                document.getId();
+                returns(secondId, secondId, firstId, firstId);
+            }
+        };
+        final Map<ObjectId, AbstractCollection> documents =
+                dao.readAll(Arrays.asList(firstId, secondId, missingId)).join();
+        assertEquals(Arrays.asList(firstId, secondId, missingId), new ArrayList<>(documents.keySet()));
+        assertEquals(document, documents.get(firstId));
+        assertEquals(document, documents.get(secondId));
+        assertNull(documents.get(missingId));
+    }
+
+    /**
+     * Test update(ObjectId, T) method.
+     *
+     * @param updateResult update result
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testUpdate(@Mocked UpdateResult updateResult) {
+        new Expectations() {
+            {
+                collection.replaceOne(withInstanceOf(Bson.class), document, (SingleResultCallback<UpdateResult>) any);
+                result = new Delegate<Void>() {
+                    void replaceOne(Bson filter, AbstractCollection document, SingleResultCallback<UpdateResult> callback) {
+                        callback.onResult(updateResult, null);
+                    }
+                };
+            }
+        };
+        assertTrue(dao.update(new ObjectId(), document).isDone());
+    }
+
+    /**
+     * Test delete(ObjectId) method.
+     *
+     * @param deleteResult delete result
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testDelete(@Mocked DeleteResult deleteResult) {
+        new Expectations() {
+            {
+                collection.deleteOne(withInstanceOf(Bson.class), (SingleResultCallback<DeleteResult>) any);
+                result = new Delegate<Void>() {
+                    void deleteOne(Bson filter, SingleResultCallback<DeleteResult> callback) {
+                        callback.onResult(deleteResult, null);
+                    }
+                };
+            }
+        };
+        assertTrue(dao.delete(new ObjectId()).isDone());
+    }
+}
@@ -1,22 +1,70 @@
 package com.mongodb.app.dao;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoClient;
+import com.mongodb.ReadPreference;
+import com.mongodb.ServerAddress;
+import com.mongodb.ServerCursor;
+import com.mongodb.Tag;
+import com.mongodb.TagSet;
+import com.mongodb.WriteConcern;
+import com.mongodb.app.annotation.Index;
+import com.mongodb.app.annotation.ShardKey;
+import com.mongodb.app.codec.AbstractCodec;
 import com.mongodb.app.collection.AbstractCollection;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteRequest;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOptions;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
+import mockit.Delegate;
 import mockit.Expectations;
 import mockit.Injectable;
 import mockit.Mocked;
 import mockit.Verifications;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
 
 /**
  * Abstract DAO - unit test.
@@ -69,6 +117,174 @@ public class AbstractDAOTest {
         };
     }
 
+    /**
+     * Test createAll(Iterable, boolean) method with unordered inserts, every batch is sent.
+     *
+     * @param registry codec registry
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testCreateAllUnordered(@Mocked CodecRegistry registry) {
+        final AbstractDAO<AbstractCollection> batchDAO = createBatchDAO(registry);
+        new Expectations() {
+            {
+                collection.insertMany((List) any, (InsertManyOptions) any);
+                result = null;
+                result = createBulkWriteException();
+                result = null;
+                times = 3;
+            }
+        };
+        final BulkInsertResult<AbstractCollection> result =
+                batchDAO.createAll(Arrays.asList(document, document, document, document, document), false);
+        assertEquals(4, result.getInsertedCount());
+        assertEquals(3, result.getBatchCount());
+        assertFalse(result.isSuccessful());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(3, result.getFailures().get(0).getIndex());
+        assertEquals(11000, result.getFailures().get(0).getCode());
+        assertEquals(document, result.getFailures().get(0).getDocument());
+    }
+
+    /**
+     * Test createAll(Iterator, boolean, WriteTier) method with unacknowledged inserts, verified by count().
+     *
+     * @param registry codec registry
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testCreateAllFireAndForget(@Mocked CodecRegistry registry) {
+        final AbstractDAO<AbstractCollection> batchDAO = createBatchDAO(registry);
+        new Expectations() {
+            {
+                collection.withWriteConcern(WriteConcern.UNACKNOWLEDGED);
+                result = collection;
+                times = 1;
+                collection.insertMany((List) any, (InsertManyOptions) any);
+                times = 2;
+                collection.count(withInstanceOf(Bson.class));
+                result = 3L;
+            }
+        };
+        final BulkInsertResult<AbstractCollection> result = batchDAO.createAll(
+                Arrays.asList(document, document, document).iterator(), false, WriteTier.FIRE_AND_FORGET);
+        assertEquals(3, result.getInsertedCount());
+        assertEquals(3, batchDAO.count());
+    }
+
+    /**
+     * Test create(T), update(ObjectId, T) and delete(ObjectId, WriteTier) methods, the writes go by the write tier of
+     * the DAO, unless the call has its own.
+     */
+    @Test
+    public void testWriteWithWriteTier() {
+        final ObjectId objectId = new ObjectId();
+        new Expectations() {
+            {
+                database.getCollection(anyString, AbstractCollection.class);
+                result = collection;
+                collection.withWriteConcern(WriteTier.DURABLE.getWriteConcern());
+                result = collection;
+                times = 2;
+                collection.withWriteConcern(WriteTier.FAST.getWriteConcern());
+                result = collection;
+                times = 1;
+            }
+        };
+        final AbstractDAO<AbstractCollection> durableDAO = new AbstractDAO<AbstractCollection>("collectionName", AbstractCollection.class) {
+
+            @Override
+            protected MongoDatabase getDatabase() {
+                return database;
+            }
+
+            @Override
+            protected WriteTier getWriteTier() {
+                return WriteTier.DURABLE;
+            }
+        };
+        durableDAO.create(document);
+        durableDAO.update(objectId, document);
+        durableDAO.delete(objectId, WriteTier.FAST);
+        new Verifications() {
+            {
+                collection.insertOne(document);
+                times = 1;
+                collection.replaceOne(withInstanceOf(Bson.class), document);
+                times = 1;
+                collection.deleteOne(withInstanceOf(Bson.class));
+                times = 1;
+            }
+        };
+    }
+
+    /**
+     * Test createAll(Iterator) method with ordered inserts, nothing is sent after the first failed batch.
+     *
+     * @param registry codec registry
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testCreateAllOrdered(@Mocked CodecRegistry registry) {
+        final AbstractDAO<AbstractCollection> batchDAO = createBatchDAO(registry);
+        new Expectations() {
+            {
+                collection.insertMany((List) any, (InsertManyOptions) any);
+                result = null;
+                result = createBulkWriteException();
+                times = 2;
+            }
+        };
+        final BulkInsertResult<AbstractCollection> result =
+                batchDAO.createAll(Arrays.asList(document, document, document, document, document).iterator());
+        assertEquals(3, result.getInsertedCount());
+        assertEquals(1, result.getFailures().size());
+    }
+
+    /**
+     * Returns a DAO with batches of 2 documents, which encodes the documents by {@link CodecTest} if needed.
+     *
+     * @param registry codec registry
+     * @return DAO
+     */
+    private AbstractDAO<AbstractCollection> createBatchDAO(final CodecRegistry registry) {
+        new Expectations() {
+            {
+                database.getCollection(anyString, AbstractCollection.class);
+                result = collection;
+                collection.getCodecRegistry();
+                result = registry;
+                minTimes = 0;
+                registry.get((Class) any);
+                result = new CodecTest();
+                minTimes = 0;
+                collection.withDocumentClass(RawBsonDocument.class);
+                result = collection;
+                minTimes = 0;
+            }
+        };
+        return new AbstractDAO<AbstractCollection>("collectionName", AbstractCollection.class) {
+
+            @Override
+            protected MongoDatabase getDatabase() {
+                return database;
+            }
+
+            @Override
+            protected int getMaxBatchCount() {
+                return 2;
+            }
+        };
+    }
+
+    /**
+     * Returns a bulk write exception of a batch of 2 documents, the second one is a duplicate key.
+     *
+     * @return bulk write exception
+     */
+    private static MongoBulkWriteException createBulkWriteException() {
+        return new MongoBulkWriteException(BulkWriteResult.acknowledged(WriteRequest.Type.INSERT, 1, Collections.emptyList()),
+                Collections.singletonList(new BulkWriteError(11000, "duplicate key error", new BsonDocument(), 1)),
+                null, new ServerAddress());
+    }
+
     /**
      * Test read(T) method.
      */
@@ -95,49 +311,1017 @@ public class AbstractDAOTest {
     }
 
     /**
-     * Test update(ObjectId, T) method.
+     * Test read(ObjectId) method with a document cache, the second read is a hit and an update invalidates the entry.
      *
-     * @param updateResult update result
+     * @param iterable iterable
+     * @param registry codec registry
+     * @param codec    codec
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testReadWithCache(@Mocked FindIterable iterable, @Mocked CodecRegistry registry,
+                                  @Mocked AbstractCodec<AbstractCollection> codec) {
+        final ObjectId objectId = new ObjectId();
+        final RawBsonDocument rawDocument = new RawBsonDocument(new Document("_id", objectId), new DocumentCodec());
+        final DocumentCache cache = new DocumentCache(10, 1024, 60, TimeUnit.SECONDS);
+        new Expectations() {
+            {
+                database.getCollection(anyString, AbstractCollection.class);
+                result = collection;
+                collection.withDocumentClass(RawBsonDocument.class);
+                result = collection;
+                collection.find(withInstanceOf(Bson.class));
+                result = iterable;
+                times = 2;
+                iterable.first();
+                result = rawDocument;
+                collection.getCodecRegistry();
+                result = registry;
+                registry.get((Class) any);
+                result = codec;
+                codec.decodeLazy(rawDocument);
+                result = document;
+                times = 3;
+            }
+        };
+        final AbstractDAO<AbstractCollection> cacheDAO = new AbstractDAO<AbstractCollection>("collectionName", AbstractCollection.class) {
+
+            @Override
+            protected MongoDatabase getDatabase() {
+                return database;
+            }
+
+            @Override
+            protected DocumentCache getCache() {
+                return cache;
+            }
+        };
+        assertEquals(document, cacheDAO.read(objectId));
+        assertEquals(document, cacheDAO.read(objectId));
+        assertEquals(1, cache.getHitCount());
+        cacheDAO.update(objectId, document);
+        assertEquals(0, cache.size());
+        assertEquals(document, cacheDAO.read(objectId));
+        assertEquals(2, cache.getMissCount());
+    }
+
+    /**
+     * Test update(ObjectId, AbstractCollection) method with a write-behind buffer, the replacements are coalesced, read
+     * back by decoding a copy while pending, and discarded by a delete.
+     *
+     * @param registry codec registry
+     * @param codec    codec
      */
     @Test
-    public void testUpdate(@Mocked UpdateResult updateResult) {
+    public void testUpdateWithWriteBehind(@Mocked CodecRegistry registry,
+                                          @Mocked AbstractCodec<AbstractCollection> codec) {
         final ObjectId objectId = new ObjectId();
+        final ObjectId deletedId = new ObjectId();
         new Expectations() {
             {
-                collection.replaceOne(withInstanceOf(Bson.class), document);
-                result = updateResult;
+                database.getCollection(anyString, AbstractCollection.class);
+                result = collection;
+                collection.getCodecRegistry();
+                result = registry;
+                registry.get((Class) any);
+                result = codec;
+                codec.decodeLazy(new RawBsonDocument(document, new CodecTest()));
+                result = document;
+                times = 1;
+                collection.bulkWrite((List) any, (BulkWriteOptions) any);
+                times = 1;
             }
         };
-        dao.update(objectId, document);
+        final WriteBehindBuffer<AbstractCollection> writeBehind = new WriteBehindBuffer<>(collection, new CodecTest(),
+                10, null);
+        final AbstractDAO<AbstractCollection> writeBehindDAO = new AbstractDAO<AbstractCollection>("collectionName", AbstractCollection.class) {
+
+            @Override
+            protected MongoDatabase getDatabase() {
+                return database;
+            }
+
+            @Override
+            protected WriteBehindBuffer<AbstractCollection> getWriteBehind() {
+                return writeBehind;
+            }
+        };
+        writeBehindDAO.update(objectId, document);
+        writeBehindDAO.update(objectId, document);
+        writeBehindDAO.update(deletedId, document);
+        assertEquals(document, writeBehindDAO.read(objectId));
+        writeBehindDAO.delete(deletedId);
+        assertEquals(1, writeBehind.getQueueDepth());
+        writeBehind.flush();
+        assertEquals(0, writeBehind.getQueueDepth());
+        assertEquals(3, writeBehind.getUpdateCount());
+        assertEquals(1, writeBehind.getWriteCount());
         new Verifications() {
             {
-                Filters.eq(AbstractCollection.COLLECTION_ID, objectId);
-                times = 1;
+                collection.replaceOne((Bson) any, (AbstractCollection) any);
+                times = 0;
+                collection.find((Bson) any);
+                times = 0;
             }
         };
     }
 
     /**
-     * Test delete(ObjectId) method.
+     * Test readAll(Collection) and read(ObjectId, String...) methods with a write-behind buffer, a pending replacement
+     * is returned as a copy and its id is not queried.
      *
-     * @param deleteResult delete result
+     * @param iterable iterable
+     * @param codec    codec
      */
     @Test
-    public void testUpdate(@Mocked DeleteResult deleteResult) {
+    public void testReadAllWithWriteBehind(@Mocked FindIterable iterable, @Mocked Codec<AbstractCollection> codec) {
+        final ObjectId pendingId = new ObjectId();
+        final ObjectId storedId = new ObjectId();
+        new Expectations() {
+            {
+                database.getCollection(anyString, AbstractCollection.class);
+                result = collection;
+                codec.encode((BsonWriter) any, document, (EncoderContext) any);
+                result = new Delegate() {
+                    void encode(final BsonWriter writer, final AbstractCollection value, final EncoderContext encoderContext) {
+                        new CodecTest().encode(writer, value, encoderContext);
+                    }
+                };
+                codec.decode((BsonReader) any, (DecoderContext) any);
+                result = document;
+                times = 2;
+                collection.find(withInstanceOf(Bson.class));
+                result = iterable;
+                times = 1;
+            }
+        };
+        final WriteBehindBuffer<AbstractCollection> writeBehind = new WriteBehindBuffer<>(collection, codec, 10, null);
+        final AbstractDAO<AbstractCollection> writeBehindDAO = new AbstractDAO<AbstractCollection>("collectionName", AbstractCollection.class) {
+
+            @Override
+            protected MongoDatabase getDatabase() {
+                return database;
+            }
+
+            @Override
+            protected WriteBehindBuffer<AbstractCollection> getWriteBehind() {
+                return writeBehind;
+            }
+        };
+        writeBehindDAO.update(pendingId, document);
+        final Map<ObjectId, AbstractCollection> documents = writeBehindDAO.readAll(Arrays.asList(pendingId, storedId));
+        assertEquals(document, documents.get(pendingId));
+        assertEquals(document, writeBehindDAO.read(pendingId, "name"));
+        new Verifications() {
+            {
+                Filters.in(AbstractCollection.COLLECTION_ID, Collections.singletonList(storedId));
+                times = 1;
+            }
+        };
+    }
+
+    /**
+     * Test read(ObjectId, String...) method.
+     *
+     * @param iterable iterable
+     * @param registry codec registry
+     * @param codec    codec
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testReadWithProperties(@Mocked FindIterable iterable, @Mocked CodecRegistry registry,
+                                       @Mocked AbstractCodec<AbstractCollection> codec,
+                                       @Mocked Projections projections) {
         final ObjectId objectId = new ObjectId();
         new Expectations() {
             {
-                collection.deleteOne(withInstanceOf(Bson.class));
-                result = deleteResult;
+                collection.find(withInstanceOf(Bson.class));
+                result = iterable;
+                collection.getCodecRegistry();
+                result = registry;
+                registry.get((Class) any);
+                result = codec;
+                codec.getElementPath("restaurantId");
+                result = "restaurant_id";
+                codec.getElementPath("name");
+                result = "name";
+                iterable.projection((Bson) any);
+                result = iterable;
+                iterable.first();
+                result = document;
             }
         };
-        dao.delete(objectId);
+        assertEquals(document, dao.read(objectId, "restaurantId", "name"));
         new Verifications() {
             {
-                Filters.eq(AbstractCollection.COLLECTION_ID, objectId);
+                Projections.include(Arrays.asList("restaurant_id", "name"));
+                times = 1;
+            }
+        };
+    }
+
+    /**
+     * Test readAll(Collection) method, the documents are in request order and a missing document is NULL.
+     *
+     * @param iterable iterable
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testReadAll(@Mocked FindIterable iterable) {
+        final ObjectId firstId = new ObjectId();
+        final ObjectId secondId = new ObjectId();
+        final ObjectId missingId = new ObjectId();
+        new Expectations() {
+            {
+                collection.find(withInstanceOf(Bson.class));
+                result = iterable;
                 times = 1;
+                iterable.iterator();
+                result = new MongoCursorTest<>(Arrays.asList(document, document).iterator());
+                document.getId();
+                returns(secondId, secondId, firstId, firstId);
             }
         };
+        final Map<ObjectId, AbstractCollection> documents = dao.readAll(Arrays.asList(firstId, secondId, missingId, firstId));
+        assertEquals(Arrays.asList(firstId, secondId, missingId), new ArrayList<>(documents.keySet()));
+        assertEquals(document, documents.get(firstId));
+        assertEquals(document, documents.get(secondId));
+        assertNull(documents.get(missingId));
     }
 
+    /**
+     * Test readAll(Collection, Executor) method, the ids are queried in chunks by the executor.
+     *
+     * @param registry codec registry
+     * @param iterable iterable
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testReadAllWithExecutor(@Mocked CodecRegistry registry, @Mocked FindIterable iterable) {
+        final AbstractDAO<AbstractCollection> batchDAO = createBatchDAO(registry);
+        final ObjectId firstId = new ObjectId();
+        final ObjectId secondId = new ObjectId();
+        final ObjectId thirdId = new ObjectId();
+        final List<Runnable> tasks = new ArrayList<>();
+        new Expectations() {
+            {
+                collection.find(withInstanceOf(Bson.class));
+                result = iterable;
+                times = 3;
+                iterable.iterator();
+                returns(new MongoCursorTest<>(Collections.singletonList(document).iterator()),
+                        new MongoCursorTest<>(Collections.singletonList(document).iterator()),
+                        new MongoCursorTest<>(Collections.singletonList(document).iterator()));
+                document.getId();
+                returns(firstId, firstId, thirdId, thirdId, firstId, firstId);
+            }
+        };
+        final List<AbstractCollection> documents = batchDAO.readAllAsList(Arrays.asList(thirdId, secondId, firstId));
+        assertEquals(Arrays.asList(document, null, document), documents);
+        final Map<ObjectId, AbstractCollection> parallelDocuments = batchDAO.readAll(Arrays.asList(firstId, thirdId),
+                task -> {
+                    tasks.add(task);
+                    task.run();
+                });
+        assertEquals(1, tasks.size());
+        assertEquals(Arrays.asList(firstId, thirdId), new ArrayList<>(parallelDocuments.keySet()));
+        assertEquals(document, parallelDocuments.get(firstId));
+        assertNull(parallelDocuments.get(thirdId));
+    }
+
+    /**
+     * Test find(Bson, String...) method without properties.
+     *
+     * @param iterable iterable
+     * @param filter   query filter
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testFind(@Mocked FindIterable iterable, @Mocked Bson filter) {
+        new Expectations() {
+            {
+                collection.find(filter);
+                result = iterable;
+                iterable.iterator();
+                result = new MongoCursorTest<>(Arrays.asList(document, document).iterator());
+            }
+        };
+        assertEquals(Arrays.asList(document, document), dao.find(filter));
+        new Verifications() {
+            {
+                iterable.projection((Bson) any);
+                times = 0;
+            }
+        };
+    }
+
+    /**
+     * Test page(Bson, ObjectId, int) method, the next page is read after the last id.
+     *
+     * @param iterable iterable
+     * @param filter   query filter
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testPage(@Mocked FindIterable iterable, @Mocked Bson filter) {
+        final ObjectId lastId = new ObjectId();
+        new Expectations() {
+            {
+                collection.find(withInstanceOf(Bson.class));
+                result = iterable;
+                iterable.sort((Bson) any);
+                result = iterable;
+                iterable.limit(3);
+                result = iterable;
+                iterable.iterator();
+                returns(new MongoCursorTest<>(Arrays.asList(document, document, document).iterator()),
+                        new MongoCursorTest<>(Collections.singletonList(document).iterator()));
+                document.getId();
+                result = lastId;
+            }
+        };
+        final Page<AbstractCollection> firstPage = dao.page(filter, null, 2);
+        assertEquals(Arrays.asList(document, document), firstPage.getDocuments());
+        assertEquals(lastId, firstPage.getLastId());
+        assertTrue(firstPage.hasNext());
+        final Page<AbstractCollection> lastPage = dao.page(filter, firstPage.getLastId(), 2);
+        assertEquals(Collections.singletonList(document), lastPage.getDocuments());
+        assertFalse(lastPage.hasNext());
+        assertNull(lastPage.getContinuation());
+        new Verifications() {
+            {
+                Filters.gt(AbstractCollection.COLLECTION_ID, new BsonObjectId(lastId));
+                times = 1;
+            }
+        };
+    }
+
+    /**
+     * Test page(Bson, String, String, int) method with a secondary sort key, the continuation token has the last sort
+     * value and id.
+     *
+     * @param registry codec registry
+     * @param iterable iterable
+     * @param filter   query filter
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testPageWithSortProperty(@Mocked CodecRegistry registry, @Mocked FindIterable iterable,
+                                         @Mocked Bson filter) {
+        final AbstractDAO<AbstractCollection> batchDAO = createBatchDAO(registry);
+        final ObjectId lastId = new ObjectId();
+        new Expectations() {
+            {
+                collection.find(withInstanceOf(Bson.class));
+                result = iterable;
+                iterable.sort(Sorts.ascending("value", AbstractCollection.COLLECTION_ID));
+                result = iterable;
+                iterable.limit(2);
+                result = iterable;
+                iterable.iterator();
+                returns(new MongoCursorTest<>(Arrays.asList(document, document).iterator()),
+                        new MongoCursorTest<>(Collections.emptyIterator()));
+                document.getId();
+                result = lastId;
+            }
+        };
+        final Page<AbstractCollection> firstPage = batchDAO.page(filter, "value", null, 1);
+        assertEquals(Collections.singletonList(document), firstPage.getDocuments());
+        assertEquals(new BsonDocument(AbstractCollection.COLLECTION_ID, new BsonObjectId(lastId))
+                .append("value", new BsonInt32(1)), BsonDocument.parse(firstPage.getContinuation()));
+        final Page<AbstractCollection> emptyPage = batchDAO.page(filter, "value", firstPage.getContinuation(), 1);
+        assertTrue(emptyPage.getDocuments().isEmpty());
+        assertNull(emptyPage.getLastId());
+        assertFalse(emptyPage.hasNext());
+        new Verifications() {
+            {
+                Filters.eq("value", new BsonInt32(1));
+                times = 1;
+                Filters.gt(AbstractCollection.COLLECTION_ID, new BsonObjectId(lastId));
+                times = 1;
+            }
+        };
+    }
+
+    /**
+     * Test page(Bson, ObjectId, int) method with a page size which is not positive.
+     */
+    @Test(dependsOnMethods = "testConstructor", expectedExceptions = IllegalArgumentException.class)
+    public void testPageWithInvalidSize() {
+        dao.page(new BsonDocument(), null, 0);
+    }
+
+    /**
+     * Test stream(Bson, FindOptions) method, the find options are applied and the cursor is closed with the stream.
+     *
+     * @param iterable iterable
+     * @param filter   query filter
+     * @param sort     sort
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testStream(@Mocked FindIterable iterable, @Mocked Bson filter, @Mocked Bson sort) {
+        final MongoCursorTest<AbstractCollection> cursor = new MongoCursorTest<>(Arrays.asList(document, document).iterator());
+        new Expectations() {
+            {
+                collection.find(filter);
+                result = iterable;
+                iterable.batchSize(100);
+                result = iterable;
+                iterable.limit(10);
+                result = iterable;
+                iterable.skip(0);
+                result = iterable;
+                iterable.maxTime(1000, TimeUnit.MILLISECONDS);
+                result = iterable;
+                iterable.sort(sort);
+                result = iterable;
+                iterable.iterator();
+                result = cursor;
+            }
+        };
+        final FindOptions options = new FindOptions().batchSize(100).limit(10).sort(sort).maxTime(1, TimeUnit.SECONDS);
+        try (Stream<AbstractCollection> stream = dao.stream(filter, options)) {
+            assertEquals(Arrays.asList(document, document), stream.collect(Collectors.toList()));
+            assertFalse(cursor.isClosed());
+        }
+        assertTrue(cursor.isClosed());
+        new Verifications() {
+            {
+                iterable.projection((Bson) any);
+                times = 0;
+            }
+        };
+    }
+
+    /**
+     * Test forEach(Bson, Consumer) method, the cursor is closed.
+     *
+     * @param iterable iterable
+     * @param filter   query filter
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testForEach(@Mocked FindIterable iterable, @Mocked Bson filter) {
+        final MongoCursorTest<AbstractCollection> cursor = new MongoCursorTest<>(Arrays.asList(document, document).iterator());
+        new Expectations() {
+            {
+                collection.find(filter);
+                result = iterable;
+                iterable.batchSize(anyInt);
+                result = iterable;
+                iterable.limit(anyInt);
+                result = iterable;
+                iterable.skip(anyInt);
+                result = iterable;
+                iterable.maxTime(anyLong, TimeUnit.MILLISECONDS);
+                result = iterable;
+                iterable.iterator();
+                result = cursor;
+            }
+        };
+        final List<AbstractCollection> documents = new ArrayList<>();
+        dao.forEach(filter, documents::add);
+        assertEquals(Arrays.asList(document, document), documents);
+        assertTrue(cursor.isClosed());
+    }
+
+    /**
+     * Test scan(Bson, Consumer) method, the cursor is decoded by the recycling codec and closed.
+     *
+     * @param iterable       iterable
+     * @param filter         query filter
+     * @param registry       codec registry
+     * @param codec          codec
+     * @param recyclingCodec recycling codec
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testScan(@Mocked FindIterable iterable, @Mocked Bson filter, @Mocked CodecRegistry registry,
+                         @Mocked AbstractCodec<AbstractCollection> codec, @Mocked Codec<AbstractCollection> recyclingCodec) {
+        final MongoCursorTest<AbstractCollection> cursor = new MongoCursorTest<>(Arrays.asList(document, document).iterator());
+        new Expectations() {
+            {
+                collection.getCodecRegistry();
+                result = registry;
+                registry.get((Class) any);
+                result = codec;
+                codec.recycling();
+                result = recyclingCodec;
+                collection.withCodecRegistry((CodecRegistry) any);
+                result = collection;
+                collection.find(filter);
+                result = iterable;
+                iterable.iterator();
+                result = cursor;
+            }
+        };
+        final List<AbstractCollection> documents = new ArrayList<>();
+        dao.scan(filter, documents::add);
+        assertEquals(Arrays.asList(document, document), documents);
+        assertTrue(cursor.isClosed());
+    }
+
+    /**
+     * Test readLazy(ObjectId) method.
+     *
+     * @param iterable iterable
+     * @param registry codec registry
+     * @param codec    codec
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testReadLazy(@Mocked FindIterable iterable, @Mocked CodecRegistry registry,
+                             @Mocked AbstractCodec<AbstractCollection> codec) {
+        final ObjectId objectId = new ObjectId();
+        final RawBsonDocument rawDocument = new RawBsonDocument(new Document(), new DocumentCodec());
+        new Expectations() {
+            {
+                collection.withDocumentClass(RawBsonDocument.class);
+                result = collection;
+                collection.find(withInstanceOf(Bson.class));
+                result = iterable;
+                iterable.first();
+                result = rawDocument;
+                collection.getCodecRegistry();
+                result = registry;
+                registry.get((Class) any);
+                result = codec;
+                codec.decodeLazy(rawDocument);
+                result = document;
+            }
+        };
+        assertEquals(document, dao.readLazy(objectId));
+        new Verifications() {
+            {
+                Filters.eq(AbstractCollection.COLLECTION_ID, objectId);
+                times = 1;
+            }
+        };
+    }
+
+    /**
+     * Test readLazy(ObjectId) method with a missing document.
+     *
+     * @param iterable iterable
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testReadLazyWithMissingDocument(@Mocked FindIterable iterable) {
+        new Expectations() {
+            {
+                collection.withDocumentClass(RawBsonDocument.class);
+                result = collection;
+                collection.find(withInstanceOf(Bson.class));
+                result = iterable;
+                iterable.first();
+                result = null;
+            }
+        };
+        assertNull(dao.readLazy(new ObjectId()));
+    }
+
+    /**
+     * Test save(T) method, a tracked document is saved by a partial update of its changes only, and a document which
+     * is replaced by update(ObjectId, T) is still tracked by its replacement.
+     *
+     * @param iterable iterable
+     * @param registry codec registry
+     * @param codec    codec
+     */
+    @Test
+    public void testSave(@Mocked FindIterable iterable, @Mocked CodecRegistry registry,
+                         @Mocked AbstractCodec<AbstractCollection> codec) {
+        final ObjectId objectId = new ObjectId();
+        final RawBsonDocument rawDocument = new RawBsonDocument(new Document("_id", objectId), new DocumentCodec());
+        final BsonDocument changes = new BsonDocument("$set", new BsonDocument("value", new BsonInt32(1)));
+        new Expectations() {
+            {
+                database.getCollection(anyString, AbstractCollection.class);
+                result = collection;
+                collection.withDocumentClass(RawBsonDocument.class);
+                result = collection;
+                collection.find(withInstanceOf(Bson.class));
+                result = iterable;
+                iterable.first();
+                result = rawDocument;
+                collection.getCodecRegistry();
+                result = registry;
+                registry.get((Class) any);
+                result = codec;
+                codec.decodeLazy(rawDocument);
+                result = document;
+                document.getId();
+                result = objectId;
+                codec.encode((BsonWriter) any, document, (EncoderContext) any);
+                result = new Delegate() {
+                    void encode(final BsonWriter writer, final AbstractCollection value, final EncoderContext encoderContext) {
+                        new CodecTest().encode(writer, value, encoderContext);
+                    }
+                };
+                codec.getUpdate(rawDocument, withInstanceOf(BsonDocument.class));
+                result = changes;
+                codec.getUpdate(withInstanceOf(BsonDocument.class), withInstanceOf(BsonDocument.class));
+                result = new BsonDocument();
+                collection.updateOne(withInstanceOf(Bson.class), changes);
+                times = 1;
+                ((MongoCollection) collection).replaceOne(withInstanceOf(Bson.class),
+                        withInstanceOf(RawBsonDocument.class));
+                times = 1;
+            }
+        };
+        final AbstractDAO<AbstractCollection> trackingDAO = new AbstractDAO<AbstractCollection>("collectionName", AbstractCollection.class) {
+
+            @Override
+            protected MongoDatabase getDatabase() {
+                return database;
+            }
+
+            @Override
+            protected boolean isTrackingChanges() {
+                return true;
+            }
+        };
+        assertEquals(document, trackingDAO.read(objectId));
+        trackingDAO.save(document);
+        trackingDAO.save(document);
+        trackingDAO.update(objectId, document);
+        trackingDAO.save(document);
+    }
+
+    /**
+     * Test save(T) method with a write-behind buffer, a saved document is buffered as a replacement and stays tracked,
+     * so it can be saved again.
+     *
+     * @param iterable iterable
+     * @param registry codec registry
+     * @param codec    codec
+     */
+    @Test
+    public void testSaveWithWriteBehind(@Mocked FindIterable iterable, @Mocked CodecRegistry registry,
+                                        @Mocked AbstractCodec<AbstractCollection> codec) {
+        final ObjectId objectId = new ObjectId();
+        final RawBsonDocument rawDocument = new RawBsonDocument(new Document("_id", objectId), new DocumentCodec());
+        new Expectations() {
+            {
+                database.getCollection(anyString, AbstractCollection.class);
+                result = collection;
+                collection.withDocumentClass(RawBsonDocument.class);
+                result = collection;
+                collection.find(withInstanceOf(Bson.class));
+                result = iterable;
+                iterable.first();
+                result = rawDocument;
+                collection.getCodecRegistry();
+                result = registry;
+                registry.get((Class) any);
+                result = codec;
+                codec.decodeLazy(rawDocument);
+                result = document;
+                document.getId();
+                result = objectId;
+                codec.encode((BsonWriter) any, document, (EncoderContext) any);
+                result = new Delegate() {
+                    void encode(final BsonWriter writer, final AbstractCollection value, final EncoderContext encoderContext) {
+                        new CodecTest().encode(writer, value, encoderContext);
+                    }
+                };
+            }
+        };
+        final WriteBehindBuffer<AbstractCollection> writeBehind = new WriteBehindBuffer<>(collection, new CodecTest(),
+                10, null);
+        final AbstractDAO<AbstractCollection> trackingDAO = new AbstractDAO<AbstractCollection>("collectionName", AbstractCollection.class) {
+
+            @Override
+            protected MongoDatabase getDatabase() {
+                return database;
+            }
+
+            @Override
+            protected WriteBehindBuffer<AbstractCollection> getWriteBehind() {
+                return writeBehind;
+            }
+
+            @Override
+            protected boolean isTrackingChanges() {
+                return true;
+            }
+        };
+        assertEquals(document, trackingDAO.read(objectId));
+        trackingDAO.save(document);
+        trackingDAO.save(document);
+        assertEquals(1, writeBehind.getQueueDepth());
+        assertEquals(2, writeBehind.getUpdateCount());
+        new Verifications() {
+            {
+                collection.replaceOne((Bson) any, (AbstractCollection) any);
+                times = 0;
+                collection.updateOne((Bson) any, (Bson) any);
+                times = 0;
+            }
+        };
+    }
+
+    /**
+     * Test save(AbstractCollection) method of a DAO which does not track changes, the document is not replaced.
+     */
+    @Test(dependsOnMethods = "testConstructor")
+    public void testSaveUntracked() {
+        try {
+            dao.save(document);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("not tracked"));
+        }
+        new Verifications() {
+            {
+                collection.replaceOne((Bson) any, (AbstractCollection) any);
+                times = 0;
+                collection.updateOne((Bson) any, (Bson) any);
+                times = 0;
+            }
+        };
+    }
+
+    /**
+     * Test read(ObjectId), readWithPreference(ObjectId, ReadPreference) and find(Bson, ReadPreference, String...)
+     * methods, the reads are routed by the read preference of the DAO or of the call, and the writes are not.
+     *
+     * @param iterable iterable
+     */
+    @Test
+    public void testReadWithReadPreference(@Mocked FindIterable iterable) {
+        final ObjectId objectId = new ObjectId();
+        final ReadPreference taggedPreference = ReadPreference.nearest(new TagSet(new Tag("region", "east")));
+        new Expectations() {
+            {
+                database.getCollection(anyString, AbstractCollection.class);
+                result = collection;
+                collection.withReadPreference(ReadPreference.secondaryPreferred());
+                result = collection;
+                times = 1;
+                collection.withReadPreference(taggedPreference);
+                result = collection;
+                times = 2;
+                collection.find(withInstanceOf(Bson.class));
+                result = iterable;
+                iterable.first();
+                result = document;
+            }
+        };
+        final AbstractDAO<AbstractCollection> secondaryDAO = new AbstractDAO<AbstractCollection>("collectionName", AbstractCollection.class) {
+
+            @Override
+            protected MongoDatabase getDatabase() {
+                return database;
+            }
+
+            @Override
+            protected ReadPreference getReadPreference() {
+                return ReadPreference.secondaryPreferred();
+            }
+        };
+        assertEquals(document, secondaryDAO.read(objectId));
+        assertEquals(document, secondaryDAO.readWithPreference(objectId, taggedPreference));
+        secondaryDAO.find(Filters.eq("cuisine", "Italian"), taggedPreference);
+        secondaryDAO.update(objectId, document);
+    }
+
+    /**
+     * Test update(ObjectId, T), readByShardKey(ObjectId, Bson) and deleteByShardKey(ObjectId, Bson) methods with a
+     * shard key, the filters have the shard key read from the document by its property accessor, or the supplied one.
+     *
+     * @param registry codec registry
+     */
+    @Test
+    public void testUpdateWithShardKey(@Mocked CodecRegistry registry) {
+        final ObjectId objectId = new ObjectId();
+        final Bson shardKey = new Document("borough", "Bronx");
+        final ShardedCollectionTest shardedDocument = new ShardedCollectionTest();
+        shardedDocument.setBorough("Bronx");
+        new Expectations() {
+            {
+                database.getCollection(anyString, ShardedCollectionTest.class);
+                result = collection;
+                collection.getCodecRegistry();
+                result = registry;
+                registry.get((Class) any);
+                result = new AbstractCodec<ShardedCollectionTest>(MongoClient.getDefaultCodecRegistry(), ShardedCollectionTest.class) {
+                };
+            }
+        };
+        final AbstractDAO<ShardedCollectionTest> shardedDAO = new AbstractDAO<ShardedCollectionTest>("collectionName", ShardedCollectionTest.class) {
+
+            @Override
+            protected MongoDatabase getDatabase() {
+                return database;
+            }
+        };
+        shardedDAO.update(objectId, shardedDocument);
+        shardedDAO.readByShardKey(objectId, shardKey);
+        shardedDAO.deleteByShardKey(objectId, shardKey);
+        new Verifications() {
+            {
+                Filters.eq(AbstractCollection.COLLECTION_ID, objectId);
+                times = 3;
+                Filters.eq("borough", "Bronx");
+                times = 1;
+                Filters.and((List<Bson>) any);
+                times = 1;
+                Filters.and(withInstanceOf(Bson.class), shardKey);
+                times = 2;
+            }
+        };
+    }
+
+    /**
+     * Test reconcileIndexes() method, the declared indexes are not reconciled by the constructor, but on demand, by
+     * their BSON element paths.
+     *
+     * @param registry codec registry
+     */
+    @Test
+    public void testReconcileIndexes(@Mocked CodecRegistry registry) {
+        new Expectations() {
+            {
+                database.getCollection(anyString, ShardedCollectionTest.class);
+                result = collection;
+                collection.getCodecRegistry();
+                result = registry;
+                registry.get((Class) any);
+                result = new AbstractCodec<ShardedCollectionTest>(MongoClient.getDefaultCodecRegistry(), ShardedCollectionTest.class) {
+                };
+            }
+        };
+        final AbstractDAO<ShardedCollectionTest> indexedDAO = new AbstractDAO<ShardedCollectionTest>("collectionName", ShardedCollectionTest.class) {
+
+            @Override
+            protected MongoDatabase getDatabase() {
+                return database;
+            }
+        };
+        new Verifications() {
+            {
+                collection.listIndexes((Class) any);
+                times = 0;
+            }
+        };
+        indexedDAO.reconcileIndexes();
+        new Verifications() {
+            {
+                List<IndexModel> models;
+                collection.createIndexes(models = withCapture());
+                times = 1;
+                assertEquals(1, models.size());
+                assertEquals(new BsonDocument("borough", new BsonInt32(1)), models.get(0).getKeys());
+            }
+        };
+    }
+
+    /**
+     * Test update(ObjectId, T) method.
+     *
+     * @param updateResult update result
+     */
+    @Test
+    public void testUpdate(@Mocked UpdateResult updateResult) {
+        final ObjectId objectId = new ObjectId();
+        new Expectations() {
+            {
+                collection.replaceOne(withInstanceOf(Bson.class), document);
+                result = updateResult;
+            }
+        };
+        dao.update(objectId, document);
+        new Verifications() {
+            {
+                Filters.eq(AbstractCollection.COLLECTION_ID, objectId);
+                times = 1;
+            }
+        };
+    }
+
+    /**
+     * Test delete(ObjectId) method.
+     *
+     * @param deleteResult delete result
+     */
+    @Test
+    public void testUpdate(@Mocked DeleteResult deleteResult) {
+        final ObjectId objectId = new ObjectId();
+        new Expectations() {
+            {
+                collection.deleteOne(withInstanceOf(Bson.class));
+                result = deleteResult;
+            }
+        };
+        dao.delete(objectId);
+        new Verifications() {
+            {
+                Filters.eq(AbstractCollection.COLLECTION_ID, objectId);
+                times = 1;
+            }
+        };
+    }
+
+    /**
+     * Codec which encodes every document as a single element document - test class.
+     *
+     * @author nico.arianto
+     */
+    public static class CodecTest implements Codec<AbstractCollection> {
+
+        @Override
+        public AbstractCollection decode(BsonReader reader, DecoderContext decoderContext) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void encode(BsonWriter writer, AbstractCollection value, EncoderContext encoderContext) {
+            writer.writeStartDocument();
+            writer.writeInt32("value", 1);
+            writer.writeEndDocument();
+        }
+
+        @Override
+        public Class<AbstractCollection> getEncoderClass() {
+            return AbstractCollection.class;
+        }
+    }
+
+    /**
+     * Collection sharded and indexed by borough - test class.
+     *
+     * @author nico.arianto
+     */
+    @ShardKey("borough")
+    @Index("borough")
+    public static class ShardedCollectionTest extends AbstractCollection {
+        private String borough;
+
+        /**
+         * Returns borough.
+         *
+         * @return borough
+         */
+        public String getBorough() {
+            return borough;
+        }
+
+        /**
+         * Sets borough.
+         *
+         * @param borough borough
+         */
+        public void setBorough(String borough) {
+            this.borough = borough;
+        }
+    }
+
+    /**
+     * Mongo cursor over an iterator - test class.
+     *
+     * @param <E> element class
+     * @author nico.arianto
+     */
+    public static class MongoCursorTest<E> implements MongoCursor<E> {
+        private final Iterator<E> iterator;
+        private boolean closed;
+
+        /**
+         * Constructor.
+         *
+         * @param iterator iterator
+         */
+        public MongoCursorTest(Iterator<E> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public E next() {
+            return iterator.next();
+        }
+
+        @Override
+        public E tryNext() {
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public ServerCursor getServerCursor() {
+            return null;
+        }
+
+        @Override
+        public ServerAddress getServerAddress() {
+            return null;
+        }
+
+        /**
+         * Returns true if the cursor is closed.
+         *
+         * @return true if the cursor is closed
+         */
+        public boolean isClosed() {
+            return closed;
+        }
+    }
 }
@@ -0,0 +1,174 @@
+package com.mongodb.app.dao;
+
+import com.mongodb.MongoException;
+import com.mongodb.app.collection.AbstractCollection;
+import com.mongodb.async.AsyncBatchCursor;
+import com.mongodb.async.SingleResultCallback;
+import com.mongodb.async.client.FindIterable;
+import com.mongodb.async.client.MongoCollection;
+import com.mongodb.async.client.MongoDatabase;
+import com.mongodb.client.result.DeleteResult;
+import mockit.Delegate;
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.bson.conversions.Bson;
+import org.reactivestreams.Publisher;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Abstract reactive DAO - unit test.
+ *
+ * @author nico.arianto
+ */
+public class AbstractReactiveDAOTest {
+    @Mocked
+    private MongoDatabase database;
+    @Mocked
+    private MongoCollection<AbstractCollection> collection;
+    @Mocked
+    private AbstractCollection document;
+    private AbstractReactiveDAO<AbstractCollection> dao;
+
+    /**
+     * Initialize the DAO.
+     */
+    @BeforeMethod
+    public void init() {
+        new Expectations() {
+            {
+                database.getCollection(anyString, AbstractCollection.class);
+                result = collection;
+            }
+        };
+        dao = new AbstractReactiveDAO<AbstractCollection>("collectionName", AbstractCollection.class) {
+
+            @Override
+            protected MongoDatabase getDatabase() {
+                return database;
+            }
+        };
+    }
+
+    /**
+     * Test find(Bson, int) method, the maximum batch size is applied and nothing is sent before a request.
+     *
+     * @param iterable iterable
+     * @param filter   query filter
+     */
+    @Test
+    public void testFind(@Mocked FindIterable<AbstractCollection> iterable, @Mocked Bson filter) {
+        new Expectations() {
+            {
+                collection.find(filter);
+                result = iterable;
+                iterable.batchSize(10);
+                result = iterable;
+                iterable.batchCursor((SingleResultCallback<AsyncBatchCursor<AbstractCollection>>) any);
+                result = new Delegate<Void>() {
+                    void batchCursor(SingleResultCallback<AsyncBatchCursor<AbstractCollection>> callback) {
+                        callback.onResult(new CursorPublisherTest.BatchCursorTest<>(Arrays.asList(document, document), null), null);
+                    }
+                };
+            }
+        };
+        final Publisher<AbstractCollection> publisher = dao.find(filter, 10);
+        final CursorPublisherTest.SubscriberTest<AbstractCollection> subscriber = new CursorPublisherTest.SubscriberTest<>();
+        publisher.subscribe(subscriber);
+        assertTrue(subscriber.elements.isEmpty());
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(Arrays.asList(document, document), subscriber.elements);
+        assertTrue(subscriber.completed);
+    }
+
+    /**
+     * Test insertMany(List) method, the documents are inserted on request and the publisher completes empty.
+     */
+    @Test
+    public void testInsertMany() {
+        final List<AbstractCollection> documents = Collections.singletonList(document);
+        new Expectations() {
+            {
+                collection.insertMany(documents, (SingleResultCallback<Void>) any);
+                result = new Delegate<Void>() {
+                    void insertMany(List<AbstractCollection> documents, SingleResultCallback<Void> callback) {
+                        callback.onResult(null, null);
+                    }
+                };
+            }
+        };
+        final Publisher<Void> publisher = dao.insertMany(documents);
+        final CursorPublisherTest.SubscriberTest<Void> subscriber = new CursorPublisherTest.SubscriberTest<>();
+        publisher.subscribe(subscriber);
+        new Verifications() {
+            {
+                collection.insertMany(documents, (SingleResultCallback<Void>) any);
+                times = 0;
+            }
+        };
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.elements.isEmpty());
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    /**
+     * Test deleteMany(Bson) method.
+     *
+     * @param filter       query filter
+     * @param deleteResult delete result
+     */
+    @Test
+    public void testDeleteMany(@Mocked Bson filter, @Mocked DeleteResult deleteResult) {
+        new Expectations() {
+            {
+                collection.deleteMany(filter, (SingleResultCallback<DeleteResult>) any);
+                result = new Delegate<Void>() {
+                    void deleteMany(Bson filter, SingleResultCallback<DeleteResult> callback) {
+                        callback.onResult(deleteResult, null);
+                    }
+                };
+            }
+        };
+        final CursorPublisherTest.SubscriberTest<DeleteResult> subscriber = new CursorPublisherTest.SubscriberTest<>();
+        dao.deleteMany(filter).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        assertEquals(Collections.singletonList(deleteResult), subscriber.elements);
+        assertTrue(subscriber.completed);
+    }
+
+    /**
+     * Test deleteMany(Bson) method with a driver failure.
+     *
+     * @param filter query filter
+     */
+    @Test
+    public void testDeleteManyWithFailure(@Mocked Bson filter) {
+        final MongoException exception = new MongoException("failure");
+        new Expectations() {
+            {
+                collection.deleteMany(filter, (SingleResultCallback<DeleteResult>) any);
+                result = new Delegate<Void>() {
+                    void deleteMany(Bson filter, SingleResultCallback<DeleteResult> callback) {
+                        callback.onResult(null, exception);
+                    }
+                };
+            }
+        };
+        final CursorPublisherTest.SubscriberTest<DeleteResult> subscriber = new CursorPublisherTest.SubscriberTest<>();
+        dao.deleteMany(filter).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        assertEquals(exception, subscriber.error);
+        assertFalse(subscriber.completed);
+    }
+}
@@ -0,0 +1,247 @@
+package com.mongodb.app.dao;
+
+import com.mongodb.Block;
+import com.mongodb.Function;
+import com.mongodb.MongoException;
+import com.mongodb.async.AsyncBatchCursor;
+import com.mongodb.async.SingleResultCallback;
+import com.mongodb.async.client.MongoIterable;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Cursor publisher - unit test.
+ *
+ * @author nico.arianto
+ */
+public class CursorPublisherTest {
+
+    /**
+     * Test request(long) method, the batches are fetched by demand.
+     */
+    @Test
+    public void testRequest() {
+        final IterableTest<Integer> iterable = new IterableTest<>(Arrays.asList(1, 2, 3, 4, 5), null);
+        final SubscriberTest<Integer> subscriber = new SubscriberTest<>();
+        new CursorPublisher<>(iterable, 3).subscribe(subscriber);
+        assertNull(iterable.cursor);
+        subscriber.subscription.request(2);
+        assertEquals(Arrays.asList(1, 2), subscriber.elements);
+        subscriber.subscription.request(10);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), subscriber.elements);
+        assertEquals(Arrays.asList(2, 3), iterable.cursor.batchSizes);
+        assertTrue(subscriber.completed);
+        assertTrue(iterable.cursor.closed);
+        assertNull(subscriber.error);
+    }
+
+    /**
+     * Test cancel() method, the cursor is closed and nothing is emitted anymore.
+     */
+    @Test
+    public void testCancel() {
+        final IterableTest<Integer> iterable = new IterableTest<>(Arrays.asList(1, 2, 3, 4, 5), null);
+        final SubscriberTest<Integer> subscriber = new SubscriberTest<>();
+        new CursorPublisher<>(iterable, 3).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(1);
+        assertEquals(Collections.singletonList(1), subscriber.elements);
+        assertTrue(iterable.cursor.closed);
+        assertFalse(subscriber.completed);
+    }
+
+    /**
+     * Test request(long) method with a request which is not positive.
+     */
+    @Test
+    public void testRequestWithNonPositive() {
+        final SubscriberTest<Integer> subscriber = new SubscriberTest<>();
+        new CursorPublisher<>(new IterableTest<>(Arrays.asList(1, 2), null), 3).subscribe(subscriber);
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(subscriber.elements.isEmpty());
+    }
+
+    /**
+     * Test request(long) method with a cursor failure.
+     */
+    @Test
+    public void testRequestWithFailure() {
+        final MongoException exception = new MongoException("failure");
+        final SubscriberTest<Integer> subscriber = new SubscriberTest<>();
+        new CursorPublisher<>(new IterableTest<>(Arrays.asList(1, 2), exception), 3).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        assertEquals(exception, subscriber.error);
+        assertFalse(subscriber.completed);
+    }
+
+    /**
+     * Test subscribe(Subscriber) method with a NULL subscriber.
+     */
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testSubscribeWithNull() {
+        new CursorPublisher<>(new IterableTest<>(Collections.emptyList(), null), 3).subscribe(null);
+    }
+
+    /**
+     * Subscriber which records every signal - test class.
+     *
+     * @param <T> element class
+     * @author nico.arianto
+     */
+    public static class SubscriberTest<T> implements Subscriber<T> {
+        final List<T> elements = new ArrayList<>();
+        Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(T element) {
+            elements.add(element);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    /**
+     * Asynchronous iterable over a list, which opens a {@link BatchCursorTest} - test class.
+     *
+     * @param <T> element class
+     * @author nico.arianto
+     */
+    public static class IterableTest<T> implements MongoIterable<T> {
+        private final List<T> elements;
+        private final Throwable error;
+        BatchCursorTest<T> cursor;
+
+        /**
+         * Constructor.
+         *
+         * @param elements elements
+         * @param error    error of every batch, or NULL
+         */
+        public IterableTest(List<T> elements, Throwable error) {
+            this.elements = elements;
+            this.error = error;
+        }
+
+        @Override
+        public void batchCursor(SingleResultCallback<AsyncBatchCursor<T>> callback) {
+            cursor = new BatchCursorTest<>(elements, error);
+            callback.onResult(cursor, null);
+        }
+
+        @Override
+        public void first(SingleResultCallback<T> callback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void forEach(Block<? super T> block, SingleResultCallback<Void> callback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <A extends Collection<? super T>> void into(A target, SingleResultCallback<A> callback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U> MongoIterable<U> map(Function<T, U> mapper) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MongoIterable<T> batchSize(int batchSize) {
+            return this;
+        }
+    }
+
+    /**
+     * Asynchronous batch cursor over a list, which records every batch size - test class.
+     *
+     * @param <T> element class
+     * @author nico.arianto
+     */
+    public static class BatchCursorTest<T> implements AsyncBatchCursor<T> {
+        private final List<T> elements;
+        private final Throwable error;
+        final List<Integer> batchSizes = new ArrayList<>();
+        private int batchSize;
+        private int index;
+        boolean closed;
+
+        /**
+         * Constructor.
+         *
+         * @param elements elements
+         * @param error    error of every batch, or NULL
+         */
+        public BatchCursorTest(List<T> elements, Throwable error) {
+            this.elements = elements;
+            this.error = error;
+        }
+
+        @Override
+        public void next(SingleResultCallback<List<T>> callback) {
+            if (error != null) {
+                callback.onResult(null, error);
+                return;
+            }
+            if (index >= elements.size()) {
+                callback.onResult(null, null);
+                return;
+            }
+            batchSizes.add(batchSize);
+            final List<T> batch = new ArrayList<>(elements.subList(index, Math.min(index + batchSize, elements.size())));
+            index += batch.size();
+            callback.onResult(batch, null);
+        }
+
+        @Override
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.mongodb.app.dao;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Document cache - unit test.
+ *
+ * @author nico.arianto
+ */
+public class DocumentCacheTest {
+    private final AtomicLong time = new AtomicLong();
+
+    /**
+     * Test get(ObjectId) and put(ObjectId, RawBsonDocument, long) methods, with hit and miss statistics.
+     */
+    @Test
+    public void testGetAndPut() {
+        final DocumentCache cache = new DocumentCache(10, 1024, 60, TimeUnit.SECONDS);
+        final ObjectId id = new ObjectId();
+        final RawBsonDocument document = createDocument(id);
+        assertNull(cache.get(id));
+        assertTrue(cache.put(id, document, cache.getStamp()));
+        assertSame(document, cache.get(id));
+        assertEquals(1, cache.size());
+        assertEquals(document.getByteBuffer().remaining(), cache.getWeight());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    /**
+     * Test put(ObjectId, RawBsonDocument, long) method, the least recently used entry is evicted by the entry bound.
+     */
+    @Test
+    public void testPutWithMaxEntries() {
+        final DocumentCache cache = new DocumentCache(2, 1024, 60, TimeUnit.SECONDS);
+        final ObjectId firstId = new ObjectId();
+        final ObjectId secondId = new ObjectId();
+        final ObjectId thirdId = new ObjectId();
+        cache.put(firstId, createDocument(firstId), cache.getStamp());
+        cache.put(secondId, createDocument(secondId), cache.getStamp());
+        cache.get(firstId);
+        cache.put(thirdId, createDocument(thirdId), cache.getStamp());
+        assertEquals(2, cache.size());
+        assertNull(cache.get(secondId));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    /**
+     * Test put(ObjectId, RawBsonDocument, long) method, the entries are evicted by the weight bound, and a document
+     * larger than the weight bound is not cached.
+     */
+    @Test
+    public void testPutWithMaxWeight() {
+        final ObjectId firstId = new ObjectId();
+        final ObjectId secondId = new ObjectId();
+        final int size = createDocument(firstId).getByteBuffer().remaining();
+        final DocumentCache cache = new DocumentCache(10, size, 60, TimeUnit.SECONDS);
+        cache.put(firstId, createDocument(firstId), cache.getStamp());
+        cache.put(secondId, createDocument(secondId), cache.getStamp());
+        assertEquals(1, cache.size());
+        assertEquals(size, cache.getWeight());
+        assertNull(cache.get(firstId));
+        final RawBsonDocument largeDocument = new RawBsonDocument(new Document("_id", firstId).append("name", "name"),
+                new DocumentCodec());
+        assertFalse(cache.put(firstId, largeDocument, cache.getStamp()));
+    }
+
+    /**
+     * Test get(ObjectId) method with an expired entry.
+     */
+    @Test
+    public void testGetWithExpiredEntry() {
+        final DocumentCache cache = new DocumentCache(10, 1024, 100, time::get, null);
+        final ObjectId id = new ObjectId();
+        cache.put(id, createDocument(id), cache.getStamp());
+        time.addAndGet(99);
+        assertTrue(cache.get(id) != null);
+        time.addAndGet(1);
+        assertNull(cache.get(id));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    /**
+     * Test invalidate(ObjectId) method, a document which is queried before the invalidation is not cached.
+     */
+    @Test
+    public void testInvalidate() {
+        final DocumentCache cache = new DocumentCache(10, 1024, 60, TimeUnit.SECONDS);
+        final ObjectId id = new ObjectId();
+        cache.put(id, createDocument(id), cache.getStamp());
+        final long stamp = cache.getStamp();
+        cache.invalidate(id);
+        assertNull(cache.get(id));
+        assertEquals(0, cache.getWeight());
+        assertFalse(cache.put(id, createDocument(id), stamp));
+        assertTrue(cache.put(id, createDocument(id), cache.getStamp()));
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    /**
+     * Test get(ObjectId) and put(ObjectId, RawBsonDocument, long) methods of an off-heap cache, a hit is a copy of the
+     * cached bytes.
+     */
+    @Test
+    public void testGetAndPutOffHeap() {
+        final DocumentCache cache = DocumentCache.offHeap(10, DocumentCache.SLAB_SIZE, 60, TimeUnit.SECONDS);
+        final ObjectId id = new ObjectId();
+        final RawBsonDocument document = createDocument(id);
+        assertTrue(cache.put(id, document, cache.getStamp()));
+        final RawBsonDocument cachedDocument = cache.get(id);
+        assertEquals(document, cachedDocument);
+        assertFalse(document == cachedDocument);
+        assertEquals(id, cachedDocument.getObjectId("_id").getValue());
+        cache.invalidate(id);
+        assertNull(cache.get(id));
+        assertEquals(0, cache.getWeight());
+    }
+
+    /**
+     * Test put(ObjectId, RawBsonDocument, long) method of an off-heap cache, the least recently used entries are
+     * evicted until a block is free, and a document larger than a slab is not cached.
+     */
+    @Test
+    public void testPutOffHeapWithFullSlabs() {
+        final ObjectId firstId = new ObjectId();
+        final ObjectId secondId = new ObjectId();
+        final ObjectId thirdId = new ObjectId();
+        final DocumentCache cache = new DocumentCache(10, 1024, 60_000_000_000L, time::get,
+                new SlabAllocator(SlabAllocator.MIN_BLOCK_SIZE * 2, SlabAllocator.MIN_BLOCK_SIZE * 2));
+        cache.put(firstId, createDocument(firstId), cache.getStamp());
+        cache.put(secondId, createDocument(secondId), cache.getStamp());
+        cache.put(thirdId, createDocument(thirdId), cache.getStamp());
+        assertEquals(2, cache.size());
+        assertNull(cache.get(firstId));
+        assertEquals(createDocument(thirdId), cache.get(thirdId));
+        assertEquals(1, cache.getEvictionCount());
+        final RawBsonDocument largeDocument = new RawBsonDocument(new Document("_id", firstId)
+                .append("name", new String(new char[SlabAllocator.MIN_BLOCK_SIZE * 2])), new DocumentCodec());
+        assertFalse(cache.put(firstId, largeDocument, cache.getStamp()));
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * Test put(ObjectId, RawBsonDocument, long) method of an off-heap cache whose slabs are split by another block size,
+     * no entry is evicted for a document which would not fit in the freed blocks, and an empty slab is reused.
+     */
+    @Test
+    public void testPutOffHeapWithOtherBlockSize() {
+        final ObjectId firstId = new ObjectId();
+        final ObjectId secondId = new ObjectId();
+        final ObjectId thirdId = new ObjectId();
+        final DocumentCache cache = new DocumentCache(10, 1024, 60_000_000_000L, time::get,
+                new SlabAllocator(SlabAllocator.MIN_BLOCK_SIZE * 2, SlabAllocator.MIN_BLOCK_SIZE * 2));
+        cache.put(firstId, createDocument(firstId), cache.getStamp());
+        cache.put(secondId, createDocument(secondId), cache.getStamp());
+        final RawBsonDocument largerDocument = new RawBsonDocument(new Document("_id", thirdId)
+                .append("name", new String(new char[SlabAllocator.MIN_BLOCK_SIZE])), new DocumentCodec());
+        assertFalse(cache.put(thirdId, largerDocument, cache.getStamp()));
+        assertEquals(2, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+        cache.invalidate(firstId);
+        assertFalse(cache.put(thirdId, largerDocument, cache.getStamp()));
+        cache.invalidate(secondId);
+        assertTrue(cache.put(thirdId, largerDocument, cache.getStamp()));
+        assertEquals(largerDocument, cache.get(thirdId));
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    /**
+     * Test DocumentCache(int, long, long, TimeUnit) constructor with a bound which is not positive.
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorWithInvalidBound() {
+        new DocumentCache(0, 1024, 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns a raw BSON document with only an id.
+     *
+     * @param id id
+     * @return raw BSON document
+     */
+    private static RawBsonDocument createDocument(final ObjectId id) {
+        return new RawBsonDocument(new Document("_id", id), new DocumentCodec());
+    }
+}
@@ -0,0 +1,157 @@
+package com.mongodb.app.dao;
+
+import com.mongodb.MongoException;
+import com.mongodb.app.annotation.Index;
+import com.mongodb.client.ListIndexesIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.IndexModel;
+import mockit.Delegate;
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Index reconciler - unit test.
+ *
+ * @author nico.arianto
+ */
+public class IndexReconcilerTest {
+    @Mocked
+    private MongoCollection<IndexedCollectionTest> collection;
+    @Mocked
+    private ListIndexesIterable<BsonDocument> existingIndexes;
+    @Mocked
+    private MongoCursor<BsonDocument> cursor;
+
+    /**
+     * Test getIndexModels(Index[], Function) method, the Java property paths are mapped to their BSON element paths.
+     */
+    @Test
+    public void testGetIndexModels() {
+        final Index[] indexes = IndexedCollectionTest.class.getAnnotationsByType(Index.class);
+        final List<IndexModel> models = IndexReconciler.getIndexModels(indexes, property -> property.toUpperCase());
+        assertEquals(3, models.size());
+        final IndexModel compound = models.get(0);
+        assertEquals(new BsonDocument("NAME", new BsonInt32(-1)).append("BOROUGH", new BsonInt32(-1)),
+                compound.getKeys());
+        assertTrue(compound.getOptions().isBackground());
+        assertTrue(compound.getOptions().isUnique());
+        assertTrue(compound.getOptions().isSparse());
+        assertEquals("name_borough", compound.getOptions().getName());
+        assertNull(compound.getOptions().getExpireAfter(TimeUnit.SECONDS));
+        final IndexModel geo = models.get(1);
+        assertEquals(new BsonDocument("COORD", new BsonString("2dsphere")), geo.getKeys());
+        assertFalse(geo.getOptions().isUnique());
+        assertNull(geo.getOptions().getName());
+        final IndexModel ttl = models.get(2);
+        assertEquals(new BsonDocument("DATE", new BsonInt32(1)), ttl.getKeys());
+        assertEquals(Long.valueOf(3600), ttl.getOptions().getExpireAfter(TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test reconcile(MongoCollection, List) method, only the index without an existing index of the same keys is
+     * created.
+     */
+    @Test
+    public void testReconcile() {
+        final List<IndexModel> models = IndexReconciler.getIndexModels(
+                IndexedCollectionTest.class.getAnnotationsByType(Index.class), property -> property);
+        new Expectations() {
+            {
+                existingIndexes.iterator();
+                result = cursor;
+                cursor.hasNext();
+                returns(true, true, true, false);
+                cursor.next();
+                returns(new BsonDocument("key", new BsonDocument("_id", new BsonInt32(1))),
+                        new BsonDocument("key", new BsonDocument("name", new BsonDouble(-1.0))
+                                .append("borough", new BsonInt32(-1))),
+                        new BsonDocument("key", new BsonDocument("date", new BsonDouble(1.0)))
+                                .append("expireAfterSeconds", new BsonInt32(3600)));
+                collection.createIndexes((List<IndexModel>) any);
+                result = new Delegate() {
+                    List<String> createIndexes(final List<IndexModel> missingModels) {
+                        assertEquals(1, missingModels.size());
+                        assertEquals(new BsonDocument("coord", new BsonString("2dsphere")),
+                                missingModels.get(0).getKeys());
+                        return Collections.singletonList("coord_2dsphere");
+                    }
+                };
+                times = 1;
+            }
+        };
+        assertEquals(Collections.singletonList("coord_2dsphere"), IndexReconciler.reconcile(collection, models));
+    }
+
+    /**
+     * Test reconcile(MongoCollection, List) method, no index is created if every declared index exists, and an
+     * existing index with other options is kept.
+     */
+    @Test
+    public void testReconcileWithExistingIndexes() {
+        final List<IndexModel> models = IndexReconciler.getIndexModels(
+                IndexedCollectionTest.class.getAnnotationsByType(Index.class), property -> property);
+        new Expectations() {
+            {
+                existingIndexes.iterator();
+                result = cursor;
+                cursor.hasNext();
+                returns(true, true, true, false);
+                cursor.next();
+                returns(new BsonDocument("key", new BsonDocument("name", new BsonInt32(-1))
+                                .append("borough", new BsonInt32(-1))),
+                        new BsonDocument("key", new BsonDocument("coord", new BsonString("2dsphere"))),
+                        new BsonDocument("key", new BsonDocument("date", new BsonInt32(1))));
+            }
+        };
+        assertTrue(IndexReconciler.reconcile(collection, models).isEmpty());
+        new Verifications() {
+            {
+                collection.createIndexes((List<IndexModel>) any);
+                times = 0;
+            }
+        };
+    }
+
+    /**
+     * Test reconcile(MongoCollection, List) method, a failure is thrown, so the call can be retried.
+     */
+    @Test(expectedExceptions = MongoException.class)
+    public void testReconcileThrowMongoException() {
+        new Expectations() {
+            {
+                collection.listIndexes(BsonDocument.class);
+                result = new MongoException("not authorized");
+            }
+        };
+        IndexReconciler.reconcile(collection, Collections.singletonList(
+                new IndexModel(new BsonDocument("name", new BsonInt32(1)))));
+    }
+
+    /**
+     * Indexed collection test.
+     *
+     * @author nico.arianto
+     */
+    @Index(value = {"name", "borough"}, kind = Index.Kind.DESCENDING, name = "name_borough", unique = true,
+            sparse = true)
+    @Index(value = "coord", kind = Index.Kind.GEO_2DSPHERE)
+    @Index(value = "date", expireAfterSeconds = 3600)
+    private static class IndexedCollectionTest {
+    }
+}
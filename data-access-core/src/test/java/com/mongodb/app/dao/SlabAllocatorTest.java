@@ -0,0 +1,99 @@
+package com.mongodb.app.dao;
+
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Slab allocator - unit test.
+ *
+ * @author nico.arianto
+ */
+public class SlabAllocatorTest {
+
+    /**
+     * Test getBlockSize(int) method.
+     */
+    @Test
+    public void testGetBlockSize() {
+        final SlabAllocator allocator = new SlabAllocator(1024, 4096);
+        assertEquals(64, allocator.getBlockSize(1));
+        assertEquals(64, allocator.getBlockSize(64));
+        assertEquals(128, allocator.getBlockSize(65));
+        assertEquals(1024, allocator.getBlockSize(1024));
+        assertEquals(-1, allocator.getBlockSize(1025));
+    }
+
+    /**
+     * Test allocate(int) and free(long, int) methods, a slab is split by the first block size which needs it, and a
+     * freed block is reused.
+     */
+    @Test
+    public void testAllocateAndFree() {
+        final SlabAllocator allocator = new SlabAllocator(256, 512);
+        final long first = allocator.allocate(100);
+        final long second = allocator.allocate(128);
+        assertEquals(0L, first);
+        assertEquals(128L, second);
+        assertEquals(1, allocator.getSlabCount());
+        final long third = allocator.allocate(10);
+        assertEquals(1L << 32, third);
+        assertEquals(2, allocator.getSlabCount());
+        assertEquals(-1L, allocator.allocate(100));
+        assertEquals(-1L, allocator.allocate(257));
+        allocator.free(first, 100);
+        assertEquals(first, allocator.allocate(120));
+    }
+
+    /**
+     * Test free(long, int) and canAllocate(int) methods, a slab whose blocks are all free is taken back and split by
+     * another block size.
+     */
+    @Test
+    public void testFreeWithEmptySlab() {
+        final SlabAllocator allocator = new SlabAllocator(256, 256);
+        final long first = allocator.allocate(64);
+        final long second = allocator.allocate(64);
+        assertTrue(allocator.canAllocate(64));
+        assertFalse(allocator.canAllocate(256));
+        assertEquals(-1L, allocator.allocate(256));
+        allocator.free(first, 64);
+        assertEquals(0, allocator.getEmptySlabCount());
+        allocator.free(second, 64);
+        assertEquals(1, allocator.getEmptySlabCount());
+        assertTrue(allocator.canAllocate(256));
+        assertEquals(0L, allocator.allocate(256));
+        assertEquals(0, allocator.getEmptySlabCount());
+        assertFalse(allocator.canAllocate(64));
+        assertEquals(1, allocator.getSlabCount());
+    }
+
+    /**
+     * Test write(long, ByteBuffer) and read(long, int) methods.
+     */
+    @Test
+    public void testWriteAndRead() {
+        final SlabAllocator allocator = new SlabAllocator(256, 256);
+        allocator.allocate(64);
+        final long handle = allocator.allocate(64);
+        final byte[] bytes = new byte[50];
+        Arrays.fill(bytes, (byte) 7);
+        final ByteBuffer source = ByteBuffer.wrap(bytes);
+        allocator.write(handle, source);
+        assertEquals(0, source.position());
+        assertTrue(Arrays.equals(bytes, allocator.read(handle, bytes.length)));
+    }
+
+    /**
+     * Test SlabAllocator(int, long) constructor with a slab size which is not a power of two.
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorWithInvalidSlabSize() {
+        new SlabAllocator(1000, 4096);
+    }
+}
@@ -0,0 +1,41 @@
+package com.mongodb.app.dao;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+
+/**
+ * Snapshot table - unit test.
+ *
+ * @author nico.arianto
+ */
+public class SnapshotTableTest {
+
+    /**
+     * Test put(T, RawBsonDocument), get(T) and remove(T) methods, the collection objects are tracked by identity.
+     */
+    @Test
+    public void testPutAndGet() {
+        final SnapshotTable<List<String>> table = new SnapshotTable<>();
+        final List<String> document = new ArrayList<>();
+        final List<String> equalDocument = new ArrayList<>();
+        final RawBsonDocument snapshot = new RawBsonDocument(new Document("value", 1), new DocumentCodec());
+        table.put(document, snapshot);
+        assertSame(snapshot, table.get(document));
+        assertNull(table.get(equalDocument));
+        document.add("changed");
+        assertSame(snapshot, table.get(document));
+        assertEquals(1, table.size());
+        table.remove(document);
+        assertNull(table.get(document));
+        assertEquals(0, table.size());
+    }
+}
@@ -0,0 +1,251 @@
+package com.mongodb.app.dao;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoClient;
+import com.mongodb.MongoException;
+import com.mongodb.ServerAddress;
+import com.mongodb.app.codec.AbstractCollectionCodec;
+import com.mongodb.app.codec.AbstractCollectionCodecTest.CollectionTest;
+import com.mongodb.app.collection.AbstractCollection;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+/**
+ * Write-behind buffer - unit test.
+ *
+ * @author nico.arianto
+ */
+public class WriteBehindBufferTest {
+    private final AbstractCollectionCodec<CollectionTest> codec =
+            new AbstractCollectionCodec<CollectionTest>(MongoClient.getDefaultCodecRegistry(), CollectionTest.class) {
+            };
+    @Mocked
+    private MongoCollection<CollectionTest> collection;
+
+    /**
+     * Test replace(ObjectId, AbstractCollection) and flush() methods, the replacements of a document are coalesced
+     * into a single unordered bulk write.
+     */
+    @Test
+    public void testReplaceAndFlush() {
+        final CollectionTest first = createDocument("first");
+        final CollectionTest second = createDocument("second");
+        final WriteBehindBuffer<CollectionTest> buffer = new WriteBehindBuffer<>(collection, codec, 10, null);
+        buffer.replace(first.getId(), second);
+        buffer.replace(second.getId(), second);
+        buffer.replace(first.getId(), first);
+        assertEquals(2, buffer.getQueueDepth());
+        assertEquals("first", buffer.get(first.getId()).getStringProp());
+        buffer.flush();
+        buffer.flush();
+        assertEquals(0, buffer.getQueueDepth());
+        assertNull(buffer.get(first.getId()));
+        assertEquals(3, buffer.getUpdateCount());
+        assertEquals(2, buffer.getWriteCount());
+        assertEquals(1, buffer.getFlushCount());
+        new Verifications() {
+            {
+                List requests;
+                BulkWriteOptions options;
+                collection.bulkWrite(requests = withCapture(), options = withCapture());
+                times = 1;
+                assertEquals(2, requests.size());
+                assertEquals(new RawBsonDocument(first, codec),
+                        ((ReplaceOneModel<RawBsonDocument>) requests.get(0)).getReplacement());
+                assertEquals(new RawBsonDocument(second, codec),
+                        ((ReplaceOneModel<RawBsonDocument>) requests.get(1)).getReplacement());
+                assertFalse(options.isOrdered());
+            }
+        };
+    }
+
+    /**
+     * Test replace(ObjectId, AbstractCollection, Bson) and get(ObjectId) methods, the document is encoded when it is
+     * buffered, so a later change is not written, and every read decodes its own copy.
+     */
+    @Test
+    public void testReplaceAndGetCopy() {
+        final CollectionTest document = createDocument("buffered");
+        final Bson filter = and(eq(AbstractCollection.COLLECTION_ID, document.getId()), eq("stringProp", "buffered"));
+        final WriteBehindBuffer<CollectionTest> buffer = new WriteBehindBuffer<>(collection, codec, 10, null);
+        buffer.replace(document.getId(), document, filter);
+        document.setStringProp("changed");
+        final CollectionTest firstCopy = buffer.get(document.getId());
+        final CollectionTest secondCopy = buffer.get(document.getId());
+        assertNotSame(document, firstCopy);
+        assertNotSame(firstCopy, secondCopy);
+        assertEquals("buffered", firstCopy.getStringProp());
+        firstCopy.setStringProp("corrupted");
+        assertEquals("buffered", secondCopy.getStringProp());
+        buffer.flush();
+        new Verifications() {
+            {
+                List requests;
+                collection.bulkWrite(requests = withCapture(), (BulkWriteOptions) any);
+                final ReplaceOneModel<RawBsonDocument> request = (ReplaceOneModel<RawBsonDocument>) requests.get(0);
+                assertSame(filter, request.getFilter());
+                assertEquals("buffered", request.getReplacement().getString("stringProp").getValue());
+            }
+        };
+    }
+
+    /**
+     * Test replace(ObjectId, AbstractCollection) method, the buffer is flushed when it reaches the maximum number of
+     * pending documents.
+     */
+    @Test
+    public void testReplaceWithMaxPending() {
+        final WriteBehindBuffer<CollectionTest> buffer = new WriteBehindBuffer<>(collection, codec, 2, null);
+        buffer.replace(new ObjectId(), createDocument("first"));
+        assertEquals(1, buffer.getQueueDepth());
+        buffer.replace(new ObjectId(), createDocument("second"));
+        assertEquals(0, buffer.getQueueDepth());
+        assertEquals(1, buffer.getFlushCount());
+    }
+
+    /**
+     * Test flush() method with a failed bulk write, the failed replacement is pending again, unless it is replaced
+     * meanwhile.
+     */
+    @Test
+    public void testFlushWithFailure() {
+        new Expectations() {
+            {
+                collection.bulkWrite((List) any, (BulkWriteOptions) any);
+                result = new MongoException("failure");
+                result = null;
+            }
+        };
+        final WriteBehindBuffer<CollectionTest> buffer = new WriteBehindBuffer<>(collection, codec, 10, null);
+        final ObjectId id = new ObjectId();
+        buffer.replace(id, createDocument("first"));
+        try {
+            buffer.flush();
+            fail();
+        } catch (MongoException e) {
+            assertEquals(1, buffer.getFailureCount());
+            assertEquals(0, buffer.getFlushCount());
+            assertEquals(1, buffer.getQueueDepth());
+            assertEquals("first", buffer.get(id).getStringProp());
+        }
+        buffer.flush();
+        assertEquals(0, buffer.getQueueDepth());
+        assertEquals(1, buffer.getWriteCount());
+        assertEquals(1, buffer.getFlushCount());
+    }
+
+    /**
+     * Test flush() method with a partially failed bulk write, only the failed replacement is pending again.
+     */
+    @Test
+    public void testFlushWithWriteError() {
+        final ObjectId writtenId = new ObjectId();
+        final ObjectId failedId = new ObjectId();
+        new Expectations() {
+            {
+                collection.bulkWrite((List) any, (BulkWriteOptions) any);
+                result = new MongoBulkWriteException(BulkWriteResult.acknowledged(0, 1, 0, 1, Collections.emptyList()),
+                        Collections.singletonList(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)),
+                        null, new ServerAddress());
+            }
+        };
+        final WriteBehindBuffer<CollectionTest> buffer = new WriteBehindBuffer<>(collection, codec, 10, null);
+        buffer.replace(writtenId, createDocument("written"));
+        buffer.replace(failedId, createDocument("failed"));
+        try {
+            buffer.flush();
+            fail();
+        } catch (MongoBulkWriteException e) {
+            assertEquals(1, buffer.getQueueDepth());
+            assertNull(buffer.get(writtenId));
+            assertEquals("failed", buffer.get(failedId).getStringProp());
+            assertEquals(1, buffer.getWriteCount());
+        }
+    }
+
+    /**
+     * Test discard(ObjectId) method, the buffered replacement is dropped.
+     */
+    @Test
+    public void testDiscard() {
+        final WriteBehindBuffer<CollectionTest> buffer = new WriteBehindBuffer<>(collection, codec, 10, null);
+        final ObjectId id = new ObjectId();
+        buffer.replace(id, createDocument("first"));
+        buffer.discard(id);
+        assertNull(buffer.get(id));
+        assertEquals(0, buffer.getQueueDepth());
+    }
+
+    /**
+     * Test close() method, the pending replacements are flushed, the scheduler is shut down and a replacement is
+     * rejected.
+     *
+     * @param scheduler scheduler
+     */
+    @Test
+    public void testClose(@Mocked ScheduledExecutorService scheduler) {
+        final WriteBehindBuffer<CollectionTest> buffer = new WriteBehindBuffer<>(collection, codec, 10, scheduler);
+        buffer.replace(new ObjectId(), createDocument("first"));
+        buffer.close();
+        assertEquals(1, buffer.getWriteCount());
+        try {
+            buffer.replace(new ObjectId(), createDocument("second"));
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("closed"));
+        }
+        new Verifications() {
+            {
+                scheduler.shutdown();
+                times = 1;
+            }
+        };
+    }
+
+    /**
+     * Test WriteBehindBuffer(MongoCollection, Codec, int, ScheduledExecutorService) constructor with a maximum number
+     * of pending documents which is not positive.
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorWithInvalidMaxPending() {
+        new WriteBehindBuffer<>(collection, codec, 0, null);
+    }
+
+    /**
+     * Returns a document with an id.
+     *
+     * @param stringProp string property
+     * @return document
+     */
+    private static CollectionTest createDocument(final String stringProp) {
+        final CollectionTest document = new CollectionTest();
+        document.setId(new ObjectId());
+        document.setStringProp(stringProp);
+        return document;
+    }
+}
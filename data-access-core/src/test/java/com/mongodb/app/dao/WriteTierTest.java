@@ -0,0 +1,29 @@
+package com.mongodb.app.dao;
+
+import com.mongodb.WriteConcern;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Write tier - unit test.
+ *
+ * @author nico.arianto
+ */
+public class WriteTierTest {
+
+    /**
+     * Test getWriteConcern() method.
+     */
+    @Test
+    public void testGetWriteConcern() {
+        assertEquals(1, WriteTier.FAST.getWriteConcern().getW());
+        assertFalse(WriteTier.FAST.getWriteConcern().getJournal());
+        assertEquals("majority", WriteTier.DURABLE.getWriteConcern().getWString());
+        assertTrue(WriteTier.DURABLE.getWriteConcern().getJournal());
+        assertEquals(WriteConcern.UNACKNOWLEDGED, WriteTier.FIRE_AND_FORGET.getWriteConcern());
+        assertFalse(WriteTier.FIRE_AND_FORGET.getWriteConcern().isAcknowledged());
+    }
+}
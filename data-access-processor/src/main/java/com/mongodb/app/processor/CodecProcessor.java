@@ -0,0 +1,1045 @@
+package com.mongodb.app.processor;
+
+import com.mongodb.app.annotation.ElementName;
+import com.mongodb.app.annotation.GenerateCodec;
+import com.mongodb.app.annotation.PropertyOrder;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Codec processor.
+ * <p>
+ * Generates a reflection-free codec for each Java Bean annotated by {@link GenerateCodec}, and a codec provider which
+ * returns those codecs. The generated codec encodes its properties by a fixed write sequence and decodes them by a
+ * switch on the element name which calls the setters, the codecs of its nested Java Beans are resolved once by its
+ * constructor. It passes compiled property accessors to the abstract codec too, for the lazy, projection and update
+ * paths, so the collection class is never introspected and no property is read or written by reflection. With
+ * {@code @GenerateCodec(lazy = true)}, a lazy subclass is generated next to the codec too.
+ * <p>
+ * Options:
+ * <ul>
+ * <li>codecPackage: package of the generated codecs, default is the package of the Java Bean.</li>
+ * <li>codecProvider: fully qualified name of the generated codec provider, default is 'GeneratedCodecProvider' in the
+ * package of the first generated codec.</li>
+ * </ul>
+ *
+ * @author nico.arianto
+ */
+@SupportedAnnotationTypes(CodecProcessor.GENERATE_CODEC)
+@SupportedOptions({CodecProcessor.CODEC_PACKAGE, CodecProcessor.CODEC_PROVIDER})
+public class CodecProcessor extends AbstractProcessor {
+    static final String GENERATE_CODEC = "com.mongodb.app.annotation.GenerateCodec";
+    static final String CODEC_PACKAGE = "codecPackage";
+    static final String CODEC_PROVIDER = "codecProvider";
+    private static final String ABSTRACT_COLLECTION = "com.mongodb.app.collection.AbstractCollection";
+    private static final String JAVA_ID = "id";
+    private static final String COLLECTION_ID = "_id";
+    private static final String CODEC_SUFFIX = "Codec";
+    private static final String LAZY_PREFIX = "Lazy";
+    private static final String DEFAULT_PROVIDER = "GeneratedCodecProvider";
+    private final Map<String, String> generatedCodecs = new LinkedHashMap<>();
+    private final Map<String, String> generatedLazyClasses = new LinkedHashMap<>();
+    private boolean providerGenerated;
+
+    /**
+     * Returns the latest supported source version.
+     *
+     * @return source version
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * Generates the codecs of the annotated Java Beans, then the codec provider.
+     *
+     * @param annotations annotations
+     * @param roundEnv    round environment
+     * @return true, the annotation is claimed by this processor
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        final List<Element> elements = new ArrayList<>(roundEnv.getElementsAnnotatedWith(GenerateCodec.class));
+        if (elements.isEmpty()) {
+            return true;
+        }
+        elements.sort(Comparator.comparing(element -> element.toString()));
+        for (Element element : elements) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error("@GenerateCodec is only supported on a class!", element);
+                continue;
+            }
+            generateCodec((TypeElement) element);
+        }
+        generateProvider(elements.get(0));
+        return true;
+    }
+
+    /**
+     * Generates the codec of a Java Bean.
+     *
+     * @param type Java Bean
+     */
+    private void generateCodec(final TypeElement type) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT) || !type.getModifiers().contains(Modifier.PUBLIC)) {
+            error("@GenerateCodec is only supported on a public concrete class!", type);
+            return;
+        }
+        if (!hasDefaultConstructor(type)) {
+            error("@GenerateCodec requires a public default constructor!", type);
+            return;
+        }
+        final String beanName = type.getQualifiedName().toString();
+        final String codecPackage = processingEnv.getOptions().getOrDefault(CODEC_PACKAGE, getPackageName(type));
+        final String codecSimpleName = type.getSimpleName() + CODEC_SUFFIX;
+        final String codecName = codecPackage.isEmpty() ? codecSimpleName : codecPackage + "." + codecSimpleName;
+        final boolean collection = isCollection(type);
+        final String superClass = collection ? "AbstractCollectionCodec" : "AbstractCodec";
+        final List<Property> properties = readProperties(type);
+        final boolean lazy = type.getAnnotation(GenerateCodec.class).lazy();
+        if (lazy && (type.getModifiers().contains(Modifier.FINAL)
+                || properties.stream().anyMatch(property -> !property.overridable))) {
+            error("@GenerateCodec(lazy = true) requires a non-final class with non-final getters and setters!", type);
+            return;
+        }
+        final String lazySimpleName = LAZY_PREFIX + type.getSimpleName();
+        final String lazyName = codecPackage.isEmpty() ? lazySimpleName : codecPackage + "." + lazySimpleName;
+        final StringBuilder source = new StringBuilder();
+        if (!codecPackage.isEmpty()) {
+            source.append("package ").append(codecPackage).append(";\n\n");
+        }
+        if (!"com.mongodb.app.codec".equals(codecPackage)) {
+            source.append("import com.mongodb.app.codec.").append(superClass).append(";\n");
+            source.append("import com.mongodb.app.codec.PropertyAccessor;\n");
+            if (lazy) {
+                source.append("import com.mongodb.app.codec.LazyLoader;\n");
+            }
+        }
+        final Map<String, String> codecFields = getCodecFields(properties);
+        source.append("import org.bson.BsonReader;\n");
+        source.append("import org.bson.BsonType;\n");
+        source.append("import org.bson.BsonWriter;\n");
+        if (!codecFields.isEmpty()) {
+            source.append("import org.bson.codecs.Codec;\n");
+        }
+        source.append("import org.bson.codecs.DecoderContext;\n");
+        source.append("import org.bson.codecs.EncoderContext;\n");
+        source.append("import org.bson.codecs.configuration.CodecRegistry;\n\n");
+        source.append("import java.util.ArrayList;\n");
+        source.append("import java.util.List;\n\n");
+        source.append("/**\n");
+        source.append(" * ").append(type.getSimpleName()).append(" codec.\n");
+        source.append(" * <p>\n");
+        source.append(" * Generated by the codec processor from {@link ").append(beanName).append("}, do not edit.\n");
+        source.append(" * The element names of encode and decode are fixed at generation, the property accessors are used by\n");
+        source.append(" * the lazy, projection and update paths only.\n");
+        source.append(" */\n");
+        source.append("public class ").append(codecSimpleName).append(" extends ").append(superClass)
+                .append("<").append(beanName).append("> {\n");
+        for (Map.Entry<String, String> codecField : codecFields.entrySet()) {
+            source.append("    private final Codec<").append(codecField.getKey()).append("> ")
+                    .append(codecField.getValue()).append(";\n");
+        }
+        source.append("\n");
+        source.append("    /**\n");
+        source.append("     * Constructor.\n");
+        source.append("     *\n");
+        source.append("     * @param registry registry\n");
+        source.append("     */\n");
+        source.append("    public ").append(codecSimpleName).append("(CodecRegistry registry) {\n");
+        source.append("        super(registry, ").append(beanName).append(".class, accessors());\n");
+        for (Map.Entry<String, String> codecField : codecFields.entrySet()) {
+            source.append("        this.").append(codecField.getValue()).append(" = getCodec(")
+                    .append(codecField.getKey()).append(".class);\n");
+        }
+        source.append("    }\n\n");
+        source.append("    /**\n");
+        source.append("     * Returns property accessors.\n");
+        source.append("     *\n");
+        source.append("     * @return property accessors\n");
+        source.append("     */\n");
+        source.append("    @SuppressWarnings(\"unchecked\")\n");
+        source.append("    private static List<PropertyAccessor<").append(beanName).append(">> accessors() {\n");
+        source.append("        final List<PropertyAccessor<").append(beanName).append(">> accessors = new ArrayList<>(")
+                .append(properties.size()).append(");\n");
+        for (Property property : properties) {
+            final String primitiveFactory = getPrimitiveFactory(property.type);
+            if (primitiveFactory != null) {
+                source.append("        accessors.add(PropertyAccessor.").append(primitiveFactory).append("(\"")
+                        .append(property.name).append("\", \"").append(property.elementName).append("\", ")
+                        .append(beanName).append("::").append(property.getter).append(", ").append(beanName)
+                        .append("::").append(property.setter).append("));\n");
+                continue;
+            }
+            source.append("        accessors.add(new PropertyAccessor<>(\"").append(property.name).append("\", \"")
+                    .append(property.elementName).append("\", ").append(getClassLiteral(property.type)).append(", ")
+                    .append(getElementClassLiteral(property.type)).append(",\n");
+            source.append("                ").append(beanName).append("::").append(property.getter)
+                    .append(", (target, value) -> target.").append(property.setter).append("((")
+                    .append(getCastType(property.type)).append(") value)));\n");
+        }
+        source.append("        return accessors;\n");
+        source.append("    }\n");
+        final String[] elementNames = getElementNames(collection, properties);
+        appendEncode(source, type, properties, elementNames, codecFields);
+        appendDecode(source, type, collection, properties, elementNames, codecFields);
+        if (lazy) {
+            source.append("\n");
+            source.append("    /**\n");
+            source.append("     * Returns a lazy ").append(type.getSimpleName()).append(" backed by the lazy loader.\n");
+            source.append("     *\n");
+            source.append("     * @param loader lazy loader\n");
+            source.append("     * @return lazy ").append(type.getSimpleName()).append("\n");
+            source.append("     */\n");
+            source.append("    @Override\n");
+            source.append("    protected ").append(beanName).append(" createLazy(LazyLoader<").append(beanName)
+                    .append("> loader) {\n");
+            source.append("        return new ").append(lazySimpleName).append("(loader);\n");
+            source.append("    }\n");
+        }
+        source.append("}\n");
+        if (writeSource(codecName, source, type)) {
+            generatedCodecs.put(beanName, codecName);
+        }
+        if (lazy && generateLazyClass(type, codecPackage, lazySimpleName, properties)) {
+            generatedLazyClasses.put(beanName, lazyName);
+        }
+    }
+
+    /**
+     * Appends the encode method, which writes the properties in a fixed sequence, the "_id" element first, then the
+     * properties listed by {@link PropertyOrder}, then the remaining properties in declaration order.
+     *
+     * @param source       source
+     * @param type         Java Bean
+     * @param properties   properties
+     * @param elementNames BSON element name of each property
+     * @param codecFields  codec field of each generated Java Bean type
+     */
+    private void appendEncode(final StringBuilder source, final TypeElement type, final List<Property> properties,
+                              final String[] elementNames, final Map<String, String> codecFields) {
+        final String beanName = type.getQualifiedName().toString();
+        source.append("\n");
+        source.append("    /**\n");
+        source.append("     * Encode a collection object.\n");
+        source.append("     *\n");
+        source.append("     * @param writer         writer\n");
+        source.append("     * @param value          value\n");
+        source.append("     * @param encoderContext context\n");
+        source.append("     */\n");
+        source.append("    @Override\n");
+        source.append("    public void encode(BsonWriter writer, ").append(beanName)
+                .append(" value, EncoderContext encoderContext) {\n");
+        source.append("        if (value == null) {\n");
+        source.append("            return;\n");
+        source.append("        }\n");
+        source.append("        writer.writeStartDocument();\n");
+        for (int slot : getWriteOrder(type, properties, elementNames)) {
+            final Property property = properties.get(slot);
+            final String elementName = "\"" + elementNames[slot] + "\"";
+            final String getter = "value." + property.getter + "()";
+            final String writeMethod = getWriteMethod(property.type);
+            if (property.type.getKind().isPrimitive() && writeMethod != null) {
+                source.append("        writer.").append(writeMethod).append("(").append(elementName).append(", ")
+                        .append(getter).append(");\n");
+                continue;
+            }
+            if (property.type.getKind().isPrimitive()) {
+                source.append("        writer.writeName(").append(elementName).append(");\n");
+                source.append("        writeElement(writer, ").append(slot).append(", ").append(getter)
+                        .append(", encoderContext);\n");
+                continue;
+            }
+            final String local = property.name + "Value";
+            source.append("        final ").append(property.type).append(" ").append(local).append(" = ")
+                    .append(getter).append(";\n");
+            source.append("        if (").append(local).append(" != null) {\n");
+            final String codecField = codecFields.get(getNestedTypeName(property.type));
+            if (writeMethod != null) {
+                source.append("            writer.").append(writeMethod).append("(").append(elementName).append(", ")
+                        .append(local).append(isDate(property.type) ? ".getTime()" : "").append(");\n");
+            } else if (getPrimitiveArrayWriteMethod(property.type) != null) {
+                source.append("            writer.writeStartArray(").append(elementName).append(");\n");
+                source.append("            for (").append(((ArrayType) property.type).getComponentType())
+                        .append(" element : ").append(local).append(") {\n");
+                source.append("                writer.").append(getPrimitiveArrayWriteMethod(property.type))
+                        .append("(element);\n");
+                source.append("            }\n");
+                source.append("            writer.writeEndArray();\n");
+            } else if (codecField != null && getCollectionImplementation(property.type) != null) {
+                source.append("            writer.writeStartArray(").append(elementName).append(");\n");
+                source.append("            for (").append(getNestedTypeName(property.type)).append(" element : ")
+                        .append(local).append(") {\n");
+                source.append("                writeValue(writer, ").append(codecField)
+                        .append(", element, encoderContext.getChildContext());\n");
+                source.append("            }\n");
+                source.append("            writer.writeEndArray();\n");
+            } else if (codecField != null) {
+                source.append("            writer.writeName(").append(elementName).append(");\n");
+                source.append("            writeValue(writer, ").append(codecField).append(", ").append(local)
+                        .append(", encoderContext);\n");
+            } else {
+                source.append("            writer.writeName(").append(elementName).append(");\n");
+                source.append("            writeElement(writer, ").append(slot).append(", ").append(local)
+                        .append(", encoderContext);\n");
+            }
+            source.append("        }\n");
+        }
+        source.append("        writer.writeEndDocument();\n");
+        source.append("    }\n");
+    }
+
+    /**
+     * Appends the decode method, which switches on the element name and calls the setter of its property, an unknown
+     * element is skipped.
+     *
+     * @param source       source
+     * @param type         Java Bean
+     * @param collection   true if the Java Bean is a collection
+     * @param properties   properties
+     * @param elementNames BSON element name of each property
+     * @param codecFields  codec field of each generated Java Bean type
+     */
+    private void appendDecode(final StringBuilder source, final TypeElement type, final boolean collection,
+                              final List<Property> properties, final String[] elementNames,
+                              final Map<String, String> codecFields) {
+        final String beanName = type.getQualifiedName().toString();
+        source.append("\n");
+        source.append("    /**\n");
+        source.append("     * Decode a collection object.\n");
+        source.append("     *\n");
+        source.append("     * @param reader         reader\n");
+        source.append("     * @param decoderContext context\n");
+        source.append("     * @return collection object\n");
+        source.append("     */\n");
+        source.append("    @Override\n");
+        source.append("    public ").append(beanName).append(" decode(BsonReader reader, DecoderContext decoderContext) {\n");
+        source.append("        final ").append(beanName).append(" target = new ").append(beanName).append("();\n");
+        source.append("        reader.readStartDocument();\n");
+        source.append("        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {\n");
+        source.append("            switch (reader.readName()) {\n");
+        final Map<Integer, List<String>> caseLabels = getCaseLabels(collection, properties, elementNames);
+        for (Map.Entry<Integer, List<String>> labels : caseLabels.entrySet()) {
+            final int slot = labels.getKey();
+            final Property property = properties.get(slot);
+            for (String label : labels.getValue()) {
+                source.append("                case \"").append(label).append("\":\n");
+            }
+            final String setter = "target." + property.setter;
+            final String readExpression = getReadExpression(property, slot, codecFields);
+            if (property.type.getKind().isPrimitive()) {
+                source.append("                    if (!readNull(reader)) {\n");
+                source.append("                        ").append(setter).append("(").append(readExpression)
+                        .append(");\n");
+                source.append("                    }\n");
+            } else {
+                source.append("                    ").append(setter).append("(readNull(reader) ? null : ")
+                        .append(readExpression).append(");\n");
+            }
+            source.append("                    break;\n");
+        }
+        source.append("                default:\n");
+        source.append("                    reader.skipValue();\n");
+        source.append("            }\n");
+        source.append("        }\n");
+        source.append("        reader.readEndDocument();\n");
+        source.append("        return target;\n");
+        source.append("    }\n");
+    }
+
+    /**
+     * Returns the expression which reads the current value of a property.
+     *
+     * @param property    property
+     * @param slot        property slot
+     * @param codecFields codec field of each generated Java Bean type
+     * @return read expression
+     */
+    private String getReadExpression(final Property property, final int slot, final Map<String, String> codecFields) {
+        final String typeName = processingEnv.getTypeUtils().erasure(property.type).toString();
+        switch (typeName) {
+            case "int":
+            case "java.lang.Integer":
+                return "readInt(reader)";
+            case "long":
+            case "java.lang.Long":
+                return "readLong(reader)";
+            case "double":
+            case "java.lang.Double":
+                return "readDouble(reader)";
+            case "boolean":
+            case "java.lang.Boolean":
+                return "reader.readBoolean()";
+            case "java.lang.String":
+                return "reader.readString()";
+            case "org.bson.types.ObjectId":
+                return "reader.readObjectId()";
+            case "java.util.Date":
+                return "new java.util.Date(reader.readDateTime())";
+            case "int[]":
+                return "readIntArray(reader)";
+            case "long[]":
+                return "readLongArray(reader)";
+            case "double[]":
+                return "readDoubleArray(reader)";
+            default:
+                final String codecField = codecFields.get(getNestedTypeName(property.type));
+                final String collectionImplementation = getCollectionImplementation(property.type);
+                if (codecField != null && collectionImplementation != null) {
+                    return "readCollection(new " + collectionImplementation + "<" + getNestedTypeName(property.type)
+                            + ">(), " + codecField + ", reader, decoderContext)";
+                }
+                if (codecField != null) {
+                    return codecField + ".decode(reader, decoderContext)";
+                }
+                return "(" + getCastType(property.type) + ") readElement(" + slot + ", reader, decoderContext)";
+        }
+    }
+
+    /**
+     * Returns the BSON element name of each property, the "id" property of a collection is the "_id" element, same as
+     * the abstract collection codec.
+     *
+     * @param collection true if the Java Bean is a collection
+     * @param properties properties
+     * @return BSON element names
+     */
+    private static String[] getElementNames(final boolean collection, final List<Property> properties) {
+        final String[] elementNames = new String[properties.size()];
+        for (int slot = 0; slot < elementNames.length; slot++) {
+            final Property property = properties.get(slot);
+            elementNames[slot] = collection && property.name.equalsIgnoreCase(JAVA_ID) ? COLLECTION_ID
+                    : property.elementName;
+        }
+        return elementNames;
+    }
+
+    /**
+     * Returns the element names which are decoded into each property, same as the element name table of the abstract
+     * codec: the BSON element names, then the known aliases, which are the "_id" element name, the property names and
+     * the {@link ElementName} names.
+     *
+     * @param collection   true if the Java Bean is a collection
+     * @param properties   properties
+     * @param elementNames BSON element name of each property
+     * @return case labels of each property slot, in slot order
+     */
+    private static Map<Integer, List<String>> getCaseLabels(final boolean collection, final List<Property> properties,
+                                                            final String[] elementNames) {
+        final Map<String, Integer> slots = new LinkedHashMap<>();
+        final Map<String, Integer> propertySlots = new LinkedHashMap<>();
+        final Map<String, String> attributeNames = new LinkedHashMap<>();
+        final Set<String> aliases = new LinkedHashSet<>();
+        aliases.add(COLLECTION_ID);
+        for (int slot = 0; slot < properties.size(); slot++) {
+            final Property property = properties.get(slot);
+            slots.put(elementNames[slot], slot);
+            propertySlots.put(property.name, slot);
+            if (!property.name.equals(property.elementName)) {
+                attributeNames.put(property.elementName, property.name);
+            }
+            aliases.add(property.name);
+            aliases.add(property.elementName);
+        }
+        for (String alias : aliases) {
+            final String attributeName = collection && alias.equalsIgnoreCase(COLLECTION_ID) ? JAVA_ID
+                    : attributeNames.getOrDefault(alias, alias);
+            final Integer slot = propertySlots.get(attributeName);
+            if (slot != null) {
+                slots.putIfAbsent(alias, slot);
+            }
+        }
+        final Map<Integer, List<String>> caseLabels = new TreeMap<>();
+        for (Map.Entry<String, Integer> slot : slots.entrySet()) {
+            caseLabels.computeIfAbsent(slot.getValue(), key -> new ArrayList<>()).add(slot.getKey());
+        }
+        return caseLabels;
+    }
+
+    /**
+     * Returns the property slots in write order, same as the abstract codec.
+     *
+     * @param type         Java Bean
+     * @param properties   properties
+     * @param elementNames BSON element name of each property
+     * @return property slots in write order
+     */
+    private static Set<Integer> getWriteOrder(final TypeElement type, final List<Property> properties,
+                                              final String[] elementNames) {
+        final Set<Integer> order = new LinkedHashSet<>();
+        for (int slot = 0; slot < elementNames.length; slot++) {
+            if (COLLECTION_ID.equals(elementNames[slot])) {
+                order.add(slot);
+            }
+        }
+        final PropertyOrder propertyOrder = type.getAnnotation(PropertyOrder.class);
+        if (propertyOrder != null) {
+            for (String attributeName : propertyOrder.value()) {
+                for (int slot = 0; slot < properties.size(); slot++) {
+                    if (properties.get(slot).name.equals(attributeName)) {
+                        order.add(slot);
+                    }
+                }
+            }
+        }
+        for (int slot = 0; slot < properties.size(); slot++) {
+            order.add(slot);
+        }
+        return order;
+    }
+
+    /**
+     * Returns the codec field of each generated Java Bean type of the properties, which is a property type or the
+     * element type of a list or a set property.
+     *
+     * @param properties properties
+     * @return field name by Java Bean type
+     */
+    private Map<String, String> getCodecFields(final List<Property> properties) {
+        final Map<String, String> codecFields = new LinkedHashMap<>();
+        final Set<String> fieldNames = new LinkedHashSet<>();
+        for (Property property : properties) {
+            final String nestedTypeName = getNestedTypeName(property.type);
+            if (nestedTypeName == null || codecFields.containsKey(nestedTypeName)) {
+                continue;
+            }
+            final String simpleName = nestedTypeName.substring(nestedTypeName.lastIndexOf('.') + 1);
+            String fieldName = decapitalize(simpleName) + CODEC_SUFFIX;
+            for (int index = 2; !fieldNames.add(fieldName); index++) {
+                fieldName = decapitalize(simpleName) + CODEC_SUFFIX + index;
+            }
+            codecFields.put(nestedTypeName, fieldName);
+        }
+        return codecFields;
+    }
+
+    /**
+     * Returns the generated Java Bean type of a property, which is the property type, or the element type of a list or
+     * a set property.
+     *
+     * @param type property type
+     * @return qualified name of the Java Bean type, or NULL if it is not annotated by {@link GenerateCodec}
+     */
+    private String getNestedTypeName(final TypeMirror type) {
+        TypeMirror nestedType = type;
+        if (getCollectionImplementation(type) != null) {
+            final List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+            nestedType = arguments.size() == 1 ? arguments.get(0) : null;
+        }
+        if (nestedType == null || nestedType.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        final TypeElement element = (TypeElement) ((DeclaredType) nestedType).asElement();
+        if (element.getKind() != ElementKind.CLASS || element.getAnnotation(GenerateCodec.class) == null) {
+            return null;
+        }
+        return element.getQualifiedName().toString();
+    }
+
+    /**
+     * Returns the collection class which is decoded for a list or a set property, same as the abstract codec.
+     *
+     * @param type property type
+     * @return qualified name of the collection class, or NULL if the type is neither a list nor a set
+     */
+    private String getCollectionImplementation(final TypeMirror type) {
+        switch (processingEnv.getTypeUtils().erasure(type).toString()) {
+            case "java.util.List":
+                return "java.util.ArrayList";
+            case "java.util.Set":
+                return "java.util.HashSet";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the writer method of a type which is written as a single BSON value.
+     *
+     * @param type property type
+     * @return writer method, or NULL if the type is not written as a single BSON value
+     */
+    private String getWriteMethod(final TypeMirror type) {
+        switch (processingEnv.getTypeUtils().erasure(type).toString()) {
+            case "int":
+            case "java.lang.Integer":
+                return "writeInt32";
+            case "long":
+            case "java.lang.Long":
+                return "writeInt64";
+            case "double":
+            case "java.lang.Double":
+                return "writeDouble";
+            case "boolean":
+            case "java.lang.Boolean":
+                return "writeBoolean";
+            case "java.lang.String":
+                return "writeString";
+            case "org.bson.types.ObjectId":
+                return "writeObjectId";
+            case "java.util.Date":
+                return "writeDateTime";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the writer method of the elements of a primitive int, long or double array type.
+     *
+     * @param type property type
+     * @return writer method, or NULL if the type is not a primitive int, long or double array
+     */
+    private static String getPrimitiveArrayWriteMethod(final TypeMirror type) {
+        if (type.getKind() != TypeKind.ARRAY) {
+            return null;
+        }
+        switch (((ArrayType) type).getComponentType().getKind()) {
+            case INT:
+                return "writeInt32";
+            case LONG:
+                return "writeInt64";
+            case DOUBLE:
+                return "writeDouble";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns true if the type is a date, which is written as its milliseconds.
+     *
+     * @param type property type
+     * @return true if the type is a date
+     */
+    private boolean isDate(final TypeMirror type) {
+        return "java.util.Date".equals(processingEnv.getTypeUtils().erasure(type).toString());
+    }
+
+    /**
+     * Generates the lazy subclass of a Java Bean.
+     * <p>
+     * Each getter decodes its property from the raw BSON document on first access, each setter marks its property as
+     * loaded so it is never decoded. The property slots are the indexes of the property accessors of the codec.
+     *
+     * @param type           Java Bean
+     * @param codecPackage   package of the generated codec
+     * @param lazySimpleName simple name of the lazy subclass
+     * @param properties     properties
+     * @return true if the lazy subclass is generated
+     */
+    private boolean generateLazyClass(final TypeElement type, final String codecPackage, final String lazySimpleName,
+                                      final List<Property> properties) {
+        final String beanName = type.getQualifiedName().toString();
+        final StringBuilder source = new StringBuilder();
+        if (!codecPackage.isEmpty()) {
+            source.append("package ").append(codecPackage).append(";\n\n");
+        }
+        if (!"com.mongodb.app.codec".equals(codecPackage)) {
+            source.append("import com.mongodb.app.codec.LazyLoader;\n\n");
+        }
+        source.append("/**\n");
+        source.append(" * Lazy ").append(type.getSimpleName())
+                .append(", each property is decoded from the raw BSON document on the first getter access.\n");
+        source.append(" * <p>\n");
+        source.append(" * Generated by the codec processor from {@link ").append(beanName).append("}, do not edit.\n");
+        source.append(" */\n");
+        source.append("public class ").append(lazySimpleName).append(" extends ").append(beanName).append(" {\n");
+        source.append("    private final LazyLoader<").append(beanName).append("> loader;\n\n");
+        source.append("    /**\n");
+        source.append("     * Constructor.\n");
+        source.append("     *\n");
+        source.append("     * @param loader lazy loader\n");
+        source.append("     */\n");
+        source.append("    public ").append(lazySimpleName).append("(LazyLoader<").append(beanName)
+                .append("> loader) {\n");
+        source.append("        this.loader = loader;\n");
+        source.append("    }\n");
+        for (int slot = 0; slot < properties.size(); slot++) {
+            final Property property = properties.get(slot);
+            source.append("\n");
+            source.append("    /**\n");
+            source.append("     * Returns ").append(property.name).append(", it is decoded on first access.\n");
+            source.append("     *\n");
+            source.append("     * @return ").append(property.name).append("\n");
+            source.append("     */\n");
+            source.append("    @Override\n");
+            source.append("    public ").append(property.type).append(" ").append(property.getter).append("() {\n");
+            source.append("        if (!loader.isLoaded(").append(slot).append(")) {\n");
+            source.append("            final Object value = loader.load(").append(slot).append(");\n");
+            source.append("            if (value != null) {\n");
+            source.append("                super.").append(property.setter).append("((")
+                    .append(getCastType(property.type)).append(") value);\n");
+            source.append("            }\n");
+            source.append("        }\n");
+            source.append("        return super.").append(property.getter).append("();\n");
+            source.append("    }\n\n");
+            source.append("    /**\n");
+            source.append("     * Sets ").append(property.name).append(", it is not decoded anymore.\n");
+            source.append("     *\n");
+            source.append("     * @param value ").append(property.name).append("\n");
+            source.append("     */\n");
+            source.append("    @Override\n");
+            source.append("    public void ").append(property.setter).append("(").append(property.type)
+                    .append(" value) {\n");
+            source.append("        loader.markLoaded(").append(slot).append(");\n");
+            source.append("        super.").append(property.setter).append("(value);\n");
+            source.append("    }\n");
+        }
+        source.append("}\n");
+        return writeSource(codecPackage.isEmpty() ? lazySimpleName : codecPackage + "." + lazySimpleName, source,
+                type);
+    }
+
+    /**
+     * Generates the codec provider of the generated codecs.
+     *
+     * @param origin originating element
+     */
+    private void generateProvider(final Element origin) {
+        if (generatedCodecs.isEmpty()) {
+            return;
+        }
+        if (providerGenerated) {
+            error("@GenerateCodec classes must be processed in a single round!", origin);
+            return;
+        }
+        final String firstCodec = generatedCodecs.values().iterator().next();
+        final String defaultProvider = firstCodec.contains(".") ?
+                firstCodec.substring(0, firstCodec.lastIndexOf('.') + 1) + DEFAULT_PROVIDER : DEFAULT_PROVIDER;
+        final String providerName = processingEnv.getOptions().getOrDefault(CODEC_PROVIDER, defaultProvider);
+        final int separator = providerName.lastIndexOf('.');
+        final String providerSimpleName = providerName.substring(separator + 1);
+        final StringBuilder source = new StringBuilder();
+        if (separator > 0) {
+            source.append("package ").append(providerName.substring(0, separator)).append(";\n\n");
+        }
+        source.append("/**\n");
+        source.append(" * Codec provider of the generated codecs.\n");
+        source.append(" * <p>\n");
+        source.append(" * Generated by the codec processor, do not edit.\n");
+        source.append(" */\n");
+        source.append("public class ").append(providerSimpleName).append(" extends com.mongodb.app.codec.configuration.AbstractCodecProvider {\n\n");
+        source.append("    /**\n");
+        source.append("     * Default constructor.\n");
+        source.append("     */\n");
+        source.append("    public ").append(providerSimpleName).append("() {\n");
+        for (Map.Entry<String, String> codec : generatedCodecs.entrySet()) {
+            source.append("        register(").append(codec.getKey()).append(".class, ").append(codec.getValue())
+                    .append("::new);\n");
+        }
+        for (Map.Entry<String, String> lazyClass : generatedLazyClasses.entrySet()) {
+            source.append("        registerSubclass(").append(lazyClass.getValue()).append(".class, ")
+                    .append(lazyClass.getKey()).append(".class);\n");
+        }
+        source.append("    }\n");
+        source.append("}\n");
+        providerGenerated = writeSource(providerName, source, origin);
+    }
+
+    /**
+     * Reads the properties of a Java Bean, a property has a public getter and a public setter of the same type.
+     * <p>
+     * Properties are returned in declaration order, starting from the top most super class.
+     *
+     * @param type Java Bean
+     * @return properties
+     */
+    private List<Property> readProperties(final TypeElement type) {
+        final Types types = processingEnv.getTypeUtils();
+        final DeclaredType declaredType = (DeclaredType) type.asType();
+        final Deque<TypeElement> hierarchy = new ArrayDeque<>();
+        for (TypeElement current = type; current != null && !Object.class.getName().equals(
+                current.getQualifiedName().toString()); current = getSuperclass(current)) {
+            hierarchy.push(current);
+        }
+        final Map<String, ExecutableElement> getters = new LinkedHashMap<>();
+        final Map<String, ExecutableElement> setters = new LinkedHashMap<>();
+        for (TypeElement current : hierarchy) {
+            for (ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                final Set<Modifier> modifiers = method.getModifiers();
+                if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC)) {
+                    continue;
+                }
+                final String methodName = method.getSimpleName().toString();
+                final int parameters = method.getParameters().size();
+                final TypeKind returnKind = method.getReturnType().getKind();
+                if (parameters == 0 && methodName.startsWith("get") && methodName.length() > 3
+                        && returnKind != TypeKind.VOID) {
+                    getters.put(decapitalize(methodName.substring(3)), method);
+                } else if (parameters == 0 && methodName.startsWith("is") && methodName.length() > 2
+                        && returnKind == TypeKind.BOOLEAN) {
+                    getters.put(decapitalize(methodName.substring(2)), method);
+                } else if (parameters == 1 && methodName.startsWith("set") && methodName.length() > 3
+                        && returnKind == TypeKind.VOID) {
+                    setters.put(decapitalize(methodName.substring(3)), method);
+                }
+            }
+        }
+        final List<Property> properties = new ArrayList<>(getters.size());
+        for (Map.Entry<String, ExecutableElement> getter : getters.entrySet()) {
+            final ExecutableElement setter = setters.get(getter.getKey());
+            if (setter == null) {
+                continue;
+            }
+            final TypeMirror getterType = ((ExecutableType) types.asMemberOf(declaredType, getter.getValue()))
+                    .getReturnType();
+            final TypeMirror setterType = ((ExecutableType) types.asMemberOf(declaredType, setter))
+                    .getParameterTypes().get(0);
+            if (!types.isSameType(getterType, setterType)) {
+                continue;
+            }
+            properties.add(new Property(getter.getKey(), getElementName(getter.getKey(), getter.getValue(), hierarchy),
+                    getterType, getter.getValue().getSimpleName().toString(), setter.getSimpleName().toString(),
+                    !getter.getValue().getModifiers().contains(Modifier.FINAL)
+                            && !setter.getModifiers().contains(Modifier.FINAL)));
+        }
+        return properties;
+    }
+
+    /**
+     * Returns the BSON element name of a property, it is taken from {@link ElementName} of the getter or of the field.
+     *
+     * @param name      property name
+     * @param getter    getter
+     * @param hierarchy class hierarchy
+     * @return BSON element name
+     */
+    private String getElementName(final String name, final ExecutableElement getter,
+                                  final Deque<TypeElement> hierarchy) {
+        ElementName elementName = getter.getAnnotation(ElementName.class);
+        if (elementName == null) {
+            for (TypeElement current : hierarchy) {
+                for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                    if (field.getSimpleName().contentEquals(name) && field.getAnnotation(ElementName.class) != null) {
+                        elementName = field.getAnnotation(ElementName.class);
+                    }
+                }
+            }
+        }
+        return elementName == null ? name : elementName.value();
+    }
+
+    /**
+     * Returns a class literal of the type.
+     *
+     * @param type type
+     * @return class literal
+     */
+    private String getClassLiteral(final TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type) + ".class";
+    }
+
+    /**
+     * Returns a class literal of the element type of an array or a collection type.
+     *
+     * @param type type
+     * @return class literal, or "null" if the type is neither an array nor a collection
+     */
+    private String getElementClassLiteral(final TypeMirror type) {
+        final Types types = processingEnv.getTypeUtils();
+        if (type.getKind() == TypeKind.ARRAY) {
+            return getClassLiteral(((ArrayType) type).getComponentType());
+        }
+        final TypeMirror collectionType = types.erasure(processingEnv.getElementUtils()
+                .getTypeElement("java.util.Collection").asType());
+        if (type.getKind() != TypeKind.DECLARED || !types.isAssignable(types.erasure(type), collectionType)) {
+            return "null";
+        }
+        final List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+        if (arguments.size() == 1 && arguments.get(0).getKind() == TypeKind.DECLARED) {
+            return getClassLiteral(arguments.get(0));
+        }
+        return "java.lang.Object.class";
+    }
+
+    /**
+     * Returns the property accessor factory method of a primitive int, long or double type.
+     *
+     * @param type type
+     * @return factory method name, or NULL if the type has no primitive property accessor
+     */
+    private static String getPrimitiveFactory(final TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+                return "ofInt";
+            case LONG:
+                return "ofLong";
+            case DOUBLE:
+                return "ofDouble";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the type of a cast to the type, a primitive type is boxed.
+     *
+     * @param type type
+     * @return cast type
+     */
+    private String getCastType(final TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    /**
+     * Returns true if the Java Bean is a subclass of AbstractCollection.
+     *
+     * @param type Java Bean
+     * @return true if the Java Bean is a collection
+     */
+    private boolean isCollection(final TypeElement type) {
+        final TypeElement collection = processingEnv.getElementUtils().getTypeElement(ABSTRACT_COLLECTION);
+        return collection != null && processingEnv.getTypeUtils().isSubtype(type.asType(), collection.asType());
+    }
+
+    /**
+     * Returns true if the Java Bean has a public default constructor.
+     *
+     * @param type Java Bean
+     * @return true if the Java Bean has a public default constructor
+     */
+    private boolean hasDefaultConstructor(final TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the super class element.
+     *
+     * @param type type
+     * @return super class element, or NULL if there is no super class
+     */
+    private TypeElement getSuperclass(final TypeElement type) {
+        final TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return (TypeElement) ((DeclaredType) superclass).asElement();
+    }
+
+    /**
+     * Returns package name of the type.
+     *
+     * @param type type
+     * @return package name
+     */
+    private String getPackageName(final TypeElement type) {
+        return processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    }
+
+    /**
+     * Returns the property name of a getter or setter name without its prefix, same as
+     * {@link java.beans.Introspector#decapitalize(String)}.
+     *
+     * @param name name without its prefix
+     * @return property name
+     */
+    private static String decapitalize(final String name) {
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Writes a source file.
+     *
+     * @param name    fully qualified name
+     * @param source  source
+     * @param origin  originating element
+     * @return true if the source file has been written
+     */
+    private boolean writeSource(final String name, final CharSequence source, final Element origin) {
+        try (Writer writer = processingEnv.getFiler().createSourceFile(name, origin).openWriter()) {
+            writer.append(source);
+            return true;
+        } catch (IOException exception) {
+            error("Failed to write " + name + ": " + exception.getMessage(), origin);
+            return false;
+        }
+    }
+
+    /**
+     * Reports an error.
+     *
+     * @param message message
+     * @param element element
+     */
+    private void error(final String message, final Element element) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * Java Bean property.
+     *
+     * @author nico.arianto
+     */
+    private static final class Property {
+        private final String name;
+        private final String elementName;
+        private final TypeMirror type;
+        private final String getter;
+        private final String setter;
+        private final boolean overridable;
+
+        /**
+         * Constructor.
+         *
+         * @param name        property name
+         * @param elementName BSON element name
+         * @param type        property type
+         * @param getter      getter name
+         * @param setter      setter name
+         * @param overridable true if neither the getter nor the setter is final
+         */
+        private Property(String name, String elementName, TypeMirror type, String getter, String setter,
+                         boolean overridable) {
+            this.name = name;
+            this.elementName = elementName;
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+            this.overridable = overridable;
+        }
+    }
+}
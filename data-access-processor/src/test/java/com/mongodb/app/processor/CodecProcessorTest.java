@@ -0,0 +1,239 @@
+package com.mongodb.app.processor;
+
+import com.mongodb.MongoClient;
+import com.mongodb.app.codec.AbstractCodec;
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.json.JsonReader;
+import org.bson.json.JsonWriter;
+import org.bson.types.ObjectId;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.AssertJUnit.*;
+
+/**
+ * Codec processor - unit test.
+ *
+ * @author nico.arianto
+ */
+public class CodecProcessorTest {
+    private static final String BEAN_SOURCE = "package com.mongodb.app.processor.test;\n" +
+            "@com.mongodb.app.annotation.GenerateCodec\n" +
+            "public class BeanTest extends com.mongodb.app.collection.AbstractCollection {\n" +
+            "    @com.mongodb.app.annotation.ElementName(\"string_prop\")\n" +
+            "    private String stringProp;\n" +
+            "    private Integer intProp;\n" +
+            "    private java.util.List<Long> listProp;\n" +
+            "    private Object getterProp;\n" +
+            "    private long countProp;\n" +
+            "    private double[] coordProp;\n" +
+            "    private NestedTest nestedProp;\n" +
+            "    private java.util.List<NestedTest> nestedListProp;\n" +
+            "    public String getStringProp() { return stringProp; }\n" +
+            "    public void setStringProp(String stringProp) { this.stringProp = stringProp; }\n" +
+            "    public Integer getIntProp() { return intProp; }\n" +
+            "    public void setIntProp(Integer intProp) { this.intProp = intProp; }\n" +
+            "    public java.util.List<Long> getListProp() { return listProp; }\n" +
+            "    public void setListProp(java.util.List<Long> listProp) { this.listProp = listProp; }\n" +
+            "    public Object getGetterProp() { return getterProp; }\n" +
+            "    public long getCountProp() { return countProp; }\n" +
+            "    public void setCountProp(long countProp) { this.countProp = countProp; }\n" +
+            "    public double[] getCoordProp() { return coordProp; }\n" +
+            "    public void setCoordProp(double[] coordProp) { this.coordProp = coordProp; }\n" +
+            "    public NestedTest getNestedProp() { return nestedProp; }\n" +
+            "    public void setNestedProp(NestedTest nestedProp) { this.nestedProp = nestedProp; }\n" +
+            "    public java.util.List<NestedTest> getNestedListProp() { return nestedListProp; }\n" +
+            "    public void setNestedListProp(java.util.List<NestedTest> nestedListProp) { this.nestedListProp = nestedListProp; }\n" +
+            "    @com.mongodb.app.annotation.GenerateCodec\n" +
+            "    public static class NestedTest {\n" +
+            "        private String stringProp;\n" +
+            "        public String getStringProp() { return stringProp; }\n" +
+            "        public void setStringProp(String stringProp) { this.stringProp = stringProp; }\n" +
+            "    }\n" +
+            "}\n";
+    private static final String LAZY_SOURCE = "package com.mongodb.app.processor.lazy;\n" +
+            "@com.mongodb.app.annotation.GenerateCodec(lazy = true)\n" +
+            "public class LazyTest {\n" +
+            "    private String stringProp;\n" +
+            "    private int intProp;\n" +
+            "    public String getStringProp() { return stringProp; }\n" +
+            "    public void setStringProp(String stringProp) { this.stringProp = stringProp; }\n" +
+            "    public int getIntProp() { return intProp; }\n" +
+            "    public void setIntProp(int intProp) { this.intProp = intProp; }\n" +
+            "}\n";
+    private static final String INVALID_SOURCE = "package com.mongodb.app.processor.test;\n" +
+            "@com.mongodb.app.annotation.GenerateCodec\n" +
+            "public class InvalidTest {\n" +
+            "    public InvalidTest(String string) { }\n" +
+            "}\n";
+    private File outputDirectory;
+
+    /**
+     * Initialize output directory.
+     *
+     * @throws IOException
+     */
+    @BeforeClass
+    public void init() throws IOException {
+        outputDirectory = Files.createTempDirectory("codec-processor").toFile();
+    }
+
+    /**
+     * Compiles the source with the codec processor.
+     *
+     * @param name        class name
+     * @param source      source
+     * @param diagnostics diagnostics
+     * @param options     processor options
+     * @return true if the compilation succeeded
+     * @throws IOException
+     */
+    private boolean compile(final String name, final String source,
+                            final DiagnosticCollector<JavaFileObject> diagnostics, final String... options)
+            throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            final JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + name.replace('.', '/')
+                    + JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return source;
+                }
+            };
+            final List<String> arguments = new ArrayList<>(Arrays.asList("-d",
+                    outputDirectory.getAbsolutePath(), "-s", outputDirectory.getAbsolutePath(), "-classpath",
+                    System.getProperty("java.class.path")));
+            arguments.addAll(Arrays.asList(options));
+            final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, arguments,
+                    null, Collections.singletonList(file));
+            task.setProcessors(Collections.singletonList(new CodecProcessor()));
+            return task.call();
+        }
+    }
+
+    /**
+     * Test process(Set, RoundEnvironment) method, the generated codec encodes and decodes the properties itself, and a
+     * nested Java Bean by its generated codec.
+     *
+     * @throws Exception
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProcess() throws Exception {
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(diagnostics.getDiagnostics().toString(), compile("com.mongodb.app.processor.test.BeanTest",
+                BEAN_SOURCE, diagnostics, "-AcodecProvider=com.mongodb.app.processor.test.TestCodecProvider"));
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{outputDirectory.toURI().toURL()},
+                getClass().getClassLoader())) {
+            final Class<Object> beanClass = (Class<Object>) classLoader.loadClass(
+                    "com.mongodb.app.processor.test.BeanTest");
+            final CodecProvider provider = (CodecProvider) classLoader.loadClass(
+                    "com.mongodb.app.processor.test.TestCodecProvider").newInstance();
+            final CodecRegistry registry = CodecRegistries.fromRegistries(CodecRegistries.fromProviders(provider),
+                    MongoClient.getDefaultCodecRegistry());
+            final Codec<Object> codec = registry.get(beanClass);
+            assertEquals("com.mongodb.app.processor.test.BeanTestCodec", codec.getClass().getName());
+            assertEquals(codec.getClass(), codec.getClass().getMethod("decode", BsonReader.class,
+                    DecoderContext.class).getDeclaringClass());
+            assertEquals(codec.getClass(), codec.getClass().getMethod("encode", BsonWriter.class, beanClass,
+                    EncoderContext.class).getDeclaringClass());
+            final ObjectId id = new ObjectId();
+            final Document document = new Document();
+            document.append("_id", id);
+            document.append("string_prop", "stringProp");
+            document.append("intProp", 9);
+            document.append("listProp", Arrays.asList(10l, 20l));
+            document.append("countProp", 99l);
+            document.append("coordProp", Arrays.asList(-73.9557413, 40.7720266));
+            document.append("nestedProp", new Document("stringProp", "nestedProp"));
+            document.append("nestedListProp", Arrays.asList(new Document("stringProp", "first"),
+                    new Document("stringProp", "second")));
+            final Object bean = codec.decode(new JsonReader(document.toJson()), DecoderContext.builder().build());
+            assertEquals(id, beanClass.getMethod("getId").invoke(bean));
+            assertEquals("stringProp", beanClass.getMethod("getStringProp").invoke(bean));
+            assertEquals(9, beanClass.getMethod("getIntProp").invoke(bean));
+            assertEquals(2, ((List<?>) beanClass.getMethod("getNestedListProp").invoke(bean)).size());
+            assertEquals(Arrays.asList(10l, 20l), beanClass.getMethod("getListProp").invoke(bean));
+            assertEquals(99l, beanClass.getMethod("getCountProp").invoke(bean));
+            assertTrue(Arrays.equals(new double[]{-73.9557413, 40.7720266},
+                    (double[]) beanClass.getMethod("getCoordProp").invoke(bean)));
+            final StringWriter writer = new StringWriter();
+            codec.encode(new JsonWriter(writer), bean, EncoderContext.builder().build());
+            assertEquals(document, Document.parse(writer.toString()));
+            assertNull(provider.get(String.class, registry));
+        }
+    }
+
+    /**
+     * Test process(Set, RoundEnvironment) method with a lazy Java Bean.
+     *
+     * @throws Exception
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProcessWithLazy() throws Exception {
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(diagnostics.getDiagnostics().toString(), compile("com.mongodb.app.processor.lazy.LazyTest",
+                LAZY_SOURCE, diagnostics, "-AcodecProvider=com.mongodb.app.processor.lazy.LazyCodecProvider"));
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{outputDirectory.toURI().toURL()},
+                getClass().getClassLoader())) {
+            final Class<Object> beanClass = (Class<Object>) classLoader.loadClass(
+                    "com.mongodb.app.processor.lazy.LazyTest");
+            final Class<?> lazyClass = classLoader.loadClass("com.mongodb.app.processor.lazy.LazyLazyTest");
+            final CodecProvider provider = (CodecProvider) classLoader.loadClass(
+                    "com.mongodb.app.processor.lazy.LazyCodecProvider").newInstance();
+            final CodecRegistry registry = CodecRegistries.fromRegistries(CodecRegistries.fromProviders(provider),
+                    MongoClient.getDefaultCodecRegistry());
+            final AbstractCodec<Object> codec = (AbstractCodec<Object>) registry.get(beanClass);
+            assertSame(codec, registry.get(lazyClass));
+            final Object bean = codec.decodeLazy(new RawBsonDocument(new Document("stringProp", "stringProp")
+                    .append("intProp", 9), new DocumentCodec()));
+            assertEquals(lazyClass, bean.getClass());
+            assertEquals("stringProp", beanClass.getMethod("getStringProp").invoke(bean));
+            assertEquals(9, beanClass.getMethod("getIntProp").invoke(bean));
+        }
+    }
+
+    /**
+     * Test process(Set, RoundEnvironment) method with a class that has no default constructor.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testProcessWithNoDefaultConstructor() throws IOException {
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertFalse(compile("com.mongodb.app.processor.test.InvalidTest", INVALID_SOURCE, diagnostics));
+        final Diagnostic<? extends JavaFileObject> diagnostic = diagnostics.getDiagnostics().get(0);
+        assertEquals(Diagnostic.Kind.ERROR, diagnostic.getKind());
+        assertEquals("@GenerateCodec requires a public default constructor!", diagnostic.getMessage(null));
+    }
+}
@@ -1,15 +1,18 @@
 package com.mongodb.app.collection;
 
+import com.mongodb.app.annotation.GenerateCodec;
+
 /**
  * Address collection.
  *
  * @author nico.arianto
  */
+@GenerateCodec
 public class Address {
     private String street;
     private String zipcode;
     private String building;
-    private Double[] coord;
+    private double[] coord;
 
     /**
      * Returns a street.
@@ -70,7 +73,7 @@ public class Address {
      *
      * @return coord
      */
-    public Double[] getCoord() {
+    public double[] getCoord() {
         return coord;
     }
 
@@ -79,7 +82,7 @@ public class Address {
      *
      * @param coord coordinate
      */
-    public void setCoord(Double[] coord) {
+    public void setCoord(double[] coord) {
         this.coord = coord;
     }
 }
\ No newline at end of file
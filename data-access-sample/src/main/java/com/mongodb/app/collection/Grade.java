@@ -1,5 +1,7 @@
 package com.mongodb.app.collection;
 
+import com.mongodb.app.annotation.GenerateCodec;
+
 import java.util.Date;
 
 /**
@@ -7,6 +9,7 @@ import java.util.Date;
  *
  * @author nico.arianto
  */
+@GenerateCodec
 public class Grade {
     private Date date;
     private String grade;
@@ -1,5 +1,8 @@
 package com.mongodb.app.collection;
 
+import com.mongodb.app.annotation.ElementName;
+import com.mongodb.app.annotation.GenerateCodec;
+import com.mongodb.app.annotation.Index;
 import com.mongodb.app.resource.MongoDatabaseUtil;
 import org.bson.codecs.Encoder;
 
@@ -10,13 +13,17 @@ import java.util.List;
  *
  * @author nico.arianto
  */
+@GenerateCodec(lazy = true)
+@Index("restaurantId")
+@Index({"borough", "cuisine"})
+@Index(value = "address.coord", kind = Index.Kind.GEO_2DSPHERE)
 public class Restaurant extends AbstractCollection {
-    private static Encoder<Restaurant> encoder;
     private Address address;
     private String borough;
     private String cuisine;
     private List<Grade> grades;
     private String name;
+    @ElementName("restaurant_id")
     private String restaurantId;
 
     /**
@@ -134,9 +141,19 @@ public class Restaurant extends AbstractCollection {
      */
     @Override
     protected Encoder<? extends AbstractCollection> getEncoder() {
-        if (encoder == null) {
-            encoder = MongoDatabaseUtil.getCodecRegistry().get(Restaurant.class);
+        return EncoderHolder.ENCODER;
+    }
+
+    /**
+     * Encoder holder, the class initialization looks up the encoder once and publishes it safely.
+     */
+    private static final class EncoderHolder {
+        private static final Encoder<Restaurant> ENCODER = MongoDatabaseUtil.getCodecRegistry().get(Restaurant.class);
+
+        /**
+         * Private constructor.
+         */
+        private EncoderHolder() {
         }
-        return encoder;
     }
 }
\ No newline at end of file
@@ -2,14 +2,19 @@ package com.mongodb.app.dao;
 
 import com.mongodb.app.collection.AbstractCollection;
 import com.mongodb.app.resource.MongoDatabaseUtil;
+import com.mongodb.app.resource.SharedMongoClient;
 import com.mongodb.client.MongoDatabase;
 
 /**
  * Abstract database DAO.
+ * <p>
+ * Holds a reference to the shared mongo client of the configured client URI, which is released on close.
  *
  * @author nico.arianto
  */
-public abstract class AbstractDatabaseDAO<T extends AbstractCollection> extends AbstractDAO<T> {
+public abstract class AbstractDatabaseDAO<T extends AbstractCollection> extends AbstractDAO<T> implements AutoCloseable {
+    // No initializer, it is assigned by getDatabase() which is called by the super constructor.
+    private SharedMongoClient client;
 
     /**
      * Constructor.
@@ -22,12 +27,25 @@ public abstract class AbstractDatabaseDAO<T extends AbstractCollection> extends
     }
 
     /**
-     * Returns the database object.
+     * Returns the database object, the shared client reference is acquired on the first call.
      *
      * @return database
      */
     @Override
     protected MongoDatabase getDatabase() {
-        return MongoDatabaseUtil.getDatabase();
+        if (client == null) {
+            client = MongoDatabaseUtil.acquireClient();
+        }
+        return client.getDatabase(MongoDatabaseUtil.getDatabaseName());
+    }
+
+    /**
+     * Releases the shared client reference, the shared client is closed with its last reference.
+     */
+    @Override
+    public void close() {
+        if (client != null) {
+            client.close();
+        }
     }
 }
\ No newline at end of file
@@ -2,12 +2,15 @@ package com.mongodb.app.dao;
 
 import com.mongodb.app.collection.Restaurant;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Restaurant DAO.
  *
  * @author nico.arianto
  */
 public class RestaurantDAO extends AbstractDatabaseDAO<Restaurant> {
+    private static final DocumentCache CACHE = new DocumentCache(10000, 64 * 1024 * 1024, 5, TimeUnit.MINUTES);
 
     /**
      * Constructor.
@@ -16,4 +19,23 @@ public class RestaurantDAO extends AbstractDatabaseDAO<Restaurant> {
         super("restaurants", Restaurant.class);
     }
 
-}
\ No newline at end of file
+    /**
+     * Returns the document cache, which is shared by every restaurant DAO.
+     *
+     * @return document cache
+     */
+    @Override
+    protected DocumentCache getCache() {
+        return CACHE;
+    }
+
+    /**
+     * Returns true, the restaurants are saved by partial updates.
+     *
+     * @return true
+     */
+    @Override
+    protected boolean isTrackingChanges() {
+        return true;
+    }
+}
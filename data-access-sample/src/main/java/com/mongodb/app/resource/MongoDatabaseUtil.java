@@ -15,6 +15,9 @@ import java.util.Properties;
 /**
  * Mongo database utility.
  * <p>
+ * The properties file is loaded once, and every DAO shares the {@link SharedMongoClient} of the configured client URI,
+ * whose connection pool and socket options are set by the properties file.
+ * <p>
  * TODO: In the 3-tier application model, {@link MongoClient} or {@link MongoDatabase} should be created with J2EE Connector Architecture (JCA).
  *
  * @author nico.arianto
@@ -23,7 +26,15 @@ public final class MongoDatabaseUtil {
     private static final String PROPERTIES_FILE = "mongodb.properties";
     private static final String CLIENT_URI = "clientURI";
     private static final String DATABASE = "database";
-    private static CodecRegistry registry;
+    private static final String CONNECTIONS_PER_HOST = "connectionsPerHost";
+    private static final String MIN_CONNECTIONS_PER_HOST = "minConnectionsPerHost";
+    private static final String WAIT_QUEUE_MULTIPLE = "threadsAllowedToBlockForConnectionMultiplier";
+    private static final String MAX_WAIT_TIME = "maxWaitTime";
+    private static final String CONNECT_TIMEOUT = "connectTimeout";
+    private static final String SOCKET_TIMEOUT = "socketTimeout";
+    private static final String MAX_CONNECTION_IDLE_TIME = "maxConnectionIdleTime";
+    private static final String MAX_CONNECTION_LIFE_TIME = "maxConnectionLifeTime";
+    private static volatile Properties properties;
 
     /**
      * Returns codec registry.
@@ -31,29 +42,167 @@ public final class MongoDatabaseUtil {
      * @return codec registry
      */
     public static CodecRegistry getCodecRegistry() {
-        if (registry == null) {
-            registry = CodecRegistries.fromRegistries(CodecRegistries.fromProviders(new ApplicationCodecProvider()),
+        return CodecRegistryHolder.REGISTRY;
+    }
+
+    /**
+     * Codec registry holder, the class initialization builds the registry once and publishes it safely.
+     */
+    private static final class CodecRegistryHolder {
+        private static final CodecRegistry REGISTRY;
+
+        static {
+            final ApplicationCodecProvider provider = new ApplicationCodecProvider();
+            REGISTRY = CodecRegistries.fromRegistries(CodecRegistries.fromProviders(provider),
                     MongoClient.getDefaultCodecRegistry());
+            provider.initialize(REGISTRY);
+        }
+
+        /**
+         * Private constructor.
+         */
+        private CodecRegistryHolder() {
         }
-        return registry;
     }
 
     /**
-     * Returns mongo database.
+     * Returns mongo database of the shared client, which is kept open until the JVM exits.
      *
      * @return mongo database
      */
     public static MongoDatabase getDatabase() {
-        final Properties properties = new Properties();
+        return DefaultClientHolder.CLIENT.getDatabase(getDatabaseName());
+    }
+
+    /**
+     * Default client holder, the class initialization acquires the shared client once.
+     */
+    private static final class DefaultClientHolder {
+        private static final SharedMongoClient CLIENT = acquireClient();
+
+        /**
+         * Private constructor.
+         */
+        private DefaultClientHolder() {
+        }
+    }
+
+    /**
+     * Acquires a reference to the shared client of the configured client URI.
+     *
+     * @return shared client reference, which must be closed by its holder
+     */
+    public static SharedMongoClient acquireClient() {
+        return SharedMongoClient.acquire(getClientURI(getProperties()));
+    }
+
+    /**
+     * Returns the database name.
+     *
+     * @return database name
+     */
+    public static String getDatabaseName() {
+        return getProperties().getProperty(DATABASE);
+    }
+
+    /**
+     * Returns the client URI, with the connection pool and socket options of the properties.
+     * <p>
+     * An option of the client URI itself overrides the same option of the properties.
+     *
+     * @param properties properties
+     * @return client URI
+     */
+    private static MongoClientURI getClientURI(final Properties properties) {
+        final MongoClientOptions.Builder builder = new MongoClientOptions.Builder().codecRegistry(getCodecRegistry());
+        final Integer connectionsPerHost = getInteger(properties, CONNECTIONS_PER_HOST);
+        if (connectionsPerHost != null) {
+            builder.connectionsPerHost(connectionsPerHost);
+        }
+        final Integer minConnectionsPerHost = getInteger(properties, MIN_CONNECTIONS_PER_HOST);
+        if (minConnectionsPerHost != null) {
+            builder.minConnectionsPerHost(minConnectionsPerHost);
+        }
+        final Integer waitQueueMultiple = getInteger(properties, WAIT_QUEUE_MULTIPLE);
+        if (waitQueueMultiple != null) {
+            builder.threadsAllowedToBlockForConnectionMultiplier(waitQueueMultiple);
+        }
+        final Integer maxWaitTime = getInteger(properties, MAX_WAIT_TIME);
+        if (maxWaitTime != null) {
+            builder.maxWaitTime(maxWaitTime);
+        }
+        final Integer connectTimeout = getInteger(properties, CONNECT_TIMEOUT);
+        if (connectTimeout != null) {
+            builder.connectTimeout(connectTimeout);
+        }
+        final Integer socketTimeout = getInteger(properties, SOCKET_TIMEOUT);
+        if (socketTimeout != null) {
+            builder.socketTimeout(socketTimeout);
+        }
+        final Integer maxConnectionIdleTime = getInteger(properties, MAX_CONNECTION_IDLE_TIME);
+        if (maxConnectionIdleTime != null) {
+            builder.maxConnectionIdleTime(maxConnectionIdleTime);
+        }
+        final Integer maxConnectionLifeTime = getInteger(properties, MAX_CONNECTION_LIFE_TIME);
+        if (maxConnectionLifeTime != null) {
+            builder.maxConnectionLifeTime(maxConnectionLifeTime);
+        }
+        return new MongoClientURI(properties.getProperty(CLIENT_URI), builder);
+    }
+
+    /**
+     * Returns an integer property.
+     *
+     * @param properties properties
+     * @param key        property key
+     * @return integer value, or NULL if the property is not set
+     * @throws MongoClientException if the property is not an integer
+     */
+    private static Integer getInteger(final Properties properties, final String key) {
+        final String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException exception) {
+            throw new MongoClientException("Invalid " + key + " property [" + value + "] in " + PROPERTIES_FILE + " file.");
+        }
+    }
+
+    /**
+     * Returns the properties, which are loaded once.
+     *
+     * @return properties
+     */
+    private static Properties getProperties() {
+        Properties current = properties;
+        if (current == null) {
+            synchronized (MongoDatabaseUtil.class) {
+                current = properties;
+                if (current == null) {
+                    current = loadProperties();
+                    properties = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Loads the properties file.
+     *
+     * @return properties
+     * @throws MongoClientException if failed to load the properties file
+     */
+    private static Properties loadProperties() {
+        final Properties loadedProperties = new Properties();
         try {
-            properties.load(Thread.currentThread().getContextClassLoader().getResourceAsStream(PROPERTIES_FILE));
+            loadedProperties.load(Thread.currentThread().getContextClassLoader().getResourceAsStream(PROPERTIES_FILE));
         } catch (IOException exception) {
             throw new MongoClientException("Failed to load " + PROPERTIES_FILE + " file.", exception);
         }
-        final MongoClientURI clientURI = new MongoClientURI(properties.getProperty(CLIENT_URI),
-                new MongoClientOptions.Builder().codecRegistry(getCodecRegistry()));
-        final MongoClient client = new MongoClient(clientURI);
-        return client.getDatabase(properties.getProperty(DATABASE));
+        return loadedProperties;
     }
 
     /**
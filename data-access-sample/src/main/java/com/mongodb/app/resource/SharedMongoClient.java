@@ -0,0 +1,144 @@
+package com.mongodb.app.resource;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientURI;
+import com.mongodb.client.MongoDatabase;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shared mongo client.
+ * <p>
+ * A reference to the single {@link MongoClient} of a client URI, so every holder shares one connection pool and one
+ * set of monitor threads. The client is created by the first {@link #acquire(MongoClientURI)} of its URI, and closed
+ * when the last reference is closed, or by the shutdown hook if any reference is still open when the JVM exits.
+ *
+ * @author nico.arianto
+ */
+public final class SharedMongoClient implements AutoCloseable {
+    private static final Map<String, Entry> CLIENTS = new HashMap<>();
+    private final Entry entry;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SharedMongoClient::closeAll, "mongo-client-shutdown"));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param entry shared client entry
+     */
+    private SharedMongoClient(Entry entry) {
+        this.entry = entry;
+    }
+
+    /**
+     * Acquires a reference to the shared client of a client URI, which is created if there is none.
+     * <p>
+     * The options of the first acquired client URI are used, later options of the same URI are ignored.
+     *
+     * @param clientURI client URI
+     * @return shared client reference, which must be closed by its holder
+     */
+    public static SharedMongoClient acquire(final MongoClientURI clientURI) {
+        synchronized (CLIENTS) {
+            Entry entry = CLIENTS.get(clientURI.getURI());
+            if (entry == null) {
+                entry = new Entry(clientURI.getURI(), new MongoClient(clientURI));
+                CLIENTS.put(entry.uri, entry);
+            }
+            entry.references++;
+            return new SharedMongoClient(entry);
+        }
+    }
+
+    /**
+     * Returns the shared client.
+     *
+     * @return mongo client
+     * @throws IllegalStateException if this reference is closed
+     */
+    public MongoClient getClient() {
+        if (closed.get()) {
+            throw new IllegalStateException("The shared mongo client reference is closed!");
+        }
+        return entry.client;
+    }
+
+    /**
+     * Returns a database of the shared client.
+     *
+     * @param databaseName database name
+     * @return mongo database
+     * @throws IllegalStateException if this reference is closed
+     */
+    public MongoDatabase getDatabase(final String databaseName) {
+        return getClient().getDatabase(databaseName);
+    }
+
+    /**
+     * Returns the number of open references to the shared client of a client URI.
+     *
+     * @param clientURI client URI
+     * @return reference count, or 0 if there is no shared client
+     */
+    public static int getReferenceCount(final MongoClientURI clientURI) {
+        synchronized (CLIENTS) {
+            final Entry entry = CLIENTS.get(clientURI.getURI());
+            return entry == null ? 0 : entry.references;
+        }
+    }
+
+    /**
+     * Closes this reference, the shared client is closed with its last reference. Closing a closed reference has no
+     * effect.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (CLIENTS) {
+            if (--entry.references == 0 && CLIENTS.remove(entry.uri) == entry) {
+                entry.client.close();
+            }
+        }
+    }
+
+    /**
+     * Closes every shared client, whatever its open references.
+     */
+    static void closeAll() {
+        synchronized (CLIENTS) {
+            for (Entry entry : CLIENTS.values()) {
+                entry.client.close();
+            }
+            CLIENTS.clear();
+        }
+    }
+
+    /**
+     * Shared client entry.
+     *
+     * @author nico.arianto
+     */
+    private static final class Entry {
+        private final String uri;
+        private final MongoClient client;
+        private int references;
+
+        /**
+         * Constructor.
+         *
+         * @param uri    client URI
+         * @param client mongo client
+         */
+        private Entry(String uri, MongoClient client) {
+            this.uri = uri;
+            this.client = client;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.mongodb.app.app.dao;
 
+import com.mongodb.app.collection.AbstractCollection;
 import com.mongodb.app.collection.Address;
 import com.mongodb.app.collection.Grade;
 import com.mongodb.app.collection.Restaurant;
+import com.mongodb.app.dao.BulkInsertResult;
 import com.mongodb.app.dao.RestaurantDAO;
+import com.mongodb.client.model.FindOptions;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,8 +16,13 @@ import org.testng.annotations.Test;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static com.mongodb.client.model.Filters.eq;
 import static org.testng.AssertJUnit.*;
 
 /**
@@ -41,7 +49,7 @@ public class RestaurantDAOIT {
         address.setStreet("2 Avenue");
         address.setZipcode("10075");
         address.setBuilding("1480");
-        address.setCoord(new Double[]{-73.9557413, 40.7720266});
+        address.setCoord(new double[]{-73.9557413, 40.7720266});
         restaurant.setBorough("Manhattan");
         restaurant.setCuisine("Italian");
         final List<Grade> grades = new ArrayList<>(2);
@@ -60,6 +68,15 @@ public class RestaurantDAOIT {
         restaurant.setRestaurantId("41704620");
     }
 
+    /**
+     * Test reconcileIndexes() method, the declared indexes exist after the first call, so the second call creates none.
+     */
+    @Test
+    public void testReconcileIndexes() {
+        LOGGER.info("Indexes created = {}", restaurantDAO.reconcileIndexes());
+        assertTrue(restaurantDAO.reconcileIndexes().isEmpty());
+    }
+
     /**
      * Test create(Document) method.
      */
@@ -74,9 +91,90 @@ public class RestaurantDAOIT {
     }
 
     /**
-     * Test update(String, Document) method.
+     * Test createAll(Iterable) and readAllAsList(List) methods.
+     */
+    @Test
+    public void testCreateAll() {
+        final List<Restaurant> restaurants = new ArrayList<>(2);
+        for (String name : new String[]{"Morris Park Bake Shop", "Wendy'S"}) {
+            final Restaurant newRestaurant = new Restaurant();
+            newRestaurant.setName(name);
+            restaurants.add(newRestaurant);
+        }
+        final BulkInsertResult<Restaurant> result = restaurantDAO.createAll(restaurants);
+        assertTrue(result.isSuccessful());
+        assertEquals(restaurants.size(), result.getInsertedCount());
+        final List<ObjectId> ids = new ArrayList<>(restaurants.size() + 1);
+        for (Restaurant newRestaurant : restaurants) {
+            assertNotNull(newRestaurant.getId());
+            ids.add(newRestaurant.getId());
+        }
+        ids.add(1, new ObjectId());
+        final List<Restaurant> actualRestaurants = restaurantDAO.readAllAsList(ids);
+        assertEquals(restaurants.get(0).getName(), actualRestaurants.get(0).getName());
+        assertNull(actualRestaurants.get(1));
+        assertEquals(restaurants.get(1).getName(), actualRestaurants.get(2).getName());
+        for (Restaurant newRestaurant : restaurants) {
+            restaurantDAO.delete(newRestaurant.getId());
+        }
+    }
+
+    /**
+     * Test readLazy(ObjectId) method.
      */
     @Test(dependsOnMethods = "testCreate")
+    public void testReadLazy() {
+        final Restaurant actualRestaurant = restaurantDAO.readLazy(restaurant.getId());
+        assertNotNull(actualRestaurant);
+        assertEquals(restaurant.getName(), actualRestaurant.getName());
+        assertEquals(restaurant.toJson(), actualRestaurant.toJson());
+    }
+
+    /**
+     * Test read(ObjectId, String...) method.
+     */
+    @Test(dependsOnMethods = "testCreate")
+    public void testReadWithProperties() {
+        final Restaurant actualRestaurant = restaurantDAO.read(restaurant.getId(), "name", "restaurantId",
+                "address.street");
+        assertNotNull(actualRestaurant);
+        assertEquals(restaurant.getId(), actualRestaurant.getId());
+        assertEquals(restaurant.getName(), actualRestaurant.getName());
+        assertEquals(restaurant.getRestaurantId(), actualRestaurant.getRestaurantId());
+        assertEquals(restaurant.getAddress().getStreet(), actualRestaurant.getAddress().getStreet());
+        assertNull(actualRestaurant.getAddress().getZipcode());
+        assertNull(actualRestaurant.getBorough());
+        assertNull(actualRestaurant.getGrades());
+    }
+
+    /**
+     * Test scan(Bson, Consumer) method.
+     */
+    @Test(dependsOnMethods = "testCreate")
+    public void testScan() {
+        final List<String> actualJsons = new ArrayList<>(1);
+        restaurantDAO.scan(eq(AbstractCollection.COLLECTION_ID, restaurant.getId()),
+                actualRestaurant -> actualJsons.add(actualRestaurant.toJson()));
+        assertEquals(1, actualJsons.size());
+        assertEquals(restaurant.toJson(), actualJsons.get(0));
+    }
+
+    /**
+     * Test stream(Bson, FindOptions) method.
+     */
+    @Test(dependsOnMethods = "testCreate")
+    public void testStream() {
+        try (Stream<Restaurant> restaurants = restaurantDAO.stream(eq(AbstractCollection.COLLECTION_ID, restaurant.getId()),
+                new FindOptions().batchSize(10).limit(1).maxTime(1, TimeUnit.SECONDS))) {
+            assertEquals(Collections.singletonList(restaurant.toJson()),
+                    restaurants.map(Restaurant::toJson).collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Test update(String, Document) method.
+     */
+    @Test(dependsOnMethods = {"testReadLazy", "testReadWithProperties", "testScan", "testStream"})
     public void testUpdate() {
         final ObjectId id = restaurant.getId();
         restaurant.setCuisine("American (New)");
@@ -89,9 +187,24 @@ public class RestaurantDAOIT {
     }
 
     /**
-     * Test delete(String) method.
+     * Test save(Restaurant) method.
      */
     @Test(dependsOnMethods = "testUpdate")
+    public void testSave() {
+        final ObjectId id = restaurant.getId();
+        final Restaurant loadedRestaurant = restaurantDAO.read(id);
+        loadedRestaurant.setCuisine("Italian");
+        restaurantDAO.save(loadedRestaurant);
+        final Restaurant actualRestaurant = restaurantDAO.read(id);
+        assertNotNull(actualRestaurant);
+        LOGGER.info("Restaurant saved = {}", actualRestaurant.toJson());
+        assertEquals(loadedRestaurant.toJson(), actualRestaurant.toJson());
+    }
+
+    /**
+     * Test delete(String) method.
+     */
+    @Test(dependsOnMethods = "testSave")
     public void testDelete() {
         final ObjectId id = restaurant.getId();
         restaurantDAO.delete(id);
@@ -2,6 +2,7 @@ package com.mongodb.app.app.resource;
 
 import com.mongodb.MongoClientException;
 import com.mongodb.app.resource.MongoDatabaseUtil;
+import com.mongodb.app.resource.SharedMongoClient;
 import mockit.Deencapsulation;
 import mockit.Expectations;
 import mockit.Mocked;
@@ -12,6 +13,7 @@ import java.io.InputStream;
 import java.util.Properties;
 
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertSame;
 
 /**
  * Mongo database utility - integration test.
@@ -29,20 +31,35 @@ public class MongoDatabaseUtilIT {
     }
 
     /**
-     * Test getDatabase() method throw {@link java.io.IOException}.
+     * Test acquireClient() method, every reference shares the same client, which is closed with the last reference.
+     */
+    @Test
+    public void testAcquireClient() {
+        final SharedMongoClient firstClient = MongoDatabaseUtil.acquireClient();
+        final SharedMongoClient secondClient = MongoDatabaseUtil.acquireClient();
+        assertSame(firstClient.getClient(), secondClient.getClient());
+        assertNotNull(firstClient.getDatabase(MongoDatabaseUtil.getDatabaseName()));
+        firstClient.close();
+        firstClient.close();
+        assertNotNull(secondClient.getClient().getDatabase(MongoDatabaseUtil.getDatabaseName()));
+        secondClient.close();
+    }
+
+    /**
+     * Test loadProperties() method throw {@link java.io.IOException}.
      *
      * @param properties properties
      * @throws IOException
      */
     @Test(expectedExceptions = MongoClientException.class, expectedExceptionsMessageRegExp = "Failed to load .* file.")
-    public void testGetDatabaseThrowIOException(@Mocked final Properties properties) throws IOException {
+    public void testLoadPropertiesThrowIOException(@Mocked final Properties properties) throws IOException {
         new Expectations() {
             {
                 properties.load(withInstanceOf(InputStream.class));
                 result = new IOException();
             }
         };
-        MongoDatabaseUtil.getDatabase();
+        Deencapsulation.invoke(MongoDatabaseUtil.class, "loadProperties");
     }
 
     /**